@@ -0,0 +1,427 @@
+/*
+MIT License
+
+Copyright (c) 2022 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+package de.amr.routeplanner.graph;
+
+import java.util.Arrays;
+
+/**
+ * Immutable, compressed adjacency representation of a graph for memory-bound deployments. It stores only primitive
+ * arrays and no vertex or edge objects, so the graph it was built from can be dropped. Vertices are identified by
+ * their index in the original graph (see {@link #index(int)} and {@link #originalIndex(int)}).
+ * <p>
+ * The vertices are renumbered in breadth-first order, so neighbors get close indices. The adjacency list of a vertex
+ * contains each neighbor with direction flags: {@link #OUT} for an edge to the neighbor, {@link #IN} for an edge from
+ * the neighbor. An edge pair in both directions with the same cost, like a two-way road, is stored as a single entry
+ * with both flags. The same lists therefore serve forward and backward searches, no reverse graph is needed.
+ * <p>
+ * Each entry is encoded as two variable-length integers (7 bits per byte): the zigzag-encoded difference of the
+ * neighbor index to the previous neighbor (to the vertex itself for the first entry), and the cost, quantized to
+ * multiples of a cost quantum, shifted left by 2 bits and combined with the direction flags. On road networks an
+ * entry takes about 3 bytes, compared to 8 bytes per edge and direction in a {@link CsrGraph}. Path costs computed on
+ * the compressed graph differ from the exact costs by at most half a quantum per edge.
+ * <p>
+ * The strong components of the graph (see {@link StronglyConnectedComponents}) are kept to reject queries for
+ * unreachable goals without searching, see {@link #mayReach(int, int)}.
+ * 
+ * @author Armin Reichert
+ */
+public final class CompressedGraph {
+
+	/** Direction flag: edge from the vertex to the neighbor. */
+	public static final int OUT = 1;
+
+	/** Direction flag: edge from the neighbor to the vertex. */
+	public static final int IN = 2;
+
+	/** Default cost quantum, 1 meter if costs are in kilometers. */
+	public static final float DEFAULT_QUANTUM = 0.001f;
+
+	private static final int MAX_QUANTIZED_COST = (1 << 29) - 1;
+
+	/**
+	 * Decodes the outgoing or incoming edges of one vertex without allocating objects. A cursor is not thread-safe but
+	 * can be reused for any number of vertices.
+	 * 
+	 * <pre>
+	 * for (edges.outgoing(u); edges.next();) {
+	 * 	int v = edges.target();
+	 * 	float cost = edges.cost();
+	 * }
+	 * </pre>
+	 */
+	public static final class Cursor {
+
+		private final byte[] data;
+		private final int[] offsets;
+		private final float quantum;
+		private int direction;
+		private int pos;
+		private int end;
+		private int neighbor;
+		private int flags;
+		private float cost;
+
+		private Cursor(CompressedGraph graph) {
+			data = graph.data;
+			offsets = graph.offsets;
+			quantum = graph.quantum;
+		}
+
+		/**
+		 * Positions this cursor before the first outgoing edge of the vertex.
+		 * 
+		 * @param u vertex index
+		 * @return this cursor
+		 */
+		public Cursor outgoing(int u) {
+			return reset(u, OUT);
+		}
+
+		/**
+		 * Positions this cursor before the first incoming edge of the vertex.
+		 * 
+		 * @param u vertex index
+		 * @return this cursor
+		 */
+		public Cursor incoming(int u) {
+			return reset(u, IN);
+		}
+
+		private Cursor reset(int u, int direction) {
+			this.direction = direction;
+			pos = offsets[u];
+			end = offsets[u + 1];
+			neighbor = u;
+			return this;
+		}
+
+		/**
+		 * Advances to the next edge in the direction of this cursor.
+		 * 
+		 * @return {@code false} if there are no more edges
+		 */
+		public boolean next() {
+			while (pos < end) {
+				// inlined variable-length integer decoding
+				int b = data[pos++];
+				int delta = b & 0x7f;
+				for (int shift = 7; b < 0; shift += 7) {
+					b = data[pos++];
+					delta |= (b & 0x7f) << shift;
+				}
+				neighbor += (delta >>> 1) ^ -(delta & 1);
+				b = data[pos++];
+				int value = b & 0x7f;
+				for (int shift = 7; b < 0; shift += 7) {
+					b = data[pos++];
+					value |= (b & 0x7f) << shift;
+				}
+				flags = value & 3;
+				if ((flags & direction) != 0) {
+					cost = (value >>> 2) * quantum;
+					return true;
+				}
+			}
+			return false;
+		}
+
+		/**
+		 * @return index of the other end vertex of the current edge
+		 */
+		public int target() {
+			return neighbor;
+		}
+
+		/**
+		 * @return quantized cost of the current edge
+		 */
+		public float cost() {
+			return cost;
+		}
+
+		/**
+		 * @return direction flags of the current entry, {@code OUT | IN} if the edge exists in both directions
+		 */
+		public int flags() {
+			return flags;
+		}
+	}
+
+	/**
+	 * Compresses the given graph using the {@link #DEFAULT_QUANTUM default cost quantum}.
+	 * 
+	 * @param g graph in CSR layout
+	 * @return compressed graph
+	 */
+	public static CompressedGraph compress(CsrGraph<?> g) {
+		return compress(g, DEFAULT_QUANTUM);
+	}
+
+	/**
+	 * @param g       graph in CSR layout
+	 * @param quantum edge costs are rounded to multiples of this value
+	 * @return compressed graph
+	 * @throws IllegalArgumentException if an edge cost is negative or too large for the quantum
+	 */
+	public static CompressedGraph compress(CsrGraph<?> g, float quantum) {
+		return compress(g.offsetArray(), g.targetArray(), g.costArray(), quantum);
+	}
+
+	/**
+	 * Compresses a graph given by edge arrays in CSR layout, for example the roads of a
+	 * {@link de.amr.routeplanner.model.MappedRoadMap}, without creating vertex or edge objects. The arrays are not
+	 * referenced by the compressed graph.
+	 * 
+	 * @param offsets index of the first outgoing edge of each vertex, followed by the number of edges
+	 * @param targets end vertex index of each edge
+	 * @param costs   cost of each edge
+	 * @param quantum edge costs are rounded to multiples of this value
+	 * @return compressed graph
+	 * @throws IllegalArgumentException if the arrays are inconsistent or an edge cost is negative or too large for the
+	 *                                  quantum
+	 */
+	public static CompressedGraph compress(int[] offsets, int[] targets, float[] costs, float quantum) {
+		if (!(quantum > 0)) {
+			throw new IllegalArgumentException("Cost quantum must be positive but is %f".formatted(quantum));
+		}
+		CsrGraph.checkEdgeArrays(offsets.length - 1, offsets, targets, costs);
+		return new CompressedGraph(offsets, targets, costs, quantum);
+	}
+
+	private final int[] rank;
+	private final int[] order;
+	private final int[] offsets;
+	private final byte[] data;
+	private final int[] componentId;
+	private final int[] weakComponentStart;
+	private final float quantum;
+	private final int numEdges;
+
+	private CompressedGraph(int[] fwdOffsets, int[] fwdTargets, float[] fwdCosts, float quantum) {
+		int n = fwdOffsets.length - 1;
+		this.quantum = quantum;
+		this.numEdges = fwdTargets.length;
+		var revOffsets = new int[n + 1];
+		var revTargets = new int[numEdges];
+		var revCosts = new float[numEdges];
+		CsrGraph.reverseEdgeArrays(n, fwdOffsets, fwdTargets, fwdCosts, revOffsets, revTargets, revCosts);
+
+		// breadth-first order over the undirected graph, each weak component is a range of the order
+		order = new int[n];
+		rank = new int[n];
+		Arrays.fill(rank, -1);
+		var starts = new int[n + 1];
+		int numWeakComponents = 0;
+		int head = 0;
+		int tail = 0;
+		for (int root = 0; root < n; ++root) {
+			if (rank[root] != -1) {
+				continue;
+			}
+			starts[numWeakComponents++] = tail;
+			rank[root] = tail;
+			order[tail++] = root;
+			while (head < tail) {
+				int u = order[head++];
+				tail = addUnranked(fwdOffsets, fwdTargets, u, tail);
+				tail = addUnranked(revOffsets, revTargets, u, tail);
+			}
+		}
+		starts[numWeakComponents] = n;
+		weakComponentStart = Arrays.copyOf(starts, numWeakComponents + 1);
+
+		var components = new StronglyConnectedComponents(n, fwdOffsets, fwdTargets);
+		componentId = new int[n];
+		for (int x = 0; x < n; ++x) {
+			componentId[x] = components.componentId(order[x]);
+		}
+
+		offsets = new int[n + 1];
+		var out = new ByteSink(Math.max(16, 3 * numEdges));
+		var neighbors = new int[16];
+		var values = new int[16];
+		for (int x = 0; x < n; ++x) {
+			int u = order[x];
+			int degree = fwdOffsets[u + 1] - fwdOffsets[u] + revOffsets[u + 1] - revOffsets[u];
+			if (degree > neighbors.length) {
+				neighbors = new int[2 * degree];
+				values = new int[2 * degree];
+			}
+			int count = 0;
+			for (int e = fwdOffsets[u]; e < fwdOffsets[u + 1]; ++e) {
+				count = insertSorted(neighbors, values, count, rank[fwdTargets[e]], quantize(fwdCosts[e]) << 2 | OUT);
+			}
+			for (int e = revOffsets[u]; e < revOffsets[u + 1]; ++e) {
+				count = insertSorted(neighbors, values, count, rank[revTargets[e]], quantize(revCosts[e]) << 2 | IN);
+			}
+			int previous = x;
+			for (int i = 0; i < count; ++i) {
+				int value = values[i];
+				// merge an outgoing and incoming edge to the same neighbor with the same cost, these are adjacent
+				if (i + 1 < count && neighbors[i + 1] == neighbors[i] && values[i + 1] >>> 2 == value >>> 2
+						&& (value & 3) == OUT && (values[i + 1] & 3) == IN) {
+					value |= IN;
+					++i;
+				}
+				int delta = neighbors[i] - previous;
+				out.putVarInt((delta << 1) ^ (delta >> 31));
+				out.putVarInt(value);
+				previous = neighbors[i];
+			}
+			offsets[x + 1] = out.size();
+		}
+		data = out.toArray();
+	}
+
+	private int addUnranked(int[] offsets, int[] targets, int u, int tail) {
+		for (int e = offsets[u]; e < offsets[u + 1]; ++e) {
+			int v = targets[e];
+			if (rank[v] == -1) {
+				rank[v] = tail;
+				order[tail++] = v;
+			}
+		}
+		return tail;
+	}
+
+	private int quantize(float cost) {
+		long q = Math.round((double) cost / quantum);
+		if (cost < 0 || q > MAX_QUANTIZED_COST) {
+			throw new IllegalArgumentException(
+					"Edge cost %f cannot be quantized with quantum %f".formatted(cost, quantum));
+		}
+		return (int) q;
+	}
+
+	// insertion sort by (neighbor, cost, flags), adjacency lists are short
+	private static int insertSorted(int[] neighbors, int[] values, int count, int neighbor, int value) {
+		int i = count;
+		while (i > 0 && (neighbors[i - 1] > neighbor || neighbors[i - 1] == neighbor && values[i - 1] > value)) {
+			neighbors[i] = neighbors[i - 1];
+			values[i] = values[i - 1];
+			--i;
+		}
+		neighbors[i] = neighbor;
+		values[i] = value;
+		return count + 1;
+	}
+
+	private static class ByteSink {
+
+		private byte[] bytes;
+		private int size;
+
+		ByteSink(int capacity) {
+			bytes = new byte[capacity];
+		}
+
+		void putVarInt(int value) {
+			if (size + 5 > bytes.length) {
+				bytes = Arrays.copyOf(bytes, Math.max(2 * bytes.length, size + 5));
+			}
+			while ((value & ~0x7f) != 0) {
+				bytes[size++] = (byte) (value & 0x7f | 0x80);
+				value >>>= 7;
+			}
+			bytes[size++] = (byte) value;
+		}
+
+		int size() {
+			return size;
+		}
+
+		byte[] toArray() {
+			return Arrays.copyOf(bytes, size);
+		}
+	}
+
+	/**
+	 * @return new cursor over the edges of the vertices of this graph
+	 */
+	public Cursor edgeCursor() {
+		return new Cursor(this);
+	}
+
+	public int numVertices() {
+		return order.length;
+	}
+
+	/**
+	 * @return number of directed edges of the original graph
+	 */
+	public int numEdges() {
+		return numEdges;
+	}
+
+	public float quantum() {
+		return quantum;
+	}
+
+	/**
+	 * @param originalIndex vertex index in the original graph
+	 * @return index of the vertex in this graph
+	 */
+	public int index(int originalIndex) {
+		return rank[originalIndex];
+	}
+
+	/**
+	 * @param u vertex index in this graph
+	 * @return index of the vertex in the original graph
+	 */
+	public int originalIndex(int u) {
+		return order[u];
+	}
+
+	/**
+	 * @param s source vertex index in this graph
+	 * @param t target vertex index in this graph
+	 * @return {@code false} if there is certainly no path from {@code s} to {@code t}, {@code true} if there may be one
+	 * @see StronglyConnectedComponents#mayReach(int, int)
+	 */
+	public boolean mayReach(int s, int t) {
+		return weakComponent(s) == weakComponent(t) && componentId[t] <= componentId[s];
+	}
+
+	private int weakComponent(int u) {
+		int i = Arrays.binarySearch(weakComponentStart, u);
+		return i >= 0 ? i : -i - 2;
+	}
+
+	/**
+	 * @return number of bytes of heap memory retained by this graph (arrays including their headers)
+	 */
+	public long sizeInBytes() {
+		long arrayHeader = 16;
+		return 48 + 6 * arrayHeader + data.length
+				+ 4L * (rank.length + order.length + offsets.length + componentId.length + weakComponentStart.length);
+	}
+
+	@Override
+	public String toString() {
+		return "CompressedGraph[vertices=%d, edges=%d, bytes=%d, quantum=%f]".formatted(numVertices(), numEdges,
+				sizeInBytes(), quantum);
+	}
+}
@@ -0,0 +1,322 @@
+/*
+MIT License
+
+Copyright (c) 2022 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+package de.amr.routeplanner.graph;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Immutable snapshot of a graph in compressed-sparse-row (CSR) layout. The outgoing edges of the vertex with index
+ * {@code u} have the edge indices {@code offsets[u]..offsets[u+1]-1}, their end vertices and costs are stored in the
+ * {@code targets} and {@code costs} arrays. Vertex indices are the dense indices assigned by the graph (see
+ * {@link Vertex#id()}).
+ * 
+ * @author Armin Reichert
+ * 
+ * @param V vertex class (subclass of {@link Vertex})
+ */
+public final class CsrGraph<V extends Vertex> {
+
+	private static final AtomicLong NEXT_VERSION = new AtomicLong();
+
+	/**
+	 * Creates a CSR graph directly from edge arrays, without building a {@link Graph} and its edge objects first. The
+	 * vertices must not belong to a graph, each vertex gets its position in the list as its {@link Vertex#id() index}.
+	 * The arrays are not copied.
+	 * 
+	 * @param vertices vertex list
+	 * @param offsets  index of the first outgoing edge of each vertex, followed by the number of edges
+	 * @param targets  end vertex index of each edge
+	 * @param costs    cost of each edge
+	 * @return the CSR graph
+	 * @throws IllegalArgumentException if a vertex already belongs to a graph or the arrays are inconsistent
+	 */
+	public static <V extends Vertex> CsrGraph<V> of(List<V> vertices, int[] offsets, int[] targets, float[] costs) {
+		int n = vertices.size();
+		checkEdgeArrays(n, offsets, targets, costs);
+		var vertexList = List.copyOf(vertices);
+		for (var v : vertexList) {
+			if (v.id() != -1) {
+				throw new IllegalArgumentException("Vertex %s already belongs to a graph.".formatted(v));
+			}
+		}
+		for (int u = 0; u < n; ++u) {
+			vertexList.get(u).setId(u);
+		}
+		return new CsrGraph<>(vertexList, -1, offsets, targets, costs);
+	}
+
+	static void checkEdgeArrays(int n, int[] offsets, int[] targets, float[] costs) {
+		int m = targets.length;
+		if (offsets.length != n + 1 || offsets[0] != 0 || offsets[n] != m || costs.length != m) {
+			throw new IllegalArgumentException("Edge arrays do not match %d vertices".formatted(n));
+		}
+		for (int u = 0; u < n; ++u) {
+			if (offsets[u] > offsets[u + 1]) {
+				throw new IllegalArgumentException("Edge offsets are not ascending at vertex %d".formatted(u));
+			}
+		}
+		for (int e = 0; e < m; ++e) {
+			if (targets[e] < 0 || targets[e] >= n) {
+				throw new IllegalArgumentException("Invalid target vertex %d of edge %d".formatted(targets[e], e));
+			}
+		}
+	}
+
+	/**
+	 * Computes the edge arrays of the reverse graph by a counting sort.
+	 * 
+	 * @param n          number of vertices
+	 * @param offsets    edge offsets
+	 * @param targets    edge targets
+	 * @param costs      edge costs
+	 * @param revOffsets receives the reverse edge offsets, length {@code n + 1}
+	 * @param revTargets receives the reverse edge targets
+	 * @param revCosts   receives the reverse edge costs
+	 */
+	static void reverseEdgeArrays(int n, int[] offsets, int[] targets, float[] costs, int[] revOffsets,
+			int[] revTargets, float[] revCosts) {
+		for (int e = 0; e < targets.length; ++e) {
+			++revOffsets[targets[e] + 1];
+		}
+		for (int u = 0; u < n; ++u) {
+			revOffsets[u + 1] += revOffsets[u];
+		}
+		var fill = Arrays.copyOf(revOffsets, n);
+		for (int u = 0; u < n; ++u) {
+			for (int e = offsets[u]; e < offsets[u + 1]; ++e) {
+				int slot = fill[targets[e]]++;
+				revTargets[slot] = u;
+				revCosts[slot] = costs[e];
+			}
+		}
+	}
+
+	private final long version = NEXT_VERSION.incrementAndGet();
+	private final List<V> vertices;
+	private final int modCount;
+	private final int[] offsets;
+	private final int[] targets;
+	private final float[] costs;
+	private volatile CsrGraph<V> reverse;
+	private volatile StronglyConnectedComponents components;
+
+	CsrGraph(List<V> vertexList, int modCount) {
+		this.vertices = List.copyOf(vertexList);
+		this.modCount = modCount;
+		int n = vertices.size();
+		offsets = new int[n + 1];
+		for (int u = 0; u < n; ++u) {
+			offsets[u + 1] = offsets[u] + vertices.get(u).outDegree();
+		}
+		targets = new int[offsets[n]];
+		costs = new float[offsets[n]];
+		for (int u = 0; u < n; ++u) {
+			var edges = vertices.get(u).outgoingEdges().iterator();
+			for (int e = offsets[u]; e < offsets[u + 1]; ++e) {
+				var edge = edges.next();
+				targets[e] = edge.to().id();
+				costs[e] = edge.cost();
+			}
+		}
+	}
+
+	private CsrGraph(List<V> vertices, int modCount, int[] offsets, int[] targets, float[] costs) {
+		this.vertices = vertices;
+		this.modCount = modCount;
+		this.offsets = offsets;
+		this.targets = targets;
+		this.costs = costs;
+	}
+
+	/**
+	 * Returns the reverse graph (all edges inverted) of this graph in CSR layout. The outgoing edges of a vertex in the
+	 * reverse graph are the incoming edges of the vertex in this graph. The reverse graph is computed on first access
+	 * and shares the vertex list with this graph.
+	 * 
+	 * @return the reverse graph
+	 */
+	public CsrGraph<V> reverse() {
+		var result = reverse;
+		if (result == null) {
+			result = computeReverse();
+			result.reverse = this;
+			reverse = result;
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the strongly connected components of this graph, computed on first access.
+	 * 
+	 * @return the components of this graph
+	 */
+	public StronglyConnectedComponents components() {
+		var result = components;
+		if (result == null) {
+			result = new StronglyConnectedComponents(numVertices(), offsets, targets);
+			components = result;
+		}
+		return result;
+	}
+
+	private CsrGraph<V> computeReverse() {
+		int n = numVertices();
+		var revOffsets = new int[n + 1];
+		var revTargets = new int[targets.length];
+		var revCosts = new float[costs.length];
+		reverseEdgeArrays(n, offsets, targets, costs, revOffsets, revTargets, revCosts);
+		return new CsrGraph<>(vertices, modCount, revOffsets, revTargets, revCosts);
+	}
+
+	/**
+	 * @return hash value computed from the vertex count and all edge arrays, used to check that precomputed data
+	 *         belongs to this graph
+	 */
+	public long fingerprint() {
+		long hash = 17 * 31 + vertices.size();
+		for (int u = 0; u <= vertices.size(); ++u) {
+			hash = hash * 31 + offsets[u];
+		}
+		for (int e = 0; e < targets.length; ++e) {
+			hash = hash * 31 + targets[e];
+			hash = hash * 31 + Float.floatToIntBits(costs[e]);
+		}
+		return hash;
+	}
+
+	/**
+	 * @return number that is unique for each snapshot created in this JVM, used as key for caching results computed
+	 *         on this snapshot
+	 */
+	public long version() {
+		return version;
+	}
+
+	int modCount() {
+		return modCount;
+	}
+
+	public int numVertices() {
+		return vertices.size();
+	}
+
+	public int numEdges() {
+		return targets.length;
+	}
+
+	public V vertex(int u) {
+		return vertices.get(u);
+	}
+
+	public Stream<V> vertices() {
+		return vertices.stream();
+	}
+
+	/**
+	 * @param v a vertex
+	 * @return index of the vertex in this graph
+	 * @throws IllegalArgumentException if the vertex is not part of this graph
+	 */
+	public int id(V v) {
+		int u = v.id();
+		if (u < 0 || u >= vertices.size() || vertices.get(u) != v) {
+			throw new IllegalArgumentException("Vertex %s is not part of this graph".formatted(v));
+		}
+		return u;
+	}
+
+	// the edge arrays, not copied, for building other representations in this package
+	int[] offsetArray() {
+		return offsets;
+	}
+
+	int[] targetArray() {
+		return targets;
+	}
+
+	float[] costArray() {
+		return costs;
+	}
+
+	/**
+	 * @param u vertex index
+	 * @return index of the first outgoing edge of vertex {@code u}
+	 */
+	public int firstEdge(int u) {
+		return offsets[u];
+	}
+
+	/**
+	 * @param u vertex index
+	 * @return index after the last outgoing edge of vertex {@code u}
+	 */
+	public int endEdge(int u) {
+		return offsets[u + 1];
+	}
+
+	public int outDegree(int u) {
+		return offsets[u + 1] - offsets[u];
+	}
+
+	/**
+	 * @param e edge index
+	 * @return index of the end vertex of the edge
+	 */
+	public int target(int e) {
+		return targets[e];
+	}
+
+	/**
+	 * @param e edge index
+	 * @return cost of the edge
+	 */
+	public float cost(int e) {
+		return costs[e];
+	}
+
+	/**
+	 * @return copy of the edge cost array, indexed by edge index
+	 */
+	public float[] costs() {
+		return costs.clone();
+	}
+
+	/**
+	 * @param u index of the start vertex
+	 * @param v index of the end vertex
+	 * @return index of the first edge from {@code u} to {@code v} or -1 if there is no such edge
+	 */
+	public int edgeIndex(int u, int v) {
+		for (int e = offsets[u]; e < offsets[u + 1]; ++e) {
+			if (targets[e] == v) {
+				return e;
+			}
+		}
+		return -1;
+	}
+}
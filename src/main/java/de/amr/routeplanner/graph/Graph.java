@@ -24,7 +24,9 @@ SOFTWARE.
 
 package de.amr.routeplanner.graph;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
@@ -38,26 +40,62 @@ import java.util.stream.Stream;
 public class Graph<V extends Vertex> {
 
 	private final Map<String, V> vertexByID = new HashMap<>();
-
+	private final List<V> vertexList = new ArrayList<>();
+	private final List<String> idList = new ArrayList<>();
+	private int modCount;
+	private CsrGraph<V> frozen;
+
+	/**
+	 * Adds the given vertex under the given ID. The vertex gets the next free dense index (see {@link Vertex#id()}).
+	 * 
+	 * @param id     vertex ID
+	 * @param vertex vertex, must not yet be part of any graph
+	 */
 	public void addVertex(String id, V vertex) {
 		Objects.requireNonNull(id);
 		Objects.requireNonNull(vertex);
 		if (vertexByID.containsKey(id)) {
 			throw new IllegalArgumentException("Vertex with ID '%s' already exists.".formatted(id));
 		}
+		if (vertex.id() != -1) {
+			throw new IllegalArgumentException("Vertex %s already belongs to a graph.".formatted(vertex));
+		}
+		vertex.setId(vertexList.size());
 		vertexByID.put(id, vertex);
+		vertexList.add(vertex);
+		idList.add(id);
+		++modCount;
 	}
 
 	public Optional<V> vertex(String id) {
 		return Optional.ofNullable(vertexByID.get(id));
 	}
 
+	/**
+	 * @param index dense vertex index
+	 * @return vertex with the given index
+	 */
+	public V vertex(int index) {
+		return vertexList.get(index);
+	}
+
+	/**
+	 * @param index dense vertex index
+	 * @return ID under which the vertex with the given index has been added
+	 */
+	public String vertexID(int index) {
+		return idList.get(index);
+	}
+
+	/**
+	 * @return stream of all vertices ordered by their index
+	 */
 	public Stream<V> vertices() {
-		return vertexByID.values().stream();
+		return vertexList.stream();
 	}
 
 	public int numVertices() {
-		return vertexByID.size();
+		return vertexList.size();
 	}
 
 	public Stream<Edge> edges() {
@@ -74,13 +112,27 @@ public class Graph<V extends Vertex> {
 	}
 
 	public void addDirectedEdge(V from, V to, float cost) {
-		if (edge(from, to).isPresent()) {
+		if (from.hasOutgoingEdgeTo(to)) {
 			throw new IllegalArgumentException("Duplicate edge (%s, %s)".formatted(from, to));
 		}
 		from.addOutgoingEdge(to, cost);
+		++modCount;
 	}
 
 	public Optional<Edge> edge(V from, V to) {
 		return from.outgoingEdges().filter(e -> e.to().equals(to)).findAny();
 	}
+
+	/**
+	 * Returns an immutable snapshot of this graph in compressed-sparse-row layout. The snapshot is cached and rebuilt
+	 * only after vertices or edges have been added to this graph.
+	 * 
+	 * @return immutable CSR snapshot of this graph
+	 */
+	public CsrGraph<V> freeze() {
+		if (frozen == null || frozen.modCount() != modCount) {
+			frozen = new CsrGraph<>(vertexList, modCount);
+		}
+		return frozen;
+	}
 }
\ No newline at end of file
@@ -0,0 +1,220 @@
+/*
+MIT License
+
+Copyright (c) 2022 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+package de.amr.routeplanner.graph;
+
+import java.util.Arrays;
+
+/**
+ * Strongly connected components of a CSR graph snapshot, computed by an iterative version of Tarjan's algorithm, and
+ * the weakly connected components, computed by union-find.
+ * <p>
+ * Tarjan's algorithm completes the components in reverse topological order, so if there is an edge from a vertex in
+ * component {@code a} to a vertex in another component {@code b}, then {@code b < a}. Together with the weak
+ * components this allows to reject many unreachable queries in constant time: a vertex {@code t} can only be reached
+ * from {@code s} if both are in the same weak component and the strong component of {@code t} is not larger than the
+ * strong component of {@code s}. If both are in the same strong component, {@code t} is always reachable.
+ * 
+ * @see <a href="https://doi.org/10.1137/0201010">Robert Tarjan: Depth-First Search and Linear Graph Algorithms</a>
+ *
+ * @author Armin Reichert
+ */
+public final class StronglyConnectedComponents {
+
+	private final int[] componentId;
+	private final int[] componentSizes;
+	private final int[] weakComponentId;
+	private final int numWeakComponents;
+
+	/**
+	 * @param n       number of vertices
+	 * @param offsets CSR offsets of the outgoing edges
+	 * @param targets end vertex of each edge
+	 */
+	StronglyConnectedComponents(int n, int[] offsets, int[] targets) {
+		componentId = new int[n];
+		int numComponents = tarjan(n, offsets, targets, componentId);
+		componentSizes = new int[numComponents];
+		for (int u = 0; u < n; ++u) {
+			++componentSizes[componentId[u]];
+		}
+		weakComponentId = new int[n];
+		numWeakComponents = unionFind(n, offsets, targets, weakComponentId);
+	}
+
+	private static int tarjan(int n, int[] offsets, int[] targets, int[] component) {
+		var index = new int[n];
+		var low = new int[n];
+		var onStack = new boolean[n];
+		var stack = new int[n];
+		var callVertex = new int[n];
+		var callEdge = new int[n];
+		Arrays.fill(index, -1);
+		int nextIndex = 0;
+		int numComponents = 0;
+		int sp = 0;
+		for (int root = 0; root < n; ++root) {
+			if (index[root] != -1) {
+				continue;
+			}
+			index[root] = low[root] = nextIndex++;
+			stack[sp++] = root;
+			onStack[root] = true;
+			callVertex[0] = root;
+			callEdge[0] = offsets[root];
+			int csp = 1;
+			while (csp > 0) {
+				int u = callVertex[csp - 1];
+				int e = callEdge[csp - 1];
+				if (e < offsets[u + 1]) {
+					callEdge[csp - 1] = e + 1;
+					int v = targets[e];
+					if (index[v] == -1) {
+						index[v] = low[v] = nextIndex++;
+						stack[sp++] = v;
+						onStack[v] = true;
+						callVertex[csp] = v;
+						callEdge[csp] = offsets[v];
+						++csp;
+					} else if (onStack[v]) {
+						low[u] = Math.min(low[u], index[v]);
+					}
+				} else {
+					--csp;
+					if (low[u] == index[u]) {
+						int w;
+						do {
+							w = stack[--sp];
+							onStack[w] = false;
+							component[w] = numComponents;
+						} while (w != u);
+						++numComponents;
+					}
+					if (csp > 0) {
+						int parent = callVertex[csp - 1];
+						low[parent] = Math.min(low[parent], low[u]);
+					}
+				}
+			}
+		}
+		return numComponents;
+	}
+
+	private static int unionFind(int n, int[] offsets, int[] targets, int[] component) {
+		var root = new int[n];
+		for (int u = 0; u < n; ++u) {
+			root[u] = u;
+		}
+		for (int u = 0; u < n; ++u) {
+			for (int e = offsets[u]; e < offsets[u + 1]; ++e) {
+				int a = find(root, u);
+				int b = find(root, targets[e]);
+				if (a != b) {
+					root[Math.max(a, b)] = Math.min(a, b);
+				}
+			}
+		}
+		int count = 0;
+		for (int u = 0; u < n; ++u) {
+			int r = find(root, u);
+			component[u] = r == u ? count++ : component[r];
+		}
+		return count;
+	}
+
+	private static int find(int[] root, int u) {
+		while (root[u] != u) {
+			root[u] = root[root[u]];
+			u = root[u];
+		}
+		return u;
+	}
+
+	public int numComponents() {
+		return componentSizes.length;
+	}
+
+	public int numWeakComponents() {
+		return numWeakComponents;
+	}
+
+	/**
+	 * @param u vertex index
+	 * @return index of the strong component containing the vertex
+	 */
+	public int componentId(int u) {
+		return componentId[u];
+	}
+
+	/**
+	 * @param u vertex index
+	 * @return index of the weak component containing the vertex
+	 */
+	public int weakComponentId(int u) {
+		return weakComponentId[u];
+	}
+
+	/**
+	 * @param component strong component index
+	 * @return number of vertices in the component
+	 */
+	public int componentSize(int component) {
+		return componentSizes[component];
+	}
+
+	public int largestComponentSize() {
+		return Arrays.stream(componentSizes).max().orElse(0);
+	}
+
+	/**
+	 * @return number of strong components consisting of a single vertex
+	 */
+	public int numSingletonComponents() {
+		return (int) Arrays.stream(componentSizes).filter(size -> size == 1).count();
+	}
+
+	/**
+	 * @param s source vertex index
+	 * @param t target vertex index
+	 * @return {@code false} if there is certainly no path from {@code s} to {@code t}, {@code true} if there may be one
+	 */
+	public boolean mayReach(int s, int t) {
+		return weakComponentId[s] == weakComponentId[t] && componentId[t] <= componentId[s];
+	}
+
+	/**
+	 * @param s source vertex index
+	 * @param t target vertex index
+	 * @return {@code true} if both vertices are in the same strong component, so each is reachable from the other
+	 */
+	public boolean isStronglyConnected(int s, int t) {
+		return componentId[s] == componentId[t];
+	}
+
+	@Override
+	public String toString() {
+		return "StronglyConnectedComponents[components=%d, largest=%d, singletons=%d, weak=%d]"
+				.formatted(numComponents(), largestComponentSize(), numSingletonComponents(), numWeakComponents);
+	}
+}
@@ -33,8 +33,21 @@ import java.util.stream.Stream;
  */
 public class Vertex {
 
+	private int id = -1;
 	private List<Edge> adjEdges;
 
+	/**
+	 * @return dense index of this vertex inside its graph (0..numVertices-1) or -1 if the vertex has not been added to a
+	 *         graph
+	 */
+	public int id() {
+		return id;
+	}
+
+	void setId(int id) {
+		this.id = id;
+	}
+
 	public void addOutgoingEdge(Vertex to, float cost) {
 		if (adjEdges == null) {
 			adjEdges = new ArrayList<>(3);
@@ -42,7 +55,26 @@ public class Vertex {
 		adjEdges.add(new Edge(this, to, cost));
 	}
 
+	/**
+	 * @param to end vertex
+	 * @return {@code true} if this vertex has an outgoing edge to the given vertex
+	 */
+	public boolean hasOutgoingEdgeTo(Vertex to) {
+		if (adjEdges != null) {
+			for (var edge : adjEdges) {
+				if (edge.to().equals(to)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
 	public Stream<Edge> outgoingEdges() {
 		return adjEdges == null ? Stream.empty() : adjEdges.stream();
 	}
+
+	public int outDegree() {
+		return adjEdges == null ? 0 : adjEdges.size();
+	}
 }
\ No newline at end of file
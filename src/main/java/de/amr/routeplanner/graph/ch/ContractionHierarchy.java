@@ -0,0 +1,271 @@
+/*
+MIT License
+
+Copyright (c) 2022 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+package de.amr.routeplanner.graph.ch;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import de.amr.routeplanner.graph.CsrGraph;
+import de.amr.routeplanner.graph.Vertex;
+import de.amr.routeplanner.graph.search.SearchState;
+import de.amr.routeplanner.graph.search.SearchStatePool;
+import de.amr.routeplanner.graph.search.ShortestPath;
+
+/**
+ * Contraction hierarchy of a CSR graph snapshot.
+ * <p>
+ * Preprocessing ({@link #build(CsrGraph)}) contracts the vertices in parallel rounds of independent sets, ordered by
+ * their edge difference, and inserts a shortcut edge wherever a shortest path through a contracted vertex would
+ * otherwise get lost. The result is a valid hierarchy but not necessarily the one a sequential contraction would
+ * produce: it may contain additional, redundant shortcuts. Each edge of the resulting graph connects a lower ranked
+ * vertex to a higher ranked vertex or vice versa. The upward edges are stored forward at their lower ranked end, the
+ * downward edges are stored backward at their lower ranked end. A query runs Dijkstra upward from the source and
+ * backward-upward from the goal, so both searches only see the small part of the graph "above" their start vertex.
+ * Shortcuts on the found path are unpacked recursively into original edges using the middle vertex stored with each
+ * shortcut.
+ * <p>
+ * Instances are immutable and queries may run concurrently.
+ *
+ * @author Armin Reichert
+ */
+public final class ContractionHierarchy<V extends Vertex> {
+
+	/**
+	 * Contracts all vertices of the given graph snapshot. Vertices are contracted in parallel rounds of independent
+	 * vertex sets.
+	 * 
+	 * @param g CSR graph with non-negative edge weights
+	 * @return the contraction hierarchy
+	 */
+	public static <V extends Vertex> ContractionHierarchy<V> build(CsrGraph<V> g) {
+		var contractor = new Contractor(g);
+		contractor.contract();
+		return new ContractionHierarchy<>(g, contractor);
+	}
+
+	private final CsrGraph<V> graph;
+	private final int[] rank;
+	private final int numShortcuts;
+
+	// upward edges (u, v) with rank(u) < rank(v), stored at u
+	private final int[] upOffsets;
+	private final int[] upTargets;
+	private final float[] upCosts;
+	private final int[] upMiddle;
+
+	// downward edges (u, v) with rank(u) > rank(v), stored at v
+	private final int[] downOffsets;
+	private final int[] downSources;
+	private final float[] downCosts;
+	private final int[] downMiddle;
+
+	private final SearchStatePool statePool = new SearchStatePool();
+
+	private ContractionHierarchy(CsrGraph<V> graph, Contractor contractor) {
+		this.graph = graph;
+		this.rank = contractor.rank;
+		this.numShortcuts = contractor.numShortcuts;
+		int n = contractor.n;
+		upOffsets = new int[n + 1];
+		downOffsets = new int[n + 1];
+		for (int u = 0; u < n; ++u) {
+			upOffsets[u + 1] = upOffsets[u] + countHigher(contractor.out[u], rank[u]);
+			downOffsets[u + 1] = downOffsets[u] + countHigher(contractor.in[u], rank[u]);
+		}
+		upTargets = new int[upOffsets[n]];
+		upCosts = new float[upOffsets[n]];
+		upMiddle = new int[upOffsets[n]];
+		downSources = new int[downOffsets[n]];
+		downCosts = new float[downOffsets[n]];
+		downMiddle = new int[downOffsets[n]];
+		for (int u = 0; u < n; ++u) {
+			copyHigher(contractor.out[u], rank[u], upOffsets[u], upTargets, upCosts, upMiddle);
+			copyHigher(contractor.in[u], rank[u], downOffsets[u], downSources, downCosts, downMiddle);
+		}
+	}
+
+	private int countHigher(EdgeList edges, int minRank) {
+		int count = 0;
+		for (int i = 0; i < edges.size; ++i) {
+			count += rank[edges.other[i]] > minRank ? 1 : 0;
+		}
+		return count;
+	}
+
+	private void copyHigher(EdgeList edges, int minRank, int offset, int[] other, float[] cost, int[] middle) {
+		for (int i = 0; i < edges.size; ++i) {
+			if (rank[edges.other[i]] > minRank) {
+				other[offset] = edges.other[i];
+				cost[offset] = edges.cost[i];
+				middle[offset] = edges.middle[i];
+				++offset;
+			}
+		}
+	}
+
+	public CsrGraph<V> graph() {
+		return graph;
+	}
+
+	/**
+	 * @param v a vertex of the graph
+	 * @return position of the vertex in the contraction order
+	 */
+	public int rank(V v) {
+		return rank[graph.id(v)];
+	}
+
+	public int numShortcuts() {
+		return numShortcuts;
+	}
+
+	public int numUpwardEdges() {
+		return upTargets.length;
+	}
+
+	public int numDownwardEdges() {
+		return downSources.length;
+	}
+
+	/**
+	 * Computes a shortest path with a bidirectional upward search. Each direction stops when its minimum key is not
+	 * smaller than the cost of the best path found so far.
+	 * 
+	 * @param source the source vertex
+	 * @param goal   the goal vertex
+	 * @return the shortest path with all shortcuts unpacked or {@link ShortestPath#notFound(int)} if the goal is
+	 *         unreachable
+	 */
+	public ShortestPath<V> findShortestPath(V source, V goal) {
+		Objects.requireNonNull(source);
+		Objects.requireNonNull(goal);
+		int s = graph.id(source);
+		int t = graph.id(goal);
+		if (s == t) {
+			return new ShortestPath<>(Collections.singletonList(source), new float[] { 0 }, 1);
+		}
+		var fwd = statePool.acquire(graph.numVertices());
+		var bwd = statePool.acquire(graph.numVertices());
+		try {
+			fwd.reach(s, 0, SearchState.NO_PARENT);
+			bwd.reach(t, 0, SearchState.NO_PARENT);
+			float best = Float.POSITIVE_INFINITY;
+			int meet = -1;
+			while (true) {
+				boolean fwdActive = !fwd.open().isEmpty() && fwd.open().minKey() < best;
+				boolean bwdActive = !bwd.open().isEmpty() && bwd.open().minKey() < best;
+				if (!fwdActive && !bwdActive) {
+					break;
+				}
+				boolean forward = fwdActive && (!bwdActive || fwd.open().minKey() <= bwd.open().minKey());
+				var self = forward ? fwd : bwd;
+				var other = forward ? bwd : fwd;
+				int[] offsets = forward ? upOffsets : downOffsets;
+				int[] targets = forward ? upTargets : downSources;
+				float[] costs = forward ? upCosts : downCosts;
+				int u = self.open().extractMin();
+				self.setVisited(u);
+				float uCost = self.cost(u);
+				if (other.isReached(u) && uCost + other.cost(u) < best) {
+					best = uCost + other.cost(u);
+					meet = u;
+				}
+				for (int e = offsets[u], end = offsets[u + 1]; e < end; ++e) {
+					int v = targets[e];
+					float altCost = uCost + costs[e];
+					if (altCost < self.cost(v) && !self.isVisited(v)) {
+						self.reach(v, altCost, u);
+					}
+				}
+			}
+			int settled = fwd.visitedCount() + bwd.visitedCount();
+			return meet == -1 ? ShortestPath.notFound(settled) : unpack(fwd, bwd, meet, settled);
+		} finally {
+			statePool.release(fwd);
+			statePool.release(bwd);
+		}
+	}
+
+	private ShortestPath<V> unpack(SearchState fwd, SearchState bwd, int meet, int settled) {
+		var hierarchyPath = new ArrayList<Integer>();
+		for (int u = meet; u != SearchState.NO_PARENT; u = fwd.parent(u)) {
+			hierarchyPath.add(u);
+		}
+		Collections.reverse(hierarchyPath);
+		for (int u = bwd.parent(meet); u != SearchState.NO_PARENT; u = bwd.parent(u)) {
+			hierarchyPath.add(u);
+		}
+		var vertices = new ArrayList<V>();
+		var costs = new ArrayList<Float>();
+		vertices.add(graph.vertex(hierarchyPath.get(0)));
+		costs.add(0f);
+		var stack = new ArrayDeque<int[]>();
+		for (int i = 0; i + 1 < hierarchyPath.size(); ++i) {
+			stack.push(new int[] { hierarchyPath.get(i), hierarchyPath.get(i + 1) });
+			while (!stack.isEmpty()) {
+				int[] edge = stack.pop();
+				int e = findEdge(edge[0], edge[1]);
+				boolean up = rank[edge[0]] < rank[edge[1]];
+				int middle = up ? upMiddle[e] : downMiddle[e];
+				if (middle == -1) {
+					vertices.add(graph.vertex(edge[1]));
+					costs.add(costs.get(costs.size() - 1) + (up ? upCosts[e] : downCosts[e]));
+				} else {
+					stack.push(new int[] { middle, edge[1] });
+					stack.push(new int[] { edge[0], middle });
+				}
+			}
+		}
+		var costArray = new float[costs.size()];
+		for (int i = 0; i < costArray.length; ++i) {
+			costArray[i] = costs.get(i);
+		}
+		return new ShortestPath<>(vertices, costArray, settled);
+	}
+
+	/**
+	 * @return index of hierarchy edge {@code (u, v)} in the upward arrays if {@code rank(u) < rank(v)}, else in the
+	 *         downward arrays
+	 */
+	private int findEdge(int u, int v) {
+		if (rank[u] < rank[v]) {
+			for (int e = upOffsets[u]; e < upOffsets[u + 1]; ++e) {
+				if (upTargets[e] == v) {
+					return e;
+				}
+			}
+		} else {
+			for (int e = downOffsets[v]; e < downOffsets[v + 1]; ++e) {
+				if (downSources[e] == u) {
+					return e;
+				}
+			}
+		}
+		throw new IllegalStateException("No hierarchy edge from %d to %d".formatted(u, v));
+	}
+}
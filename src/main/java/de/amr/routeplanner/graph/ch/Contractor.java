@@ -0,0 +1,274 @@
+/*
+MIT License
+
+Copyright (c) 2022 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+package de.amr.routeplanner.graph.ch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import de.amr.routeplanner.graph.CsrGraph;
+import de.amr.routeplanner.graph.search.SearchState;
+import de.amr.routeplanner.graph.search.SearchStatePool;
+
+/**
+ * Computes the node order and the shortcuts of a contraction hierarchy.
+ * <p>
+ * The priority of a vertex is its edge difference (number of shortcuts needed minus number of removed edges) plus the
+ * number of already contracted neighbors. In each round, all vertices whose priority is smaller than the priority of
+ * each uncontracted neighbor form an independent set. The shortcuts of these vertices are computed in parallel, then
+ * the vertices are removed in ascending index order and the priorities of their neighbors are updated. A witness search
+ * for vertex {@code v} may only pass through vertices of the current round with a larger index than {@code v}, so
+ * vertices of the same round cannot rely on each other for their witnesses and hide a shortcut this way. The witness
+ * searches of a round do not see the shortcuts added by the other vertices of the round, so the shortcut set can
+ * differ from the one of a sequential contraction and may contain redundant shortcuts. The hierarchy is still valid.
+ *
+ * @author Armin Reichert
+ */
+class Contractor {
+
+	private static final Logger LOGGER = LogManager.getFormatterLogger();
+
+	private static final int WITNESS_SETTLE_LIMIT = 500;
+	private static final int PRIORITY_SETTLE_LIMIT = 20;
+
+	record Shortcut(int from, int to, float cost, int middle) {
+	}
+
+	final int n;
+	final EdgeList[] out;
+	final EdgeList[] in;
+	final int[] rank;
+	private final boolean[] contracted;
+	private final boolean[] inRound;
+	private final int[] contractedNeighbors;
+	private final int[] level;
+	private final int[] priority;
+	private final SearchStatePool statePool = new SearchStatePool(Runtime.getRuntime().availableProcessors() * 2);
+	int numShortcuts;
+
+	Contractor(CsrGraph<?> g) {
+		n = g.numVertices();
+		out = new EdgeList[n];
+		in = new EdgeList[n];
+		for (int u = 0; u < n; ++u) {
+			out[u] = new EdgeList();
+			in[u] = new EdgeList();
+		}
+		for (int u = 0; u < n; ++u) {
+			for (int e = g.firstEdge(u); e < g.endEdge(u); ++e) {
+				int v = g.target(e);
+				if (u != v) {
+					out[u].addOrImprove(v, g.cost(e), -1);
+					in[v].addOrImprove(u, g.cost(e), -1);
+				}
+			}
+		}
+		rank = new int[n];
+		contracted = new boolean[n];
+		inRound = new boolean[n];
+		contractedNeighbors = new int[n];
+		level = new int[n];
+		priority = new int[n];
+	}
+
+	void contract() {
+		long start = System.nanoTime();
+		IntStream.range(0, n).parallel().forEach(this::updatePriority);
+		int[] remaining = IntStream.range(0, n).toArray();
+		int nextRank = 0;
+		int rounds = 0;
+		while (remaining.length > 0) {
+			int[] independentSet = IntStream.of(remaining).parallel().filter(this::isLocalMinimum).toArray();
+			for (int v : independentSet) {
+				inRound[v] = true;
+			}
+			List<List<Shortcut>> shortcuts = IntStream.of(independentSet).parallel().mapToObj(this::shortcutsForContraction)
+					.toList();
+			for (int i = 0; i < independentSet.length; ++i) {
+				int v = independentSet[i];
+				contracted[v] = true;
+				inRound[v] = false;
+				rank[v] = nextRank++;
+				for (var shortcut : shortcuts.get(i)) {
+					if (out[shortcut.from()].addOrImprove(shortcut.to(), shortcut.cost(), shortcut.middle())) {
+						in[shortcut.to()].addOrImprove(shortcut.from(), shortcut.cost(), shortcut.middle());
+						++numShortcuts;
+					}
+				}
+			}
+			var affected = new boolean[n];
+			for (int v : independentSet) {
+				forEachUncontractedNeighbor(v, w -> {
+					++contractedNeighbors[w];
+					level[w] = Math.max(level[w], level[v] + 1);
+					affected[w] = true;
+				});
+			}
+			IntStream.range(0, n).parallel().filter(w -> affected[w]).forEach(this::updatePriority);
+			remaining = IntStream.of(remaining).filter(v -> !contracted[v]).toArray();
+			++rounds;
+		}
+		int numRounds = rounds;
+		LOGGER.info(() -> "Contracted %d vertices in %d rounds, added %d shortcuts in %.1f ms".formatted(n, numRounds,
+				numShortcuts, (System.nanoTime() - start) / 1e6));
+	}
+
+	private interface IntConsumer {
+		void accept(int value);
+	}
+
+	private void forEachUncontractedNeighbor(int v, IntConsumer action) {
+		for (int i = 0; i < out[v].size; ++i) {
+			if (!contracted[out[v].other[i]]) {
+				action.accept(out[v].other[i]);
+			}
+		}
+		for (int i = 0; i < in[v].size; ++i) {
+			if (!contracted[in[v].other[i]]) {
+				action.accept(in[v].other[i]);
+			}
+		}
+	}
+
+	private boolean precedes(int v, int w) {
+		return priority[v] < priority[w] || (priority[v] == priority[w] && v < w);
+	}
+
+	private boolean isLocalMinimum(int v) {
+		for (int i = 0; i < out[v].size; ++i) {
+			int w = out[v].other[i];
+			if (!contracted[w] && !precedes(v, w)) {
+				return false;
+			}
+		}
+		for (int i = 0; i < in[v].size; ++i) {
+			int w = in[v].other[i];
+			if (!contracted[w] && !precedes(v, w)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void updatePriority(int v) {
+		var state = statePool.acquire(n);
+		try {
+			int removedEdges = 0;
+			for (int i = 0; i < out[v].size; ++i) {
+				removedEdges += contracted[out[v].other[i]] ? 0 : 1;
+			}
+			for (int i = 0; i < in[v].size; ++i) {
+				removedEdges += contracted[in[v].other[i]] ? 0 : 1;
+			}
+			int added = computeShortcuts(v, PRIORITY_SETTLE_LIMIT, state, null);
+			priority[v] = 2 * (added - removedEdges) + contractedNeighbors[v] + level[v];
+		} finally {
+			statePool.release(state);
+		}
+	}
+
+	private List<Shortcut> shortcutsForContraction(int v) {
+		var state = statePool.acquire(n);
+		try {
+			var shortcuts = new ArrayList<Shortcut>();
+			computeShortcuts(v, WITNESS_SETTLE_LIMIT, state, shortcuts);
+			return shortcuts;
+		} finally {
+			statePool.release(state);
+		}
+	}
+
+	/**
+	 * Computes the shortcuts needed when vertex {@code v} is contracted. For each uncontracted in-neighbor {@code u} a
+	 * witness search is run that avoids {@code v} and all vertices of the current round. A shortcut {@code (u, w)} is
+	 * needed if no witness path from {@code u} to out-neighbor {@code w} at most as expensive as the path via {@code v}
+	 * is found.
+	 * 
+	 * @return number of shortcuts
+	 */
+	private int computeShortcuts(int v, int settleLimit, SearchState state, List<Shortcut> shortcuts) {
+		int count = 0;
+		var inEdges = in[v];
+		var outEdges = out[v];
+		for (int i = 0; i < inEdges.size; ++i) {
+			int u = inEdges.other[i];
+			if (contracted[u]) {
+				continue;
+			}
+			float costUV = inEdges.cost[i];
+			float maxCost = Float.NEGATIVE_INFINITY;
+			for (int j = 0; j < outEdges.size; ++j) {
+				int w = outEdges.other[j];
+				if (!contracted[w] && w != u) {
+					maxCost = Math.max(maxCost, costUV + outEdges.cost[j]);
+				}
+			}
+			if (maxCost == Float.NEGATIVE_INFINITY) {
+				continue;
+			}
+			witnessSearch(u, v, maxCost, settleLimit, state);
+			for (int j = 0; j < outEdges.size; ++j) {
+				int w = outEdges.other[j];
+				if (!contracted[w] && w != u) {
+					float viaCost = costUV + outEdges.cost[j];
+					if (state.cost(w) > viaCost) {
+						++count;
+						if (shortcuts != null) {
+							shortcuts.add(new Shortcut(u, w, viaCost, v));
+						}
+					}
+				}
+			}
+		}
+		return count;
+	}
+
+	private void witnessSearch(int source, int avoid, float maxCost, int settleLimit, SearchState state) {
+		state.reset();
+		state.reach(source, 0, SearchState.NO_PARENT);
+		var open = state.open();
+		int settled = 0;
+		while (!open.isEmpty() && open.minKey() <= maxCost && settled < settleLimit) {
+			int x = open.extractMin();
+			state.setVisited(x);
+			++settled;
+			var edges = out[x];
+			float xCost = state.cost(x);
+			for (int i = 0; i < edges.size; ++i) {
+				int y = edges.other[i];
+				if (y == avoid || contracted[y] || (inRound[y] && y < avoid)) {
+					continue;
+				}
+				float altCost = xCost + edges.cost[i];
+				if (altCost < state.cost(y) && !state.isVisited(y)) {
+					state.reach(y, altCost, x);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,70 @@
+/*
+MIT License
+
+Copyright (c) 2022 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+package de.amr.routeplanner.graph.ch;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of edges incident to one vertex during contraction. For each edge the other end vertex, the cost and
+ * the contracted middle vertex (-1 for original edges) are stored in parallel arrays. The list holds at most one edge
+ * per other vertex.
+ *
+ * @author Armin Reichert
+ */
+class EdgeList {
+
+	int[] other = new int[4];
+	float[] cost = new float[4];
+	int[] middle = new int[4];
+	int size;
+
+	/**
+	 * Adds an edge to the given vertex or lowers the cost of the existing edge.
+	 * 
+	 * @return {@code true} if an edge has been added or improved
+	 */
+	boolean addOrImprove(int otherVertex, float edgeCost, int middleVertex) {
+		for (int i = 0; i < size; ++i) {
+			if (other[i] == otherVertex) {
+				if (edgeCost < cost[i]) {
+					cost[i] = edgeCost;
+					middle[i] = middleVertex;
+					return true;
+				}
+				return false;
+			}
+		}
+		if (size == other.length) {
+			other = Arrays.copyOf(other, 2 * size);
+			cost = Arrays.copyOf(cost, 2 * size);
+			middle = Arrays.copyOf(middle, 2 * size);
+		}
+		other[size] = otherVertex;
+		cost[size] = edgeCost;
+		middle[size] = middleVertex;
+		++size;
+		return true;
+	}
+}
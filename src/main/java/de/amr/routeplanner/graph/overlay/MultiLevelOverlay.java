@@ -0,0 +1,427 @@
+/*
+MIT License
+
+Copyright (c) 2022 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+package de.amr.routeplanner.graph.overlay;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.IntStream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import de.amr.routeplanner.graph.CsrGraph;
+import de.amr.routeplanner.graph.Vertex;
+import de.amr.routeplanner.graph.search.SearchState;
+import de.amr.routeplanner.graph.search.SearchStatePool;
+import de.amr.routeplanner.graph.search.ShortestPath;
+
+/**
+ * Customizable route planning on a multi-level partition overlay.
+ * <p>
+ * The overlay is built once from the graph topology and a {@link Partition}. On each level, a vertex is an
+ * <em>entry</em> of its cell if it is the end of an edge coming from another cell and an <em>exit</em> if it is the
+ * start of an edge leaving its cell. The customization computes for each cell the matrix of shortest path costs from
+ * its entries to its exits. Level 1 cells are customized with Dijkstra on the original edges inside the cell, higher
+ * level cells use the matrices of their subcells. When edge costs change, only the cells containing a changed edge and
+ * the cells above them are customized again, the cells of one level in parallel.
+ * <p>
+ * A query runs Dijkstra on the overlay: a vertex in the same level 1 cell as the source or the goal expands its
+ * original edges, any other vertex uses the highest level on which its cell contains neither source nor goal and
+ * expands the clique of its cell and the edges leaving the cell. Clique arcs on the resulting path are unpacked by a
+ * Dijkstra search restricted to the cell.
+ * <p>
+ * Instances are immutable and may be used concurrently.
+ *
+ * @author Armin Reichert
+ */
+public final class MultiLevelOverlay<V extends Vertex> {
+
+	private static final Logger LOGGER = LogManager.getFormatterLogger();
+
+	private final CsrGraph<V> graph;
+	private final Partition partition;
+	private final int numLevels;
+
+	// all arrays indexed by level 1..numLevels, index 0 unused
+	private final int[][] entryOffsets;
+	private final int[][] entryVertices;
+	private final int[][] exitOffsets;
+	private final int[][] exitVertices;
+	private final int[][] entryIndex;
+	private final int[][] matrixOffsets;
+
+	private final SearchStatePool statePool = new SearchStatePool();
+
+	/**
+	 * @param graph     CSR graph
+	 * @param partition partition of the graph vertices
+	 */
+	public MultiLevelOverlay(CsrGraph<V> graph, Partition partition) {
+		if (partition.numVertices() != graph.numVertices()) {
+			throw new IllegalArgumentException("Partition does not match graph");
+		}
+		this.graph = graph;
+		this.partition = partition;
+		numLevels = partition.numLevels();
+		entryOffsets = new int[numLevels + 1][];
+		entryVertices = new int[numLevels + 1][];
+		exitOffsets = new int[numLevels + 1][];
+		exitVertices = new int[numLevels + 1][];
+		entryIndex = new int[numLevels + 1][];
+		matrixOffsets = new int[numLevels + 1][];
+		int n = graph.numVertices();
+		for (int l = 1; l <= numLevels; ++l) {
+			var isEntry = new boolean[n];
+			var isExit = new boolean[n];
+			for (int u = 0; u < n; ++u) {
+				for (int e = graph.firstEdge(u); e < graph.endEdge(u); ++e) {
+					int v = graph.target(e);
+					if (partition.cell(l, u) != partition.cell(l, v)) {
+						isExit[u] = true;
+						isEntry[v] = true;
+					}
+				}
+			}
+			int numCells = partition.numCells(l);
+			entryOffsets[l] = new int[numCells + 1];
+			exitOffsets[l] = new int[numCells + 1];
+			entryVertices[l] = groupByCell(l, isEntry, entryOffsets[l]);
+			exitVertices[l] = groupByCell(l, isExit, exitOffsets[l]);
+			entryIndex[l] = new int[n];
+			Arrays.fill(entryIndex[l], -1);
+			for (int c = 0; c < numCells; ++c) {
+				for (int i = entryOffsets[l][c]; i < entryOffsets[l][c + 1]; ++i) {
+					entryIndex[l][entryVertices[l][i]] = i - entryOffsets[l][c];
+				}
+			}
+			matrixOffsets[l] = new int[numCells + 1];
+			for (int c = 0; c < numCells; ++c) {
+				matrixOffsets[l][c + 1] = matrixOffsets[l][c] + numEntries(l, c) * numExits(l, c);
+			}
+		}
+	}
+
+	private int[] groupByCell(int level, boolean[] selected, int[] offsets) {
+		int n = selected.length;
+		for (int v = 0; v < n; ++v) {
+			if (selected[v]) {
+				++offsets[partition.cell(level, v) + 1];
+			}
+		}
+		for (int c = 0; c + 1 < offsets.length; ++c) {
+			offsets[c + 1] += offsets[c];
+		}
+		var fill = offsets.clone();
+		var result = new int[offsets[offsets.length - 1]];
+		for (int v = 0; v < n; ++v) {
+			if (selected[v]) {
+				result[fill[partition.cell(level, v)]++] = v;
+			}
+		}
+		return result;
+	}
+
+	public CsrGraph<V> graph() {
+		return graph;
+	}
+
+	public Partition partition() {
+		return partition;
+	}
+
+	private int numEntries(int level, int cell) {
+		return entryOffsets[level][cell + 1] - entryOffsets[level][cell];
+	}
+
+	private int numExits(int level, int cell) {
+		return exitOffsets[level][cell + 1] - exitOffsets[level][cell];
+	}
+
+	/**
+	 * @param level partition level
+	 * @return total number of entries of the clique matrices on the given level
+	 */
+	public int cliqueSize(int level) {
+		return matrixOffsets[level][partition.numCells(level)];
+	}
+
+	/**
+	 * Customizes all cells for the given edge costs.
+	 * 
+	 * @param edgeCosts non-negative edge costs indexed by CSR edge index, {@code Float.POSITIVE_INFINITY} for closed
+	 *                  edges
+	 * @return the customized metric
+	 */
+	public OverlayMetric customize(float[] edgeCosts) {
+		checkCosts(edgeCosts);
+		var dirty = new boolean[numLevels + 1][];
+		for (int l = 1; l <= numLevels; ++l) {
+			dirty[l] = new boolean[partition.numCells(l)];
+			Arrays.fill(dirty[l], true);
+		}
+		var cliques = new float[numLevels + 1][];
+		for (int l = 1; l <= numLevels; ++l) {
+			cliques[l] = new float[matrixOffsets[l][partition.numCells(l)]];
+		}
+		return customize(edgeCosts.clone(), cliques, dirty);
+	}
+
+	/**
+	 * Customizes only the cells affected by the edges whose costs differ from the given previous metric. The previous
+	 * metric stays valid.
+	 * 
+	 * @param previous  metric customized before by this overlay
+	 * @param edgeCosts new non-negative edge costs indexed by CSR edge index
+	 * @return the customized metric
+	 */
+	public OverlayMetric customize(OverlayMetric previous, float[] edgeCosts) {
+		if (previous.overlay != this) {
+			throw new IllegalArgumentException("Metric has been customized by another overlay");
+		}
+		checkCosts(edgeCosts);
+		var dirty = new boolean[numLevels + 1][];
+		for (int l = 1; l <= numLevels; ++l) {
+			dirty[l] = new boolean[partition.numCells(l)];
+		}
+		for (int u = 0; u < graph.numVertices(); ++u) {
+			for (int e = graph.firstEdge(u); e < graph.endEdge(u); ++e) {
+				if (Float.compare(edgeCosts[e], previous.edgeCosts[e]) != 0) {
+					int v = graph.target(e);
+					for (int l = 1; l <= numLevels; ++l) {
+						if (partition.cell(l, u) == partition.cell(l, v)) {
+							dirty[l][partition.cell(l, u)] = true;
+						}
+					}
+				}
+			}
+		}
+		// a changed cell changes the clique of its parent cell
+		for (int l = 1; l < numLevels; ++l) {
+			for (int v = 0; v < graph.numVertices(); ++v) {
+				if (dirty[l][partition.cell(l, v)]) {
+					dirty[l + 1][partition.cell(l + 1, v)] = true;
+				}
+			}
+		}
+		var cliques = new float[numLevels + 1][];
+		for (int l = 1; l <= numLevels; ++l) {
+			cliques[l] = previous.cliques[l].clone();
+		}
+		return customize(edgeCosts.clone(), cliques, dirty);
+	}
+
+	private void checkCosts(float[] edgeCosts) {
+		if (edgeCosts.length != graph.numEdges()) {
+			throw new IllegalArgumentException(
+					"Expected %d edge costs but got %d".formatted(graph.numEdges(), edgeCosts.length));
+		}
+		for (float cost : edgeCosts) {
+			if (!(cost >= 0)) {
+				throw new IllegalArgumentException("Edge costs must be non-negative but found %f".formatted(cost));
+			}
+		}
+	}
+
+	private OverlayMetric customize(float[] edgeCosts, float[][] cliques, boolean[][] dirty) {
+		long start = System.nanoTime();
+		var metric = new OverlayMetric(this, edgeCosts, cliques);
+		int customized = 0;
+		for (int l = 1; l <= numLevels; ++l) {
+			int level = l;
+			boolean[] levelDirty = dirty[l];
+			int[] cells = IntStream.range(0, levelDirty.length).filter(c -> levelDirty[c]).toArray();
+			IntStream.of(cells).parallel().forEach(c -> customizeCell(metric, level, c));
+			customized += cells.length;
+		}
+		int numCustomized = customized;
+		LOGGER.info(() -> "Customized %d cells in %.1f ms".formatted(numCustomized, (System.nanoTime() - start) / 1e6));
+		return metric;
+	}
+
+	private void customizeCell(OverlayMetric metric, int level, int cell) {
+		int numExits = numExits(level, cell);
+		if (numExits == 0) {
+			return;
+		}
+		var state = statePool.acquire(graph.numVertices());
+		try {
+			float[] matrix = metric.cliques[level];
+			int offset = matrixOffsets[level][cell];
+			for (int i = entryOffsets[level][cell]; i < entryOffsets[level][cell + 1]; ++i) {
+				state.reset();
+				state.reach(entryVertices[level][i], 0, SearchState.NO_PARENT);
+				while (!state.open().isEmpty()) {
+					int u = state.open().extractMin();
+					state.setVisited(u);
+					expand(metric, state, u, level - 1, level, cell);
+				}
+				for (int j = exitOffsets[level][cell]; j < exitOffsets[level][cell + 1]; ++j) {
+					matrix[offset++] = state.cost(exitVertices[level][j]);
+				}
+			}
+		} finally {
+			statePool.release(state);
+		}
+	}
+
+	/**
+	 * Relaxes the outgoing arcs of vertex {@code u} on the given overlay level: all original edges on level 0, else the
+	 * clique arcs of the cell of {@code u} (if {@code u} is an entry) and the original edges leaving the cell. If
+	 * {@code restrictLevel > 0}, only vertices inside the given cell of that level are reached.
+	 */
+	private void expand(OverlayMetric metric, SearchState state, int u, int level, int restrictLevel, int restrictCell) {
+		float uCost = state.cost(u);
+		if (level > 0) {
+			int cell = partition.cell(level, u);
+			int i = entryIndex[level][u];
+			if (i >= 0) {
+				int first = exitOffsets[level][cell];
+				int numExits = numExits(level, cell);
+				int row = matrixOffsets[level][cell] + i * numExits;
+				for (int j = 0; j < numExits; ++j) {
+					relax(state, u, exitVertices[level][first + j], uCost + metric.cliques[level][row + j]);
+				}
+			}
+		}
+		for (int e = graph.firstEdge(u), end = graph.endEdge(u); e < end; ++e) {
+			int v = graph.target(e);
+			if (level > 0 && partition.cell(level, u) == partition.cell(level, v)) {
+				continue;
+			}
+			if (restrictLevel > 0 && partition.cell(restrictLevel, v) != restrictCell) {
+				continue;
+			}
+			relax(state, u, v, uCost + metric.edgeCosts[e]);
+		}
+	}
+
+	private static void relax(SearchState state, int u, int v, float altCost) {
+		if (altCost < state.cost(v) && !state.isVisited(v)) {
+			state.reach(v, altCost, u);
+		}
+	}
+
+	private int queryLevel(int u, int s, int t) {
+		for (int l = numLevels; l >= 1; --l) {
+			int cell = partition.cell(l, u);
+			if (cell != partition.cell(l, s) && cell != partition.cell(l, t)) {
+				return l;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * @param metric metric customized by this overlay
+	 * @param source the source vertex
+	 * @param goal   the goal vertex
+	 * @return the shortest path in the given metric or {@link ShortestPath#notFound(int)} if the goal is unreachable
+	 */
+	public ShortestPath<V> findShortestPath(OverlayMetric metric, V source, V goal) {
+		Objects.requireNonNull(metric);
+		if (metric.overlay != this) {
+			throw new IllegalArgumentException("Metric has been customized by another overlay");
+		}
+		int s = graph.id(source);
+		int t = graph.id(goal);
+		if (s == t) {
+			return new ShortestPath<>(Collections.singletonList(source), new float[] { 0 }, 1);
+		}
+		var state = statePool.acquire(graph.numVertices());
+		try {
+			state.reach(s, 0, SearchState.NO_PARENT);
+			while (!state.open().isEmpty()) {
+				int u = state.open().extractMin();
+				state.setVisited(u);
+				if (u == t) {
+					return unpack(metric, state, s, t);
+				}
+				expand(metric, state, u, queryLevel(u, s, t), 0, 0);
+			}
+			return ShortestPath.notFound(state.visitedCount());
+		} finally {
+			statePool.release(state);
+		}
+	}
+
+	private ShortestPath<V> unpack(OverlayMetric metric, SearchState state, int s, int t) {
+		var overlayPath = new ArrayList<Integer>();
+		for (int u = t; u != SearchState.NO_PARENT; u = state.parent(u)) {
+			overlayPath.add(u);
+		}
+		Collections.reverse(overlayPath);
+		var vertices = new ArrayList<V>();
+		var costs = new ArrayList<Float>();
+		vertices.add(graph.vertex(s));
+		costs.add(0f);
+		for (int i = 0; i + 1 < overlayPath.size(); ++i) {
+			int p = overlayPath.get(i);
+			int u = overlayPath.get(i + 1);
+			int level = queryLevel(p, s, t);
+			if (level > 0 && entryIndex[level][p] >= 0 && partition.cell(level, p) == partition.cell(level, u)) {
+				unpackCliqueArc(metric, level, p, u, state.cost(p), vertices, costs);
+			} else {
+				vertices.add(graph.vertex(u));
+				costs.add(state.cost(u));
+			}
+		}
+		var costArray = new float[costs.size()];
+		for (int i = 0; i < costArray.length; ++i) {
+			costArray[i] = costs.get(i);
+		}
+		return new ShortestPath<>(vertices, costArray, state.visitedCount());
+	}
+
+	private void unpackCliqueArc(OverlayMetric metric, int level, int entry, int exit, float entryCost, List<V> vertices,
+			List<Float> costs) {
+		int cell = partition.cell(level, entry);
+		var inner = statePool.acquire(graph.numVertices());
+		try {
+			inner.reach(entry, 0, SearchState.NO_PARENT);
+			while (!inner.open().isEmpty()) {
+				int u = inner.open().extractMin();
+				inner.setVisited(u);
+				if (u == exit) {
+					break;
+				}
+				expand(metric, inner, u, 0, level, cell);
+			}
+			var segment = new ArrayList<Integer>();
+			for (int u = exit; u != entry; u = inner.parent(u)) {
+				segment.add(u);
+			}
+			Collections.reverse(segment);
+			for (int u : segment) {
+				vertices.add(graph.vertex(u));
+				costs.add(entryCost + inner.cost(u));
+			}
+		} finally {
+			statePool.release(inner);
+		}
+	}
+}
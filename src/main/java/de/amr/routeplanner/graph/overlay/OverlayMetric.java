@@ -0,0 +1,65 @@
+/*
+MIT License
+
+Copyright (c) 2022 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+package de.amr.routeplanner.graph.overlay;
+
+/**
+ * Edge costs together with the clique matrices computed from them by a customization of a
+ * {@link MultiLevelOverlay}. Instances are immutable, so queries may keep using an old metric while a new one is
+ * customized.
+ *
+ * @author Armin Reichert
+ */
+public final class OverlayMetric {
+
+	final MultiLevelOverlay<?> overlay;
+	final float[] edgeCosts;
+	// cliques[l] = concatenated entry x exit distance matrices of all cells of level l
+	final float[][] cliques;
+
+	OverlayMetric(MultiLevelOverlay<?> overlay, float[] edgeCosts, float[][] cliques) {
+		this.overlay = overlay;
+		this.edgeCosts = edgeCosts;
+		this.cliques = cliques;
+	}
+
+	public MultiLevelOverlay<?> overlay() {
+		return overlay;
+	}
+
+	/**
+	 * @param e edge index in the CSR graph of the overlay
+	 * @return cost of the edge in this metric
+	 */
+	public float edgeCost(int e) {
+		return edgeCosts[e];
+	}
+
+	/**
+	 * @return copy of the edge costs of this metric, indexed by edge index
+	 */
+	public float[] edgeCosts() {
+		return edgeCosts.clone();
+	}
+}
@@ -0,0 +1,172 @@
+/*
+MIT License
+
+Copyright (c) 2022 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+package de.amr.routeplanner.graph.overlay;
+
+import java.util.Arrays;
+
+import de.amr.routeplanner.graph.CsrGraph;
+
+/**
+ * Nested multi-level partition of the vertices of a graph into cells. The partition depends only on the graph
+ * topology, not on the edge costs, so it has to be computed only once.
+ * <p>
+ * Level 1 cells are grown from seed vertices by breadth-first search (ignoring edge directions) until the maximum
+ * cell size is reached. Each higher level groups the cells of the level below in the same way, so every cell of level
+ * {@code l} is completely contained in one cell of level {@code l+1}.
+ *
+ * @author Armin Reichert
+ */
+public final class Partition {
+
+	/**
+	 * @param g            a graph
+	 * @param maxCellSizes maximum number of vertices per cell for each level, starting with level 1, strictly increasing
+	 * @return the partition
+	 */
+	public static Partition compute(CsrGraph<?> g, int... maxCellSizes) {
+		if (maxCellSizes.length == 0) {
+			throw new IllegalArgumentException("At least one partition level is required");
+		}
+		for (int l = 1; l < maxCellSizes.length; ++l) {
+			if (maxCellSizes[l] <= maxCellSizes[l - 1]) {
+				throw new IllegalArgumentException(
+						"Cell sizes must be strictly increasing: %s".formatted(Arrays.toString(maxCellSizes)));
+			}
+		}
+		int n = g.numVertices();
+		int[][] cells = new int[maxCellSizes.length + 1][];
+		cells[0] = new int[n];
+		Arrays.setAll(cells[0], v -> v);
+		int numUnits = n;
+		for (int l = 1; l <= maxCellSizes.length; ++l) {
+			int[] unitOfVertex = cells[l - 1];
+			int[] unitSize = new int[numUnits];
+			for (int v = 0; v < n; ++v) {
+				++unitSize[unitOfVertex[v]];
+			}
+			int[] groupOfUnit = growRegions(g, unitOfVertex, numUnits, unitSize, maxCellSizes[l - 1]);
+			cells[l] = new int[n];
+			for (int v = 0; v < n; ++v) {
+				cells[l][v] = groupOfUnit[unitOfVertex[v]];
+			}
+			numUnits = Arrays.stream(groupOfUnit).max().orElse(-1) + 1;
+		}
+		return new Partition(cells);
+	}
+
+	private static int[] growRegions(CsrGraph<?> g, int[] unitOfVertex, int numUnits, int[] unitSize, int maxSize) {
+		// undirected adjacency between units as sorted, duplicate-free CSR arrays
+		var reverse = g.reverse();
+		long[] pairs = new long[2 * g.numEdges()];
+		int numPairs = 0;
+		for (var graph : new CsrGraph<?>[] { g, reverse }) {
+			for (int u = 0; u < g.numVertices(); ++u) {
+				for (int e = graph.firstEdge(u); e < graph.endEdge(u); ++e) {
+					int a = unitOfVertex[u];
+					int b = unitOfVertex[graph.target(e)];
+					if (a != b) {
+						pairs[numPairs++] = ((long) a << 32) | b;
+					}
+				}
+			}
+		}
+		Arrays.sort(pairs, 0, numPairs);
+		int[] offsets = new int[numUnits + 1];
+		int[] neighbors = new int[numPairs];
+		int numNeighbors = 0;
+		for (int i = 0; i < numPairs; ++i) {
+			if (i == 0 || pairs[i] != pairs[i - 1]) {
+				++offsets[(int) (pairs[i] >>> 32) + 1];
+				neighbors[numNeighbors++] = (int) pairs[i];
+			}
+		}
+		for (int a = 0; a < numUnits; ++a) {
+			offsets[a + 1] += offsets[a];
+		}
+		int[] group = new int[numUnits];
+		Arrays.fill(group, -1);
+		int[] queue = new int[numUnits];
+		int numGroups = 0;
+		for (int seed = 0; seed < numUnits; ++seed) {
+			if (group[seed] != -1) {
+				continue;
+			}
+			int head = 0, tail = 0;
+			int size = unitSize[seed];
+			group[seed] = numGroups;
+			queue[tail++] = seed;
+			while (head < tail) {
+				int a = queue[head++];
+				for (int i = offsets[a]; i < offsets[a + 1]; ++i) {
+					int b = neighbors[i];
+					if (group[b] == -1 && size + unitSize[b] <= maxSize) {
+						group[b] = numGroups;
+						size += unitSize[b];
+						queue[tail++] = b;
+					}
+				}
+			}
+			++numGroups;
+		}
+		return group;
+	}
+
+	// cells[l][v] = cell of vertex v at level l, level 0 = vertices
+	private final int[][] cells;
+	private final int[] numCells;
+
+	private Partition(int[][] cells) {
+		this.cells = cells;
+		numCells = new int[cells.length];
+		for (int l = 0; l < cells.length; ++l) {
+			numCells[l] = Arrays.stream(cells[l]).max().orElse(-1) + 1;
+		}
+	}
+
+	public int numLevels() {
+		return cells.length - 1;
+	}
+
+	public int numVertices() {
+		return cells[0].length;
+	}
+
+	/**
+	 * @param level partition level, 1 to {@link #numLevels()}
+	 * @return number of cells on this level
+	 */
+	public int numCells(int level) {
+		return numCells[level];
+	}
+
+	/**
+	 * @param level partition level, 1 to {@link #numLevels()}
+	 * @param v     vertex index
+	 * @return index of the cell containing the vertex on the given level
+	 */
+	public int cell(int level, int v) {
+		return cells[level][v];
+	}
+}
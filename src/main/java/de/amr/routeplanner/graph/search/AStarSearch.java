@@ -0,0 +1,93 @@
+/*
+MIT License
+
+Copyright (c) 2022 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+package de.amr.routeplanner.graph.search;
+
+import java.util.Objects;
+
+import de.amr.routeplanner.graph.CsrGraph;
+import de.amr.routeplanner.graph.Vertex;
+
+/**
+ * Point-to-point search using the A* algorithm: vertices are taken from the open list in order of their cost plus
+ * the estimated remaining cost given by a pluggable {@link Heuristic}. With a consistent heuristic the search settles
+ * each vertex at most once and returns a shortest path.
+ * <p>
+ * Instances keep no query state and may be used concurrently.
+ *
+ * @see <a href="https://ieeexplore.ieee.org/document/4082128">Hart, Nilsson, Raphael: A Formal Basis for the Heuristic
+ *      Determination of Minimum Cost Paths</a>
+ * 
+ * @author Armin Reichert
+ */
+public class AStarSearch<V extends Vertex> {
+
+	private final SearchStatePool statePool;
+
+	public AStarSearch() {
+		this(new SearchStatePool());
+	}
+
+	public AStarSearch(SearchStatePool statePool) {
+		this.statePool = Objects.requireNonNull(statePool);
+	}
+
+	/**
+	 * @param g         CSR graph with non-negative edge weights
+	 * @param source    the source vertex
+	 * @param goal      the goal vertex
+	 * @param heuristic consistent estimate of the remaining cost to the goal
+	 * @return the shortest path or {@link ShortestPath#notFound(int)} if the goal is unreachable
+	 */
+	public ShortestPath<V> findShortestPath(CsrGraph<V> g, V source, V goal, Heuristic heuristic) {
+		int s = g.id(source);
+		int t = g.id(goal);
+		if (!g.components().mayReach(s, t)) {
+			return ShortestPath.notFound(0);
+		}
+		var state = statePool.acquire(g.numVertices());
+		try {
+			state.reach(s, 0, SearchState.NO_PARENT, heuristic.estimate(s, t));
+			var open = state.open;
+			while (!open.isEmpty()) {
+				int u = open.extractMin();
+				state.setVisited(u);
+				if (u == t) {
+					break;
+				}
+				float uCost = state.cost(u);
+				for (int e = g.firstEdge(u), end = g.endEdge(u); e < end; ++e) {
+					int v = g.target(e);
+					float altCost = uCost + g.cost(e);
+					if (altCost < state.cost(v) && !state.isVisited(v)) {
+						state.reach(v, altCost, u, altCost + heuristic.estimate(v, t));
+					}
+				}
+			}
+			return ShortestPath.fromState(g, state, t);
+		} finally {
+			statePool.release(state);
+		}
+	}
+}
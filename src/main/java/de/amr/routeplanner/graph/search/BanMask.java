@@ -0,0 +1,75 @@
+/*
+MIT License
+
+Copyright (c) 2022 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+package de.amr.routeplanner.graph.search;
+
+import java.util.Arrays;
+
+/**
+ * Set of banned vertices and edges of a graph, used to exclude parts of the graph from a search without copying it.
+ * Like {@link SearchState}, each slot carries a generation stamp, so {@link #clear()} takes constant time.
+ *
+ * @author Armin Reichert
+ */
+final class BanMask {
+
+	private final int[] vertexStamp;
+	private final int[] edgeStamp;
+	private int generation = 1;
+
+	BanMask(int numVertices, int numEdges) {
+		vertexStamp = new int[numVertices];
+		edgeStamp = new int[numEdges];
+	}
+
+	boolean fits(int numVertices, int numEdges) {
+		return vertexStamp.length >= numVertices && edgeStamp.length >= numEdges;
+	}
+
+	void clear() {
+		if (generation == Integer.MAX_VALUE) {
+			Arrays.fill(vertexStamp, 0);
+			Arrays.fill(edgeStamp, 0);
+			generation = 1;
+		} else {
+			++generation;
+		}
+	}
+
+	void banVertex(int u) {
+		vertexStamp[u] = generation;
+	}
+
+	void banEdge(int e) {
+		edgeStamp[e] = generation;
+	}
+
+	boolean isVertexBanned(int u) {
+		return vertexStamp[u] == generation;
+	}
+
+	boolean isEdgeBanned(int e) {
+		return edgeStamp[e] == generation;
+	}
+}
@@ -0,0 +1,132 @@
+/*
+MIT License
+
+Copyright (c) 2022 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+package de.amr.routeplanner.graph.search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Objects;
+
+import de.amr.routeplanner.graph.CsrGraph;
+import de.amr.routeplanner.graph.Vertex;
+
+/**
+ * Point-to-point search running Dijkstra's algorithm forward from the source and backward (on the reverse graph, see
+ * {@link CsrGraph#reverse()}) from the goal at the same time. The side with the smaller minimum key is advanced
+ * first. The search stops as soon as the sum of the minimum keys of both open lists is not smaller than the cost of
+ * the best path found so far. On road networks this settles roughly half as many vertices as a unidirectional search.
+ * <p>
+ * Instances keep no query state and may be used concurrently.
+ *
+ * @author Armin Reichert
+ */
+public class BidirectionalDijkstra<V extends Vertex> {
+
+	private final SearchStatePool statePool;
+
+	public BidirectionalDijkstra() {
+		this(new SearchStatePool());
+	}
+
+	public BidirectionalDijkstra(SearchStatePool statePool) {
+		this.statePool = Objects.requireNonNull(statePool);
+	}
+
+	/**
+	 * @param g      CSR graph with non-negative edge weights
+	 * @param source the source vertex
+	 * @param goal   the goal vertex
+	 * @return the shortest path or {@link ShortestPath#notFound(int)} if the goal is unreachable
+	 */
+	public ShortestPath<V> findShortestPath(CsrGraph<V> g, V source, V goal) {
+		int s = g.id(source);
+		int t = g.id(goal);
+		if (!g.components().mayReach(s, t)) {
+			return ShortestPath.notFound(0);
+		}
+		if (s == t) {
+			return new ShortestPath<>(Collections.singletonList(source), new float[] { 0 }, 1);
+		}
+		var reverse = g.reverse();
+		var fwd = statePool.acquire(g.numVertices());
+		var bwd = statePool.acquire(g.numVertices());
+		try {
+			fwd.reach(s, 0, SearchState.NO_PARENT);
+			bwd.reach(t, 0, SearchState.NO_PARENT);
+			float best = Float.POSITIVE_INFINITY;
+			int meet = -1;
+			while (!fwd.open.isEmpty() && !bwd.open.isEmpty()) {
+				float fwdMin = fwd.open.minKey();
+				float bwdMin = bwd.open.minKey();
+				if (fwdMin + bwdMin >= best) {
+					break;
+				}
+				boolean forward = fwdMin <= bwdMin;
+				var graph = forward ? g : reverse;
+				var self = forward ? fwd : bwd;
+				var other = forward ? bwd : fwd;
+				int u = self.open.extractMin();
+				self.setVisited(u);
+				float uCost = self.cost(u);
+				for (int e = graph.firstEdge(u), end = graph.endEdge(u); e < end; ++e) {
+					int v = graph.target(e);
+					float altCost = uCost + graph.cost(e);
+					if (altCost < self.cost(v) && !self.isVisited(v)) {
+						self.reach(v, altCost, u);
+					}
+					if (other.isReached(v) && altCost + other.cost(v) < best) {
+						best = altCost + other.cost(v);
+						meet = v;
+					}
+				}
+			}
+			int settled = fwd.visitedCount() + bwd.visitedCount();
+			return meet == -1 ? ShortestPath.notFound(settled) : buildPath(g, fwd, bwd, meet, best, settled);
+		} finally {
+			statePool.release(fwd);
+			statePool.release(bwd);
+		}
+	}
+
+	private ShortestPath<V> buildPath(CsrGraph<V> g, SearchState fwd, SearchState bwd, int meet, float total,
+			int settled) {
+		var ids = new ArrayList<Integer>();
+		for (int u = meet; u != SearchState.NO_PARENT; u = fwd.parent(u)) {
+			ids.add(u);
+		}
+		Collections.reverse(ids);
+		int forwardLength = ids.size();
+		for (int u = bwd.parent(meet); u != SearchState.NO_PARENT; u = bwd.parent(u)) {
+			ids.add(u);
+		}
+		var vertices = new ArrayList<V>(ids.size());
+		var costs = new float[ids.size()];
+		for (int i = 0; i < ids.size(); ++i) {
+			int u = ids.get(i);
+			vertices.add(g.vertex(u));
+			costs[i] = i < forwardLength ? fwd.cost(u) : total - bwd.cost(u);
+		}
+		return new ShortestPath<>(vertices, costs, settled);
+	}
+}
@@ -0,0 +1,351 @@
+/*
+MIT License
+
+Copyright (c) 2022 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+package de.amr.routeplanner.graph.search;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import de.amr.routeplanner.graph.CsrGraph;
+import de.amr.routeplanner.graph.Vertex;
+
+/**
+ * Parallel single-source shortest paths using the delta-stepping algorithm by Meyer and Sanders.
+ * <p>
+ * Vertices are kept in buckets of width {@code delta} by their tentative cost. The buckets are processed in
+ * increasing order and stored in a cyclic array of {@code ceil(maxEdgeCost/delta)+2} slots, so the memory for the
+ * buckets does not depend on the largest path cost. The light edges (cost at most {@code delta}) of all vertices in the current bucket are relaxed in
+ * parallel, which may insert vertices into the current bucket again, until the bucket stays empty. Then the heavy
+ * edges of all vertices removed from the bucket are relaxed in parallel. Cost and parent of each vertex are packed
+ * into one {@code long} and lowered by compare-and-set, so concurrent relaxations never produce a parent that does not
+ * belong to the cost.
+ * <p>
+ * A small delta approaches Dijkstra's algorithm (little parallelism per bucket), a large delta approaches Bellman-Ford
+ * (many re-relaxations). The default delta is the average edge cost of the graph. Instances keep no query state and
+ * may be used concurrently.
+ *
+ * @see <a href="https://doi.org/10.1016/S0196-6774(03)00076-2">Meyer, Sanders: Delta-stepping: a parallelizable
+ *      shortest path algorithm</a>
+ * 
+ * @author Armin Reichert
+ */
+public class DeltaStepping<V extends Vertex> {
+
+	private static final Logger LOGGER = LogManager.getFormatterLogger();
+
+	/**
+	 * Frontier size below which relaxations are not split into parallel tasks.
+	 */
+	private static final int SEQUENTIAL_THRESHOLD = 256;
+
+	/**
+	 * Maximum number of buckets in the bucket ring, limits the ratio of the largest edge cost to the bucket width.
+	 */
+	private static final int MAX_BUCKETS = 1 << 22;
+
+	private static final long UNREACHED = pack(Float.POSITIVE_INFINITY, SearchState.NO_PARENT);
+
+	private static long pack(float cost, int parent) {
+		return ((long) Float.floatToRawIntBits(cost) << 32) | (parent & 0xffff_ffffL);
+	}
+
+	private static float unpackCost(long entry) {
+		return Float.intBitsToFloat((int) (entry >>> 32));
+	}
+
+	private static int unpackParent(long entry) {
+		return (int) entry;
+	}
+
+	/**
+	 * @param g a graph
+	 * @return the average edge cost of the graph, used as default bucket width
+	 */
+	public static float averageEdgeCost(CsrGraph<?> g) {
+		double sum = 0;
+		int count = 0;
+		for (int e = 0; e < g.numEdges(); ++e) {
+			if (g.cost(e) < Float.POSITIVE_INFINITY) {
+				sum += g.cost(e);
+				++count;
+			}
+		}
+		return count == 0 || sum == 0 ? 1 : (float) (sum / count);
+	}
+
+	/**
+	 * Growable int array used to collect the vertices whose cost has been lowered.
+	 */
+	private static class IntList {
+		int[] items = new int[16];
+		int size;
+
+		void add(int item) {
+			if (size == items.length) {
+				items = Arrays.copyOf(items, 2 * size);
+			}
+			items[size++] = item;
+		}
+
+		void addAll(IntList other) {
+			for (int i = 0; i < other.size; ++i) {
+				add(other.items[i]);
+			}
+		}
+	}
+
+	/**
+	 * Cyclic array of buckets. While bucket {@code i} is processed, all tentative costs lie in the buckets
+	 * {@code i..i+ceil(maxEdgeCost/delta)}, so bucket {@code i} can be stored in slot {@code i % numSlots}.
+	 */
+	private static class BucketRing {
+		final IntList[] slots;
+		int numNonEmpty;
+
+		BucketRing(int numSlots) {
+			slots = new IntList[numSlots];
+		}
+
+		void insert(long bucket, int v) {
+			int slot = (int) (bucket % slots.length);
+			if (slots[slot] == null) {
+				slots[slot] = new IntList();
+				++numNonEmpty;
+			}
+			slots[slot].add(v);
+		}
+
+		IntList take(long bucket) {
+			int slot = (int) (bucket % slots.length);
+			var items = slots[slot];
+			if (items != null) {
+				slots[slot] = null;
+				--numNonEmpty;
+			}
+			return items;
+		}
+	}
+
+	/**
+	 * Relaxes the light or heavy edges of the vertices {@code frontier[from..to-1]} and returns the vertices whose cost
+	 * has been lowered.
+	 */
+	private static class RelaxTask extends RecursiveTask<IntList> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final CsrGraph<?> g;
+		private final AtomicLongArray entries;
+		private final float delta;
+		private final boolean light;
+		private final int[] frontier;
+		private final int from;
+		private final int to;
+
+		RelaxTask(CsrGraph<?> g, AtomicLongArray entries, float delta, boolean light, int[] frontier, int from, int to) {
+			this.g = g;
+			this.entries = entries;
+			this.delta = delta;
+			this.light = light;
+			this.frontier = frontier;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected IntList compute() {
+			if (to - from > SEQUENTIAL_THRESHOLD) {
+				int mid = (from + to) >>> 1;
+				var left = new RelaxTask(g, entries, delta, light, frontier, from, mid);
+				left.fork();
+				var result = new RelaxTask(g, entries, delta, light, frontier, mid, to).compute();
+				result.addAll(left.join());
+				return result;
+			}
+			var improved = new IntList();
+			for (int i = from; i < to; ++i) {
+				int u = frontier[i];
+				float uCost = unpackCost(entries.get(u));
+				for (int e = g.firstEdge(u), end = g.endEdge(u); e < end; ++e) {
+					float edgeCost = g.cost(e);
+					if ((edgeCost <= delta) == light && relax(g.target(e), uCost + edgeCost, u)) {
+						improved.add(g.target(e));
+					}
+				}
+			}
+			return improved;
+		}
+
+		private boolean relax(int v, float cost, int parent) {
+			while (true) {
+				long current = entries.get(v);
+				if (unpackCost(current) <= cost) {
+					return false;
+				}
+				if (entries.compareAndSet(v, current, pack(cost, parent))) {
+					return true;
+				}
+			}
+		}
+	}
+
+	private final float delta;
+	private final ForkJoinPool pool;
+
+	/**
+	 * Creates an engine using the average edge cost as bucket width and the common fork/join pool.
+	 */
+	public DeltaStepping() {
+		this(0, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * @param delta bucket width, a value of 0 selects the average edge cost of the searched graph
+	 * @param pool  fork/join pool running the relaxations
+	 */
+	public DeltaStepping(float delta, ForkJoinPool pool) {
+		if (!(delta >= 0) || delta == Float.POSITIVE_INFINITY) {
+			throw new IllegalArgumentException("Bucket width must be non-negative and finite but is %f".formatted(delta));
+		}
+		this.delta = delta;
+		this.pool = pool;
+	}
+
+	/**
+	 * @return the configured bucket width, 0 if the average edge cost is used
+	 */
+	public float delta() {
+		return delta;
+	}
+
+	/**
+	 * Computes the shortest paths from the given source to all vertices.
+	 * 
+	 * @param g      CSR graph with non-negative edge weights
+	 * @param source the source vertex
+	 * @return the shortest path tree rooted at the source, as computed by {@link PathFinder#computeAllPaths}
+	 * @throws IllegalArgumentException if the bucket width is so small compared to the largest edge cost that the
+	 *                                  bucket ring would exceed {@value #MAX_BUCKETS} slots
+	 */
+	public ShortestPathTree<V> computeAllPaths(CsrGraph<V> g, V source) {
+		long start = System.nanoTime();
+		int n = g.numVertices();
+		int s = g.id(source);
+		float width = delta > 0 ? delta : averageEdgeCost(g);
+		var entries = new AtomicLongArray(n);
+		for (int v = 0; v < n; ++v) {
+			entries.set(v, UNREACHED);
+		}
+		entries.set(s, pack(0, SearchState.NO_PARENT));
+		var buckets = new BucketRing(numSlots(g, width));
+		buckets.insert(0, s);
+		int[] frontierStamp = new int[n];
+		int[] removedStamp = new int[n];
+		int phase = 0;
+		int numBuckets = 0;
+		for (long i = 0; buckets.numNonEmpty > 0; ++i) {
+			var candidates = buckets.take(i);
+			if (candidates == null) {
+				continue;
+			}
+			++numBuckets;
+			var removed = new IntList();
+			while (candidates != null) {
+				++phase;
+				var frontier = new IntList();
+				for (int k = 0; k < candidates.size; ++k) {
+					int v = candidates.items[k];
+					// skip stale entries of vertices that have moved to a lower bucket and duplicates
+					if (bucketIndex(unpackCost(entries.get(v)), width) == i && frontierStamp[v] != phase) {
+						frontierStamp[v] = phase;
+						frontier.add(v);
+						if (removedStamp[v] != numBuckets) {
+							removedStamp[v] = numBuckets;
+							removed.add(v);
+						}
+					}
+				}
+				var improved = relax(g, entries, width, true, frontier);
+				for (int k = 0; k < improved.size; ++k) {
+					int v = improved.items[k];
+					buckets.insert(bucketIndex(unpackCost(entries.get(v)), width), v);
+				}
+				candidates = buckets.take(i);
+			}
+			var improved = relax(g, entries, width, false, removed);
+			for (int k = 0; k < improved.size; ++k) {
+				int v = improved.items[k];
+				buckets.insert(bucketIndex(unpackCost(entries.get(v)), width), v);
+			}
+		}
+		var cost = new float[n];
+		var parent = new int[n];
+		for (int v = 0; v < n; ++v) {
+			long entry = entries.get(v);
+			cost[v] = unpackCost(entry);
+			parent[v] = unpackParent(entry);
+		}
+		int processedBuckets = numBuckets;
+		LOGGER.info(() -> "Delta-stepping from %s (delta %.3f): %d buckets, %.1f ms".formatted(source, width,
+				processedBuckets, (System.nanoTime() - start) / 1e6));
+		return new ShortestPathTree<>(g, s, cost, parent);
+	}
+
+	private IntList relax(CsrGraph<V> g, AtomicLongArray entries, float width, boolean light, IntList vertices) {
+		if (vertices.size == 0) {
+			return vertices;
+		}
+		var task = new RelaxTask(g, entries, width, light, vertices.items, 0, vertices.size);
+		return vertices.size <= SEQUENTIAL_THRESHOLD ? task.compute() : pool.invoke(task);
+	}
+
+	private static long bucketIndex(float cost, float width) {
+		return (long) ((double) cost / width);
+	}
+
+	/**
+	 * @return number of slots of the bucket ring for the given graph and bucket width
+	 * @throws IllegalArgumentException if the bucket width is too small compared to the largest edge cost
+	 */
+	private static int numSlots(CsrGraph<?> g, float width) {
+		float maxEdgeCost = 0;
+		for (int e = 0; e < g.numEdges(); ++e) {
+			if (g.cost(e) < Float.POSITIVE_INFINITY) {
+				maxEdgeCost = Math.max(maxEdgeCost, g.cost(e));
+			}
+		}
+		// one extra slot for rounding errors of the bucket index
+		double numSlots = Math.ceil((double) maxEdgeCost / width) + 2;
+		if (numSlots > MAX_BUCKETS) {
+			throw new IllegalArgumentException("Bucket width %f is too small for the largest edge cost %f".formatted(width,
+					maxEdgeCost));
+		}
+		return (int) numSlots;
+	}
+}
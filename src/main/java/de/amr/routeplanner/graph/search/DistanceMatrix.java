@@ -0,0 +1,461 @@
+/*
+MIT License
+
+Copyright (c) 2022 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+package de.amr.routeplanner.graph.search;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import de.amr.routeplanner.graph.CsrGraph;
+import de.amr.routeplanner.graph.Vertex;
+
+/**
+ * Dense matrix of shortest path costs from a list of source vertices to a list of target vertices, stored row by row
+ * in a single {@code float[]}. The rows are computed by one-to-all Dijkstra searches that are distributed over the
+ * threads of a fork/join pool. The search states are pooled per computation and released with it.
+ * <p>
+ * For a many-to-many matrix, each search stops as soon as all targets are settled, so only the part of the graph
+ * closer to the source than the farthest target is explored.
+ * <p>
+ * An all-pairs matrix may additionally store the predecessor of each vertex on the shortest path from each source,
+ * which allows to extract the paths themselves. Matrices can be written to and read from a binary stream. For graphs
+ * where the full matrix does not fit into memory, {@link #writeAllPairs(CsrGraph, OutputStream)} computes and writes
+ * the matrix block by block.
+ *
+ * @author Armin Reichert
+ */
+public final class DistanceMatrix<V extends Vertex> {
+
+	private static final Logger LOGGER = LogManager.getFormatterLogger();
+
+	private static final int FILE_MAGIC = 0x444d5831; // "DMX1"
+	private static final int FILE_VERSION = 1;
+
+	/**
+	 * Number of rows computed by one fork/join leaf task.
+	 */
+	private static final int ROWS_PER_TASK = 4;
+
+	/**
+	 * Maximum size in bytes of a block of rows computed by {@link #writeAllPairs(CsrGraph, OutputStream)}.
+	 */
+	private static final long BLOCK_BYTES = 64L << 20;
+
+	/**
+	 * Computes the rows {@code from..to-1} of a matrix, each row by a Dijkstra search from the source of the row.
+	 */
+	private static class RowTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final CsrGraph<?> g;
+		private final SearchStatePool statePool;
+		private final int[] sources;
+		private final int[] targets;
+		private final int from;
+		private final int to;
+		private final int firstRow;
+		private final float[] distances;
+		private final int[] predecessors;
+		private final boolean[] isTarget;
+		private final int numDistinctTargets;
+
+		RowTask(CsrGraph<?> g, SearchStatePool statePool, int[] sources, int[] targets, int from, int to, int firstRow,
+				float[] distances, int[] predecessors) {
+			this(g, statePool, sources, targets, from, to, firstRow, distances, predecessors, null, 0);
+		}
+
+		/**
+		 * @param isTarget           marks the target vertices, if not {@code null} a search stops when all targets are
+		 *                           settled
+		 * @param numDistinctTargets number of marked vertices
+		 */
+		RowTask(CsrGraph<?> g, SearchStatePool statePool, int[] sources, int[] targets, int from, int to, int firstRow,
+				float[] distances, int[] predecessors, boolean[] isTarget, int numDistinctTargets) {
+			this.g = g;
+			this.statePool = statePool;
+			this.sources = sources;
+			this.targets = targets;
+			this.from = from;
+			this.to = to;
+			this.firstRow = firstRow;
+			this.distances = distances;
+			this.predecessors = predecessors;
+			this.isTarget = isTarget;
+			this.numDistinctTargets = numDistinctTargets;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > ROWS_PER_TASK) {
+				int mid = (from + to) >>> 1;
+				invokeAll(
+						new RowTask(g, statePool, sources, targets, from, mid, firstRow, distances, predecessors, isTarget,
+								numDistinctTargets),
+						new RowTask(g, statePool, sources, targets, mid, to, firstRow, distances, predecessors, isTarget,
+								numDistinctTargets));
+				return;
+			}
+			var state = statePool.acquire(g.numVertices());
+			try {
+				for (int i = from; i < to; ++i) {
+					state.reset();
+					state.reach(sources[i], 0, SearchState.NO_PARENT);
+					if (isTarget == null) {
+						PathFinder.dijkstra(g, state, -1);
+					} else {
+						searchUntilTargetsSettled(state);
+					}
+					int row = (i - firstRow) * targets.length;
+					for (int j = 0; j < targets.length; ++j) {
+						distances[row + j] = state.cost(targets[j]);
+					}
+					if (predecessors != null) {
+						int predRow = (i - firstRow) * g.numVertices();
+						for (int v = 0; v < g.numVertices(); ++v) {
+							predecessors[predRow + v] = state.parent(v);
+						}
+					}
+				}
+			} finally {
+				statePool.release(state);
+			}
+		}
+
+		private void searchUntilTargetsSettled(SearchState state) {
+			var open = state.open;
+			int settledTargets = 0;
+			while (!open.isEmpty()) {
+				int u = open.extractMin();
+				state.setVisited(u);
+				if (isTarget[u] && ++settledTargets == numDistinctTargets) {
+					break;
+				}
+				float uCost = state.cost(u);
+				for (int e = g.firstEdge(u), end = g.endEdge(u); e < end; ++e) {
+					int v = g.target(e);
+					float altCost = uCost + g.cost(e);
+					if (altCost < state.cost(v) && !state.isVisited(v)) {
+						state.reach(v, altCost, u);
+					}
+				}
+			}
+		}
+	}
+
+	private static int[] allVertices(CsrGraph<?> g) {
+		var ids = new int[g.numVertices()];
+		for (int v = 0; v < ids.length; ++v) {
+			ids[v] = v;
+		}
+		return ids;
+	}
+
+	/**
+	 * Computes the costs of the shortest paths between all pairs of vertices using the common fork/join pool.
+	 * 
+	 * @param g                CSR graph with non-negative edge weights
+	 * @param withPredecessors if the predecessor matrix is computed too
+	 * @return the all-pairs matrix, row and column indices are vertex indices
+	 */
+	public static <V extends Vertex> DistanceMatrix<V> allPairs(CsrGraph<V> g, boolean withPredecessors) {
+		return allPairs(g, withPredecessors, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * @param g                CSR graph with non-negative edge weights
+	 * @param withPredecessors if the predecessor matrix is computed too
+	 * @param pool             fork/join pool running the searches
+	 * @return the all-pairs matrix, row and column indices are vertex indices
+	 */
+	public static <V extends Vertex> DistanceMatrix<V> allPairs(CsrGraph<V> g, boolean withPredecessors,
+			ForkJoinPool pool) {
+		long start = System.nanoTime();
+		int n = g.numVertices();
+		int[] vertices = allVertices(g);
+		var distances = new float[Math.multiplyExact(n, n)];
+		var predecessors = withPredecessors ? new int[n * n] : null; // size fits, checked above
+		pool.invoke(new RowTask(g, new SearchStatePool(), vertices, vertices, 0, n, 0, distances, predecessors));
+		LOGGER.info(
+				() -> "Computed %d x %d distance matrix in %.1f ms".formatted(n, n, (System.nanoTime() - start) / 1e6));
+		return new DistanceMatrix<>(g, vertices, vertices, distances, predecessors);
+	}
+
+	/**
+	 * Computes the costs of the shortest paths from each source to each target using the common fork/join pool. Each
+	 * search stops when all targets are settled.
+	 * 
+	 * @param g       CSR graph with non-negative edge weights
+	 * @param sources source vertices (matrix rows), may contain duplicates
+	 * @param targets target vertices (matrix columns), may contain duplicates
+	 * @return the many-to-many matrix
+	 */
+	public static <V extends Vertex> DistanceMatrix<V> manyToMany(CsrGraph<V> g, List<V> sources, List<V> targets) {
+		return manyToMany(g, sources, targets, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * @param g       CSR graph with non-negative edge weights
+	 * @param sources source vertices (matrix rows), may contain duplicates
+	 * @param targets target vertices (matrix columns), may contain duplicates
+	 * @param pool    fork/join pool running the searches
+	 * @return the many-to-many matrix
+	 */
+	public static <V extends Vertex> DistanceMatrix<V> manyToMany(CsrGraph<V> g, List<V> sources, List<V> targets,
+			ForkJoinPool pool) {
+		long start = System.nanoTime();
+		int[] sourceIds = sources.stream().mapToInt(g::id).toArray();
+		int[] targetIds = targets.stream().mapToInt(g::id).toArray();
+		var isTarget = new boolean[g.numVertices()];
+		int numDistinctTargets = 0;
+		for (int t : targetIds) {
+			if (!isTarget[t]) {
+				isTarget[t] = true;
+				++numDistinctTargets;
+			}
+		}
+		var distances = new float[Math.multiplyExact(sourceIds.length, targetIds.length)];
+		if (numDistinctTargets > 0) {
+			pool.invoke(new RowTask(g, new SearchStatePool(), sourceIds, targetIds, 0, sourceIds.length, 0, distances, null,
+					isTarget, numDistinctTargets));
+		}
+		LOGGER.info(() -> "Computed %d x %d distance matrix in %.1f ms".formatted(sourceIds.length, targetIds.length,
+				(System.nanoTime() - start) / 1e6));
+		return new DistanceMatrix<>(g, sourceIds, targetIds, distances, null);
+	}
+
+	/**
+	 * Computes the all-pairs matrix block by block and writes it in the format of {@link #write(OutputStream)} without
+	 * keeping the complete matrix in memory. The rows of each block are computed in parallel on the common fork/join
+	 * pool.
+	 * 
+	 * @param g   CSR graph with non-negative edge weights
+	 * @param out output stream, not closed by this method
+	 * @throws IOException if writing fails
+	 */
+	public static void writeAllPairs(CsrGraph<?> g, OutputStream out) throws IOException {
+		int n = g.numVertices();
+		int[] vertices = allVertices(g);
+		var data = new DataOutputStream(new BufferedOutputStream(out));
+		writeHeader(data, g.fingerprint(), vertices, vertices);
+		// enough rows to keep all threads busy but not more than fit into the block size budget
+		long maxRows = Math.min(n, ForkJoinPool.getCommonPoolParallelism() * 4 * ROWS_PER_TASK);
+		int blockRows = (int) Math.max(1, Math.min(maxRows, BLOCK_BYTES / (4L * Math.max(1, n))));
+		var block = new float[Math.toIntExact((long) blockRows * n)];
+		var statePool = new SearchStatePool();
+		for (int first = 0; first < n; first += blockRows) {
+			int end = Math.min(first + blockRows, n);
+			ForkJoinPool.commonPool()
+					.invoke(new RowTask(g, statePool, vertices, vertices, first, end, first, block, null));
+			for (int k = 0; k < (end - first) * n; ++k) {
+				data.writeFloat(block[k]);
+			}
+		}
+		data.flush();
+	}
+
+	/**
+	 * Like {@link #writeAllPairs(CsrGraph, OutputStream)} but writes into the given file.
+	 * 
+	 * @param g    CSR graph with non-negative edge weights
+	 * @param file output file, replaced if it exists
+	 * @throws IOException if writing fails
+	 */
+	public static void writeAllPairs(CsrGraph<?> g, Path file) throws IOException {
+		try (var out = Files.newOutputStream(file)) {
+			writeAllPairs(g, out);
+		}
+	}
+
+	private static void writeHeader(DataOutputStream data, long fingerprint, int[] sources, int[] targets)
+			throws IOException {
+		data.writeInt(FILE_MAGIC);
+		data.writeInt(FILE_VERSION);
+		data.writeLong(fingerprint);
+		data.writeInt(sources.length);
+		data.writeInt(targets.length);
+		for (int s : sources) {
+			data.writeInt(s);
+		}
+		for (int t : targets) {
+			data.writeInt(t);
+		}
+	}
+
+	/**
+	 * Reads a matrix written by {@link #write(OutputStream)} or {@link #writeAllPairs(CsrGraph, OutputStream)}.
+	 * Predecessors are not stored in the stream.
+	 * 
+	 * @param in input stream
+	 * @param g  the graph the matrix has been computed for
+	 * @return the matrix
+	 * @throws IOException if the data is invalid or has been computed for a different graph
+	 */
+	public static <V extends Vertex> DistanceMatrix<V> read(InputStream in, CsrGraph<V> g) throws IOException {
+		var data = new DataInputStream(in);
+		if (data.readInt() != FILE_MAGIC) {
+			throw new IOException("Not a distance matrix file");
+		}
+		int version = data.readInt();
+		if (version != FILE_VERSION) {
+			throw new IOException("Unsupported distance matrix file version %d".formatted(version));
+		}
+		if (data.readLong() != g.fingerprint()) {
+			throw new IOException("Distance matrix has been computed for a different graph");
+		}
+		int numSources = data.readInt();
+		int numTargets = data.readInt();
+		var sources = readVertexIndices(data, g, numSources);
+		var targets = readVertexIndices(data, g, numTargets);
+		var distances = new float[Math.multiplyExact(sources.length, targets.length)];
+		for (int k = 0; k < distances.length; ++k) {
+			distances[k] = data.readFloat();
+		}
+		return new DistanceMatrix<>(g, sources, targets, distances, null);
+	}
+
+	private static int[] readVertexIndices(DataInputStream data, CsrGraph<?> g, int count) throws IOException {
+		if (count < 0) {
+			throw new IOException("Invalid vertex count %d".formatted(count));
+		}
+		var indices = new int[count];
+		for (int i = 0; i < count; ++i) {
+			indices[i] = data.readInt();
+			if (indices[i] < 0 || indices[i] >= g.numVertices()) {
+				throw new IOException("Invalid vertex index %d".formatted(indices[i]));
+			}
+		}
+		return indices;
+	}
+
+	private final CsrGraph<V> graph;
+	private final int[] sources;
+	private final int[] targets;
+	private final float[] distances;
+	private final int[] predecessors;
+
+	private DistanceMatrix(CsrGraph<V> graph, int[] sources, int[] targets, float[] distances, int[] predecessors) {
+		this.graph = graph;
+		this.sources = sources;
+		this.targets = targets;
+		this.distances = distances;
+		this.predecessors = predecessors;
+	}
+
+	public CsrGraph<V> graph() {
+		return graph;
+	}
+
+	public int numSources() {
+		return sources.length;
+	}
+
+	public int numTargets() {
+		return targets.length;
+	}
+
+	public V source(int row) {
+		return graph.vertex(sources[row]);
+	}
+
+	public V target(int col) {
+		return graph.vertex(targets[col]);
+	}
+
+	/**
+	 * @param row source row
+	 * @param col target column
+	 * @return cost of the shortest path, {@code Float.POSITIVE_INFINITY} if the target is unreachable
+	 */
+	public float distance(int row, int col) {
+		return distances[row * targets.length + col];
+	}
+
+	public boolean hasPredecessors() {
+		return predecessors != null;
+	}
+
+	/**
+	 * @param row    source row
+	 * @param vertex vertex index
+	 * @return index of the predecessor of the vertex on the shortest path from the source of the given row or
+	 *         {@link SearchState#NO_PARENT}
+	 * @throws IllegalStateException if the matrix has no predecessors
+	 */
+	public int predecessor(int row, int vertex) {
+		if (predecessors == null) {
+			throw new IllegalStateException("Distance matrix has been computed without predecessors");
+		}
+		return predecessors[row * graph.numVertices() + vertex];
+	}
+
+	/**
+	 * @param row  source row
+	 * @param goal goal vertex
+	 * @return vertices on the shortest path from the source of the given row to the goal or an empty list if the goal
+	 *         is unreachable
+	 * @throws IllegalStateException if the matrix has no predecessors
+	 */
+	public List<V> path(int row, V goal) {
+		int t = graph.id(goal);
+		if (t != sources[row] && predecessor(row, t) == SearchState.NO_PARENT) {
+			return List.of();
+		}
+		var path = new ArrayList<V>();
+		for (int u = t; u != SearchState.NO_PARENT; u = predecessor(row, u)) {
+			path.add(graph.vertex(u));
+		}
+		Collections.reverse(path);
+		return path;
+	}
+
+	/**
+	 * Writes sources, targets and distances to the given stream. Predecessors are not written.
+	 * 
+	 * @param out output stream, not closed by this method
+	 * @throws IOException if writing fails
+	 */
+	public void write(OutputStream out) throws IOException {
+		var data = new DataOutputStream(new BufferedOutputStream(out));
+		writeHeader(data, graph.fingerprint(), sources, targets);
+		for (float distance : distances) {
+			data.writeFloat(distance);
+		}
+		data.flush();
+	}
+}
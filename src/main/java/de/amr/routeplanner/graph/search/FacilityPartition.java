@@ -0,0 +1,139 @@
+/*
+MIT License
+
+Copyright (c) 2022 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+package de.amr.routeplanner.graph.search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import de.amr.routeplanner.graph.CsrGraph;
+import de.amr.routeplanner.graph.Vertex;
+
+/**
+ * Immutable assignment of each vertex to its nearest facility (graph Voronoi partition), computed by a single
+ * multi-source search (see {@link PathFinder#computeNearestFacilities(CsrGraph, List, float[])}).
+ *
+ * @author Armin Reichert
+ */
+public final class FacilityPartition<V extends Vertex> {
+
+	private final CsrGraph<V> graph;
+	private final List<V> facilities;
+	private final int[] facilityIndex;
+	private final float[] cost;
+	private final int[] parent;
+
+	/**
+	 * @param graph         the searched graph
+	 * @param facilities    the facilities
+	 * @param facilityIndex index of the nearest facility for each vertex or -1, taken over
+	 * @param cost          cost from the nearest facility (including its offset) for each vertex, taken over
+	 * @param parent        parent of each vertex on the path from its facility, taken over
+	 */
+	FacilityPartition(CsrGraph<V> graph, List<V> facilities, int[] facilityIndex, float[] cost, int[] parent) {
+		this.graph = graph;
+		this.facilities = List.copyOf(facilities);
+		this.facilityIndex = facilityIndex;
+		this.cost = cost;
+		this.parent = parent;
+	}
+
+	public CsrGraph<V> graph() {
+		return graph;
+	}
+
+	public List<V> facilities() {
+		return facilities;
+	}
+
+	/**
+	 * @param v a vertex
+	 * @return index of the nearest facility in {@link #facilities()} or -1 if no facility reaches the vertex
+	 */
+	public int facilityIndex(V v) {
+		return facilityIndex[graph.id(v)];
+	}
+
+	/**
+	 * @param v a vertex
+	 * @return the nearest facility or {@code null} if no facility reaches the vertex
+	 */
+	public V facility(V v) {
+		int i = facilityIndex(v);
+		return i == -1 ? null : facilities.get(i);
+	}
+
+	/**
+	 * @param v a vertex
+	 * @return cost from the nearest facility including its offset, {@code Float.POSITIVE_INFINITY} if unreachable
+	 */
+	public float cost(V v) {
+		return cost[graph.id(v)];
+	}
+
+	/**
+	 * @param v a vertex
+	 * @return vertices on the shortest path from the nearest facility to the vertex or an empty list if unreachable
+	 */
+	public List<V> path(V v) {
+		int u = graph.id(v);
+		if (facilityIndex[u] == -1) {
+			return List.of();
+		}
+		var path = new ArrayList<V>();
+		for (; u != SearchState.NO_PARENT; u = parent[u]) {
+			path.add(graph.vertex(u));
+		}
+		Collections.reverse(path);
+		return path;
+	}
+
+	/**
+	 * @param i facility index
+	 * @return all vertices assigned to the facility with the given index
+	 */
+	public List<V> cell(int i) {
+		var cell = new ArrayList<V>();
+		for (int u = 0; u < facilityIndex.length; ++u) {
+			if (facilityIndex[u] == i) {
+				cell.add(graph.vertex(u));
+			}
+		}
+		return cell;
+	}
+
+	/**
+	 * @return number of vertices assigned to each facility
+	 */
+	public int[] cellSizes() {
+		var sizes = new int[facilities.size()];
+		for (int i : facilityIndex) {
+			if (i != -1) {
+				++sizes[i];
+			}
+		}
+		return sizes;
+	}
+}
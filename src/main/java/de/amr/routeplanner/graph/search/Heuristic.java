@@ -0,0 +1,46 @@
+/*
+MIT License
+
+Copyright (c) 2022 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+package de.amr.routeplanner.graph.search;
+
+/**
+ * Estimates the cost of the cheapest path between two vertices for goal-directed searches. To guarantee shortest
+ * paths in {@link AStarSearch}, the estimate must be consistent: it never overestimates and for each edge
+ * {@code (u, v)} it holds {@code estimate(u, t) <= cost(u, v) + estimate(v, t)}.
+ *
+ * @author Armin Reichert
+ */
+@FunctionalInterface
+public interface Heuristic {
+
+	/** Heuristic that always estimates zero, turning A* into Dijkstra's algorithm. */
+	Heuristic ZERO = (vertex, goal) -> 0;
+
+	/**
+	 * @param vertex index of vertex
+	 * @param goal   index of goal vertex
+	 * @return lower bound of the cost of the cheapest path from the vertex to the goal
+	 */
+	float estimate(int vertex, int goal);
+}
@@ -0,0 +1,152 @@
+/*
+MIT License
+
+Copyright (c) 2022 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+package de.amr.routeplanner.graph.search;
+
+import java.util.Arrays;
+
+/**
+ * Indexed 4-ary min-heap of the integers {@code 0..capacity-1} with float keys. The heap slot of each item is stored
+ * in a position array, so {@link #decreaseKey(int, float)} runs in O(log n) time. Clearing the heap costs time
+ * proportional to the number of items still contained, not to the capacity.
+ *
+ * @author Armin Reichert
+ */
+public class IntMinHeap {
+
+	private static final int ARITY = 4;
+
+	private final int[] items;
+	private final float[] keys;
+	private final int[] pos;
+	private int size;
+
+	public IntMinHeap(int capacity) {
+		items = new int[capacity];
+		keys = new float[capacity];
+		pos = new int[capacity];
+		Arrays.fill(pos, -1);
+	}
+
+	public int capacity() {
+		return items.length;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean contains(int item) {
+		return pos[item] != -1;
+	}
+
+	/**
+	 * @return key of the minimum item, the heap must not be empty
+	 */
+	public float minKey() {
+		return keys[0];
+	}
+
+	/**
+	 * Removes the item with the minimum key, the heap must not be empty.
+	 * 
+	 * @return the removed item
+	 */
+	public int extractMin() {
+		int min = items[0];
+		pos[min] = -1;
+		--size;
+		if (size > 0) {
+			moveDown(0, items[size], keys[size]);
+		}
+		return min;
+	}
+
+	/**
+	 * Inserts the item with the given key or, if it is already contained, lowers its key.
+	 * 
+	 * @param item item
+	 * @param key  new key, must not be larger than the current key if the item is already contained
+	 */
+	public void insertOrDecrease(int item, float key) {
+		int i = pos[item];
+		if (i == -1) {
+			i = size++;
+		}
+		moveUp(i, item, key);
+	}
+
+	public void clear() {
+		for (int i = 0; i < size; ++i) {
+			pos[items[i]] = -1;
+		}
+		size = 0;
+	}
+
+	private void moveUp(int i, int item, float key) {
+		while (i > 0) {
+			int parent = (i - 1) / ARITY;
+			if (keys[parent] <= key) {
+				break;
+			}
+			items[i] = items[parent];
+			keys[i] = keys[parent];
+			pos[items[i]] = i;
+			i = parent;
+		}
+		items[i] = item;
+		keys[i] = key;
+		pos[item] = i;
+	}
+
+	private void moveDown(int i, int item, float key) {
+		while (true) {
+			int first = ARITY * i + 1;
+			if (first >= size) {
+				break;
+			}
+			int last = Math.min(first + ARITY, size);
+			int min = first;
+			for (int child = first + 1; child < last; ++child) {
+				if (keys[child] < keys[min]) {
+					min = child;
+				}
+			}
+			if (keys[min] >= key) {
+				break;
+			}
+			items[i] = items[min];
+			keys[i] = keys[min];
+			pos[items[i]] = i;
+			i = min;
+		}
+		items[i] = item;
+		keys[i] = key;
+		pos[item] = i;
+	}
+}
@@ -0,0 +1,308 @@
+/*
+MIT License
+
+Copyright (c) 2022 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+package de.amr.routeplanner.graph.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import de.amr.routeplanner.graph.CsrGraph;
+import de.amr.routeplanner.graph.Vertex;
+
+/**
+ * Computes the K shortest loopless paths between two vertices using Yen's algorithm. Each path after the first one
+ * is found by a "spur" search that leaves a prefix ("root") of an already accepted path at its last vertex. The root
+ * vertices and the edges by which accepted paths with the same root continue are excluded from the spur search.
+ * <p>
+ * The exclusions are kept in a mask (see {@link BanMask}) instead of a modified copy of the graph, and all spur
+ * searches of a query share one pooled search state. With Lawler's modification, spur searches only start at or
+ * after the vertex where the previous path deviates from its parent path.
+ * <p>
+ * Spur searches are goal-directed: first, a "goal tree" is computed by Dijkstra's algorithm on the reverse graph from
+ * the goal, covering all vertices not much farther from the goal than the source. Its distances are used as exact
+ * A* heuristic inside the tree, outside the tree the given heuristic is used. Excluding vertices and edges can only
+ * make paths longer, so the heuristic stays consistent. A spur search stops as soon as it settles a vertex whose tree
+ * path to the goal is not excluded, so in most cases it settles only a few vertices.
+ * <p>
+ * Instances keep no query state and may be used concurrently.
+ * 
+ * @see <a href="https://doi.org/10.1287/mnsc.17.11.712">Jin Y. Yen: Finding the K Shortest Loopless Paths in a
+ *      Network</a>
+ *
+ * @author Armin Reichert
+ */
+public class KShortestPaths<V extends Vertex> {
+
+	private record Candidate(int[] ids, float[] costs, int deviation, int settledCount) {
+
+		float cost() {
+			return costs[costs.length - 1];
+		}
+	}
+
+	private record PathKey(int[] ids) {
+
+		@Override
+		public boolean equals(Object other) {
+			return other instanceof PathKey key && Arrays.equals(ids, key.ids);
+		}
+
+		@Override
+		public int hashCode() {
+			return Arrays.hashCode(ids);
+		}
+	}
+
+	/** The goal tree covers all vertices whose distance to the goal is at most this factor times the shortest path. */
+	private static final float GOAL_TREE_RADIUS = 1.2f;
+
+	private final SearchStatePool statePool;
+	private final ConcurrentLinkedQueue<BanMask> idleMasks = new ConcurrentLinkedQueue<>();
+
+	public KShortestPaths() {
+		this(new SearchStatePool());
+	}
+
+	public KShortestPaths(SearchStatePool statePool) {
+		this.statePool = Objects.requireNonNull(statePool);
+	}
+
+	/**
+	 * @param g      CSR graph with non-negative edge weights
+	 * @param source the source vertex
+	 * @param goal   the goal vertex
+	 * @param k      maximum number of paths
+	 * @return up to {@code k} loopless paths in order of increasing cost
+	 */
+	public List<ShortestPath<V>> findShortestPaths(CsrGraph<V> g, V source, V goal, int k) {
+		return findShortestPaths(g, source, goal, k, Heuristic.ZERO);
+	}
+
+	/**
+	 * @param g         CSR graph with non-negative edge weights
+	 * @param source    the source vertex
+	 * @param goal      the goal vertex
+	 * @param k         maximum number of paths
+	 * @param heuristic consistent estimate of the remaining cost to the goal, used by the spur searches for vertices
+	 *                  outside of the goal tree
+	 * @return up to {@code k} loopless paths in order of increasing cost, each with the number of vertices settled by
+	 *         the search that found it
+	 */
+	public List<ShortestPath<V>> findShortestPaths(CsrGraph<V> g, V source, V goal, int k, Heuristic heuristic) {
+		if (k < 1) {
+			throw new IllegalArgumentException("Number of paths must be positive but is %d".formatted(k));
+		}
+		int s = g.id(source);
+		int t = g.id(goal);
+		var result = new ArrayList<ShortestPath<V>>(k);
+		if (!g.components().mayReach(s, t)) {
+			return result;
+		}
+		var tree = statePool.acquire(g.numVertices());
+		var state = statePool.acquire(g.numVertices());
+		var mask = acquireMask(g);
+		try {
+			float radius = growGoalTree(g.reverse(), tree, s, t);
+			if (!tree.isVisited(s)) {
+				return result;
+			}
+			Heuristic spurHeuristic = (v, target) -> tree.isVisited(v) ? tree.cost(v)
+					: Math.max(radius, heuristic.estimate(v, target));
+			var accepted = new ArrayList<Candidate>(k);
+			var candidates = new PriorityQueue<Candidate>((c1, c2) -> Float.compare(c1.cost(), c2.cost()));
+			var known = new HashSet<PathKey>();
+			mask.clear();
+			var spurPath = spurSearch(g, tree, state, mask, s, t, spurHeuristic, null, null, 0);
+			// the first path is taken from the goal tree, count the vertices settled for building the tree
+			var first = new Candidate(spurPath.ids, spurPath.costs, 0, tree.visitedCount() + spurPath.settledCount);
+			candidates.add(first);
+			known.add(new PathKey(first.ids));
+			while (accepted.size() < k && !candidates.isEmpty()) {
+				var path = candidates.poll();
+				accepted.add(path);
+				result.add(toShortestPath(g, path));
+				if (accepted.size() < k) {
+					addSpurPaths(g, tree, state, mask, path, accepted, candidates, known, t, spurHeuristic);
+				}
+			}
+			return result;
+		} finally {
+			idleMasks.offer(mask);
+			statePool.release(state);
+			statePool.release(tree);
+		}
+	}
+
+	/*
+	 * Runs Dijkstra's algorithm on the reverse graph from the goal until the source is settled and the minimum key
+	 * exceeds the radius of the goal tree. Returns the minimum key of the remaining open list, which is a lower bound of
+	 * the distance to the goal of each vertex outside of the tree.
+	 */
+	private float growGoalTree(CsrGraph<V> reverse, SearchState tree, int s, int t) {
+		tree.reach(t, 0, SearchState.NO_PARENT);
+		var open = tree.open;
+		float radius = Float.POSITIVE_INFINITY;
+		while (!open.isEmpty() && open.minKey() <= radius) {
+			int u = open.extractMin();
+			tree.setVisited(u);
+			if (u == s) {
+				radius = GOAL_TREE_RADIUS * tree.cost(s);
+			}
+			float uCost = tree.cost(u);
+			for (int e = reverse.firstEdge(u), end = reverse.endEdge(u); e < end; ++e) {
+				int v = reverse.target(e);
+				float altCost = uCost + reverse.cost(e);
+				if (altCost < tree.cost(v) && !tree.isVisited(v)) {
+					tree.reach(v, altCost, u);
+				}
+			}
+		}
+		return open.isEmpty() ? Float.POSITIVE_INFINITY : open.minKey();
+	}
+
+	private void addSpurPaths(CsrGraph<V> g, SearchState tree, SearchState state, BanMask mask, Candidate path,
+			List<Candidate> accepted, PriorityQueue<Candidate> candidates, Set<PathKey> known, int t,
+			Heuristic heuristic) {
+		for (int i = path.deviation; i < path.ids.length - 1; ++i) {
+			mask.clear();
+			for (int j = 0; j < i; ++j) {
+				mask.banVertex(path.ids[j]);
+			}
+			int spur = path.ids[i];
+			for (var other : accepted) {
+				if (other.ids.length > i + 1 && Arrays.equals(other.ids, 0, i + 1, path.ids, 0, i + 1)) {
+					int next = other.ids[i + 1];
+					for (int e = g.firstEdge(spur), end = g.endEdge(spur); e < end; ++e) {
+						if (g.target(e) == next) {
+							mask.banEdge(e);
+						}
+					}
+				}
+			}
+			var candidate = spurSearch(g, tree, state, mask, spur, t, heuristic, path.ids, path.costs, i);
+			if (candidate != null && known.add(new PathKey(candidate.ids))) {
+				candidates.add(candidate);
+			}
+		}
+	}
+
+	/*
+	 * Runs A* from the spur vertex to the goal avoiding the banned vertices and edges, and returns the root path
+	 * extended by the found path or null if the goal is unreachable. Inside of the goal tree, the heuristic is exact.
+	 * So when a vertex is settled whose tree path to the goal is not banned, the tree path completes a shortest spur
+	 * path and the search stops.
+	 */
+	private Candidate spurSearch(CsrGraph<V> g, SearchState tree, SearchState state, BanMask mask, int spur, int t,
+			Heuristic heuristic, int[] rootIds, float[] rootCosts, int deviation) {
+		state.reset();
+		state.reach(spur, 0, SearchState.NO_PARENT, heuristic.estimate(spur, t));
+		var open = state.open;
+		int meet = -1;
+		while (!open.isEmpty()) {
+			int u = open.extractMin();
+			state.setVisited(u);
+			if (tree.isVisited(u) && isTreePathAllowed(g, tree, mask, u)) {
+				meet = u;
+				break;
+			}
+			float uCost = state.cost(u);
+			for (int e = g.firstEdge(u), end = g.endEdge(u); e < end; ++e) {
+				int v = g.target(e);
+				if (mask.isEdgeBanned(e) || mask.isVertexBanned(v)) {
+					continue;
+				}
+				float altCost = uCost + g.cost(e);
+				if (altCost < state.cost(v) && !state.isVisited(v)) {
+					state.reach(v, altCost, u, altCost + heuristic.estimate(v, t));
+				}
+			}
+		}
+		if (meet == -1) {
+			return null;
+		}
+		int spurLength = 0;
+		for (int u = meet; u != SearchState.NO_PARENT; u = state.parent(u)) {
+			++spurLength;
+		}
+		int treeLength = 0;
+		for (int u = tree.parent(meet); u != SearchState.NO_PARENT; u = tree.parent(u)) {
+			++treeLength;
+		}
+		int length = deviation + spurLength + treeLength;
+		var ids = new int[length];
+		var costs = new float[length];
+		float rootCost = 0;
+		if (rootIds != null) {
+			System.arraycopy(rootIds, 0, ids, 0, deviation);
+			System.arraycopy(rootCosts, 0, costs, 0, deviation);
+			rootCost = rootCosts[deviation];
+		}
+		int i = deviation + spurLength - 1;
+		for (int u = meet; u != SearchState.NO_PARENT; u = state.parent(u), --i) {
+			ids[i] = u;
+			costs[i] = rootCost + state.cost(u);
+		}
+		float meetCost = costs[deviation + spurLength - 1];
+		float meetDistance = tree.cost(meet);
+		i = deviation + spurLength;
+		for (int u = tree.parent(meet); u != SearchState.NO_PARENT; u = tree.parent(u), ++i) {
+			ids[i] = u;
+			costs[i] = meetCost + meetDistance - tree.cost(u);
+		}
+		return new Candidate(ids, costs, deviation, state.visitedCount());
+	}
+
+	private boolean isTreePathAllowed(CsrGraph<V> g, SearchState tree, BanMask mask, int u) {
+		for (int v = tree.parent(u); v != SearchState.NO_PARENT; u = v, v = tree.parent(v)) {
+			if (mask.isVertexBanned(v) || mask.isEdgeBanned(g.edgeIndex(u, v))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private ShortestPath<V> toShortestPath(CsrGraph<V> g, Candidate path) {
+		var vertices = new ArrayList<V>(path.ids.length);
+		for (int u : path.ids) {
+			vertices.add(g.vertex(u));
+		}
+		return new ShortestPath<>(vertices, path.costs, path.settledCount);
+	}
+
+	private BanMask acquireMask(CsrGraph<V> g) {
+		BanMask mask;
+		while ((mask = idleMasks.poll()) != null) {
+			if (mask.fits(g.numVertices(), g.numEdges())) {
+				return mask;
+			}
+		}
+		return new BanMask(g.numVertices(), g.numEdges());
+	}
+}
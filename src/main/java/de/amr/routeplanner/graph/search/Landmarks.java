@@ -0,0 +1,425 @@
+/*
+MIT License
+
+Copyright (c) 2022 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+package de.amr.routeplanner.graph.search;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import de.amr.routeplanner.graph.CsrGraph;
+
+/**
+ * Landmark distance tables for the ALT algorithm (A*, landmarks, triangle inequality). For each landmark {@code L}
+ * the tables store the distance from {@code L} to every vertex and from every vertex to {@code L}. By the triangle
+ * inequality, {@code d(L,t) - d(L,v)} and {@code d(v,L) - d(t,L)} are lower bounds of {@code d(v,t)}, the maximum of
+ * these bounds over all landmarks is used as A* heuristic (see {@link #heuristic()}).
+ * <p>
+ * The tables are stored vertex-major ({@code table[v * numLandmarks + i]}) so that evaluating the heuristic for a
+ * vertex reads one contiguous block. Preprocessing runs one forward and one backward search per landmark in parallel
+ * on all cores. The tables can be written to and read from a stream so they need not be recomputed at every start.
+ *
+ * @see <a href="https://www.microsoft.com/en-us/research/publication/computing-the-shortest-path-a-search-meets-graph-theory/">
+ *      Goldberg, Harrelson: Computing the Shortest Path: A* Search Meets Graph Theory</a>
+ * 
+ * @author Armin Reichert
+ */
+public final class Landmarks {
+
+	private static final Logger LOGGER = LogManager.getFormatterLogger();
+
+	private static final int FILE_MAGIC = 0x414c5431; // "ALT1"
+	private static final int FILE_VERSION = 1;
+
+	/**
+	 * Strategy for selecting landmarks.
+	 */
+	public enum Selection {
+		/** Random vertices. */
+		RANDOM,
+		/** Each new landmark is the vertex farthest away from all landmarks selected so far. */
+		FARTHEST,
+		/** Each new landmark is the leaf of the subtree that is worst covered by the landmarks selected so far. */
+		AVOID
+	}
+
+	/**
+	 * Selects landmarks using the given strategy and computes their distance tables.
+	 * 
+	 * @param g            graph with non-negative edge weights
+	 * @param numLandmarks number of landmarks
+	 * @param selection    selection strategy
+	 * @param seed         random seed
+	 * @return the landmark tables
+	 */
+	public static Landmarks compute(CsrGraph<?> g, int numLandmarks, Selection selection, long seed) {
+		if (selection == Selection.AVOID) {
+			// the selection computes the distance tables of each landmark anyway
+			checkNumLandmarks(g, numLandmarks);
+			long start = System.nanoTime();
+			var result = selectAvoid(g, numLandmarks, new Random(seed));
+			LOGGER.info(() -> "Selected %d landmarks and computed their tables for %d vertices in %.1f ms"
+					.formatted(numLandmarks, g.numVertices(), (System.nanoTime() - start) / 1e6));
+			return result;
+		}
+		var landmarks = select(g, numLandmarks, selection, seed);
+		return compute(g, landmarks);
+	}
+
+	/**
+	 * Computes the distance tables of the given landmarks, running the searches for different landmarks in parallel.
+	 * 
+	 * @param g         graph with non-negative edge weights
+	 * @param landmarks indices of the landmark vertices
+	 * @return the landmark tables
+	 */
+	public static Landmarks compute(CsrGraph<?> g, int[] landmarks) {
+		long start = System.nanoTime();
+		var columns = distanceColumns(g, landmarks, new SearchStatePool());
+		var result = fromColumns(g, landmarks.clone(), List.<float[][]>of(columns));
+		LOGGER.info(() -> "Computed %d landmark tables for %d vertices in %.1f ms".formatted(landmarks.length,
+				g.numVertices(), (System.nanoTime() - start) / 1e6));
+		return result;
+	}
+
+	/**
+	 * Computes the distances from and to the given landmarks, running the searches in parallel.
+	 * 
+	 * @return for landmark {@code i}, the distances from the landmark at index {@code 2i} and the distances to the
+	 *         landmark at index {@code 2i+1}
+	 */
+	private static float[][] distanceColumns(CsrGraph<?> g, int[] landmarks, SearchStatePool pool) {
+		int n = g.numVertices();
+		var reverse = g.reverse();
+		var columns = new float[2 * landmarks.length][];
+		IntStream.range(0, columns.length).parallel().forEach(job -> {
+			var state = pool.acquire(n);
+			try {
+				state.reach(landmarks[job / 2], 0, SearchState.NO_PARENT);
+				PathFinder.dijkstra(job % 2 == 0 ? g : reverse, state, -1);
+				columns[job] = state.copyCosts(n);
+			} finally {
+				pool.release(state);
+			}
+		});
+		return columns;
+	}
+
+	/**
+	 * Stores the distance columns (see {@link #distanceColumns}) vertex-major.
+	 */
+	private static Landmarks fromColumns(CsrGraph<?> g, int[] landmarks, List<float[][]> columnChunks) {
+		int n = g.numVertices();
+		int k = landmarks.length;
+		var forward = new float[n * k];
+		var backward = new float[n * k];
+		int i = 0;
+		for (var columns : columnChunks) {
+			for (int c = 0; c < columns.length; c += 2, ++i) {
+				var from = columns[c];
+				var to = columns[c + 1];
+				for (int v = 0; v < n; ++v) {
+					forward[v * k + i] = from[v];
+					backward[v * k + i] = to[v];
+				}
+			}
+		}
+		return new Landmarks(g.fingerprint(), landmarks, forward, backward);
+	}
+
+	private static void checkNumLandmarks(CsrGraph<?> g, int numLandmarks) {
+		if (numLandmarks < 1 || numLandmarks > g.numVertices()) {
+			throw new IllegalArgumentException("Invalid number of landmarks: %d".formatted(numLandmarks));
+		}
+	}
+
+	/**
+	 * Selects landmark vertices.
+	 * 
+	 * @param g            graph with non-negative edge weights
+	 * @param numLandmarks number of landmarks
+	 * @param selection    selection strategy
+	 * @param seed         random seed
+	 * @return indices of the selected landmark vertices
+	 */
+	public static int[] select(CsrGraph<?> g, int numLandmarks, Selection selection, long seed) {
+		int n = g.numVertices();
+		checkNumLandmarks(g, numLandmarks);
+		var rnd = new Random(seed);
+		return switch (selection) {
+		case RANDOM -> rnd.ints(0, n).distinct().limit(numLandmarks).toArray();
+		case FARTHEST -> selectFarthest(g, numLandmarks, rnd);
+		case AVOID -> selectAvoid(g, numLandmarks, rnd).landmarks;
+		};
+	}
+
+	private static int[] selectFarthest(CsrGraph<?> g, int numLandmarks, Random rnd) {
+		int n = g.numVertices();
+		var state = new SearchState(n);
+		var selected = new ArrayList<Integer>();
+		int start = rnd.nextInt(n);
+		while (selected.size() < numLandmarks) {
+			state.reset();
+			if (selected.isEmpty()) {
+				state.reach(start, 0, SearchState.NO_PARENT);
+			} else {
+				selected.forEach(l -> state.reach(l, 0, SearchState.NO_PARENT));
+			}
+			PathFinder.dijkstra(g, state, -1);
+			int farthest = -1;
+			for (int v = 0; v < n; ++v) {
+				if (state.isReached(v) && !selected.contains(v) && (farthest == -1 || state.cost(v) > state.cost(farthest))) {
+					farthest = v;
+				}
+			}
+			if (farthest == -1) {
+				// everything reachable is covered, continue with an unreached vertex
+				farthest = firstUnselected(n, selected, rnd);
+			}
+			selected.add(farthest);
+		}
+		return selected.stream().mapToInt(Integer::intValue).toArray();
+	}
+
+	/**
+	 * Selects the landmarks and computes the distance tables of each landmark once when it is selected. The tables of
+	 * the landmarks selected so far are needed to find the next landmark.
+	 */
+	private static Landmarks selectAvoid(CsrGraph<?> g, int numLandmarks, Random rnd) {
+		int n = g.numVertices();
+		var pool = new SearchStatePool();
+		var state = new SearchState(n);
+		var selected = new ArrayList<Integer>();
+		var columnChunks = new ArrayList<float[][]>();
+		var size = new double[n];
+		while (selected.size() < numLandmarks) {
+			int root = rnd.nextInt(n);
+			state.reset();
+			state.reach(root, 0, SearchState.NO_PARENT);
+			PathFinder.dijkstra(g, state, -1);
+			// weight of a vertex: how much the current landmarks underestimate its distance from the root
+			Integer[] order = IntStream.range(0, n).filter(state::isReached).boxed().toArray(Integer[]::new);
+			Arrays.sort(order, (u, v) -> Float.compare(state.cost(v), state.cost(u)));
+			var coveredByLandmark = new boolean[n];
+			Arrays.fill(size, 0);
+			for (int v : order) {
+				double weight = state.cost(v) - lowerBound(columnChunks, root, v);
+				size[v] += weight;
+				if (selected.contains(v)) {
+					coveredByLandmark[v] = true;
+				}
+				int parent = state.parent(v);
+				if (parent != SearchState.NO_PARENT) {
+					if (coveredByLandmark[v]) {
+						coveredByLandmark[parent] = true;
+					} else {
+						size[parent] += size[v];
+					}
+				}
+			}
+			// descend from the root into the child with the largest size until a leaf is reached
+			int leaf = root;
+			while (true) {
+				int best = -1;
+				for (int e = g.firstEdge(leaf); e < g.endEdge(leaf); ++e) {
+					int child = g.target(e);
+					if (state.parent(child) == leaf && !coveredByLandmark[child] && (best == -1 || size[child] > size[best])) {
+						best = child;
+					}
+				}
+				if (best == -1) {
+					break;
+				}
+				leaf = best;
+			}
+			int landmark = selected.contains(leaf) ? firstUnselected(n, selected, rnd) : leaf;
+			selected.add(landmark);
+			columnChunks.add(distanceColumns(g, new int[] { landmark }, pool));
+		}
+		return fromColumns(g, selected.stream().mapToInt(Integer::intValue).toArray(), columnChunks);
+	}
+
+	// same bound as lowerBound(v, t) but computed from the distance columns
+	private static float lowerBound(List<float[][]> columnChunks, int v, int t) {
+		float bound = 0;
+		for (var columns : columnChunks) {
+			for (int c = 0; c < columns.length; c += 2) {
+				float lt = columns[c][t];
+				float lv = columns[c][v];
+				if (lt != Float.POSITIVE_INFINITY && lv != Float.POSITIVE_INFINITY && lt - lv > bound) {
+					bound = lt - lv;
+				}
+				float vl = columns[c + 1][v];
+				float tl = columns[c + 1][t];
+				if (vl != Float.POSITIVE_INFINITY && tl != Float.POSITIVE_INFINITY && vl - tl > bound) {
+					bound = vl - tl;
+				}
+			}
+		}
+		return bound;
+	}
+
+	private static int firstUnselected(int n, List<Integer> selected, Random rnd) {
+		int v = rnd.nextInt(n);
+		while (selected.contains(v)) {
+			v = (v + 1) % n;
+		}
+		return v;
+	}
+
+	/**
+	 * Reads landmark tables written by {@link #write(OutputStream)}.
+	 * 
+	 * @param in input stream, not closed by this method
+	 * @param g  the graph the tables will be used for
+	 * @return the landmark tables
+	 * @throws IOException if the data is invalid or has been computed for a different graph
+	 */
+	public static Landmarks read(InputStream in, CsrGraph<?> g) throws IOException {
+		var data = new DataInputStream(in);
+		if (data.readInt() != FILE_MAGIC) {
+			throw new IOException("Not a landmark file");
+		}
+		int version = data.readInt();
+		if (version != FILE_VERSION) {
+			throw new IOException("Unsupported landmark file version %d".formatted(version));
+		}
+		long fingerprint = data.readLong();
+		int n = data.readInt();
+		if (n != g.numVertices() || fingerprint != g.fingerprint()) {
+			throw new IOException("Landmark tables have been computed for a different graph");
+		}
+		int k = data.readInt();
+		var landmarks = new int[k];
+		for (int i = 0; i < k; ++i) {
+			landmarks[i] = data.readInt();
+		}
+		var forward = readFloats(data, n * k);
+		var backward = readFloats(data, n * k);
+		return new Landmarks(fingerprint, landmarks, forward, backward);
+	}
+
+	private static float[] readFloats(DataInputStream data, int count) throws IOException {
+		var values = new float[count];
+		for (int i = 0; i < count; ++i) {
+			values[i] = data.readFloat();
+		}
+		return values;
+	}
+
+	private final long graphFingerprint;
+	private final int[] landmarks;
+	private final float[] forward;
+	private final float[] backward;
+
+	private Landmarks(long graphFingerprint, int[] landmarks, float[] forward, float[] backward) {
+		this.graphFingerprint = graphFingerprint;
+		this.landmarks = landmarks;
+		this.forward = forward;
+		this.backward = backward;
+	}
+
+	/**
+	 * Writes the tables in a binary format. Use a buffered stream for good performance.
+	 * 
+	 * @param out output stream, not closed by this method
+	 * @throws IOException if writing fails
+	 */
+	public void write(OutputStream out) throws IOException {
+		var data = new DataOutputStream(out);
+		data.writeInt(FILE_MAGIC);
+		data.writeInt(FILE_VERSION);
+		data.writeLong(graphFingerprint);
+		data.writeInt(numVertices());
+		data.writeInt(landmarks.length);
+		for (int landmark : landmarks) {
+			data.writeInt(landmark);
+		}
+		for (float value : forward) {
+			data.writeFloat(value);
+		}
+		for (float value : backward) {
+			data.writeFloat(value);
+		}
+		data.flush();
+	}
+
+	public int numLandmarks() {
+		return landmarks.length;
+	}
+
+	public int numVertices() {
+		return forward.length / landmarks.length;
+	}
+
+	/**
+	 * @param i landmark number
+	 * @return index of the landmark vertex
+	 */
+	public int landmark(int i) {
+		return landmarks[i];
+	}
+
+	/**
+	 * @param v vertex index
+	 * @param t target vertex index
+	 * @return the largest lower bound of the distance from {@code v} to {@code t} provided by the landmarks
+	 */
+	public float lowerBound(int v, int t) {
+		int k = landmarks.length;
+		int vBase = v * k;
+		int tBase = t * k;
+		float bound = 0;
+		for (int i = 0; i < k; ++i) {
+			float lt = forward[tBase + i];
+			float lv = forward[vBase + i];
+			if (lt != Float.POSITIVE_INFINITY && lv != Float.POSITIVE_INFINITY && lt - lv > bound) {
+				bound = lt - lv;
+			}
+			float vl = backward[vBase + i];
+			float tl = backward[tBase + i];
+			if (vl != Float.POSITIVE_INFINITY && tl != Float.POSITIVE_INFINITY && vl - tl > bound) {
+				bound = vl - tl;
+			}
+		}
+		return bound;
+	}
+
+	/**
+	 * @return A* heuristic using the landmark lower bounds
+	 */
+	public Heuristic heuristic() {
+		return this::lowerBound;
+	}
+}
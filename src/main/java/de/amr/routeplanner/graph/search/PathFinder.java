@@ -24,15 +24,16 @@ SOFTWARE.
 
 package de.amr.routeplanner.graph.search;
 
-import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
+import java.util.Objects;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import de.amr.routeplanner.graph.Edge;
+import de.amr.routeplanner.graph.CompressedGraph;
+import de.amr.routeplanner.graph.CsrGraph;
 import de.amr.routeplanner.graph.Graph;
 import de.amr.routeplanner.graph.Vertex;
 
@@ -43,15 +44,72 @@ public class PathFinder<V extends Vertex> {
 
 	private static final Logger LOGGER = LogManager.getFormatterLogger();
 
-	private Map<V, SearchNode<V>> nodes;
-	private V currentSource;
+	private final Supplier<SearchNodeQueue<V>> queueFactory;
+	private final SearchStatePool statePool;
+	private final ShortestPathTreeCache<V> treeCache;
+	private SearchNode<V>[] nodes;
 
+	/**
+	 * Creates a path finder using an indexed heap ({@link SearchNodeHeap}) as priority queue.
+	 */
+	public PathFinder() {
+		this(SearchNodeHeap::new);
+	}
+
+	/**
+	 * @param queueFactory creates the priority queue used by each search
+	 */
+	public PathFinder(Supplier<SearchNodeQueue<V>> queueFactory) {
+		this(queueFactory, new SearchStatePool());
+	}
+
+	/**
+	 * @param queueFactory creates the priority queue used by each search on a {@link Graph}
+	 * @param statePool    provides the reusable search states used by each search on a {@link CsrGraph}
+	 */
+	public PathFinder(Supplier<SearchNodeQueue<V>> queueFactory, SearchStatePool statePool) {
+		this(queueFactory, statePool, new ShortestPathTreeCache<>());
+	}
+
+	/**
+	 * @param queueFactory creates the priority queue used by each search on a {@link Graph}
+	 * @param statePool    provides the reusable search states used by each search on a {@link CsrGraph}
+	 * @param treeCache    cache for the shortest path trees used by {@link #findPath}
+	 */
+	public PathFinder(Supplier<SearchNodeQueue<V>> queueFactory, SearchStatePool statePool,
+			ShortestPathTreeCache<V> treeCache) {
+		this.queueFactory = Objects.requireNonNull(queueFactory);
+		this.statePool = Objects.requireNonNull(statePool);
+		this.treeCache = Objects.requireNonNull(treeCache);
+	}
+
+	public SearchStatePool statePool() {
+		return statePool;
+	}
+
+	public ShortestPathTreeCache<V> treeCache() {
+		return treeCache;
+	}
+
+	/**
+	 * @param v a vertex
+	 * @return search node of the vertex as computed by the last search on a {@link Graph}
+	 */
 	public SearchNode<V> node(V v) {
-		return nodes.computeIfAbsent(v, SearchNode::new);
+		var node = nodes[v.id()];
+		if (node == null) {
+			node = nodes[v.id()] = new SearchNode<>(v);
+		}
+		return node;
+	}
+
+	protected void onNewPathFound(V from, V to, float cost) {
+		LOGGER.trace(() -> "Found new path of cost %f ending with edge (%s, %s)".formatted(cost, from, to));
 	}
 
-	protected void onNewPathFound(Edge edge, float cost) {
-		LOGGER.trace(() -> "Found new path of cost %f ending with edge %s".formatted(edge, cost));
+	@SuppressWarnings("unchecked")
+	private void createNodes(int numVertices) {
+		nodes = (SearchNode<V>[]) new SearchNode<?>[numVertices];
 	}
 
 	/**
@@ -72,8 +130,8 @@ public class PathFinder<V extends Vertex> {
 	@SuppressWarnings("unchecked")
 	public void computeAllPaths(Graph<V> g, V source) {
 		LOGGER.info(() -> "Compute shortest paths from %s using Dijkstra's algorithm".formatted(source));
-		this.nodes = new HashMap<>();
-		var open = new SearchNodeMinPQ<V>();
+		createNodes(g.numVertices());
+		var open = queueFactory.get();
 		node(source).cost = 0;
 		open.insert(node(source)); // in Dijkstra algorithm, *all* nodes are added to the queue!
 		while (!open.isEmpty()) {
@@ -83,11 +141,10 @@ public class PathFinder<V extends Vertex> {
 					var v = node((V) edge.to());
 					var altCost = u.cost + edge.cost();
 					if (v.cost > altCost) {
-						onNewPathFound(edge, altCost);
+						onNewPathFound(u.vertex, v.vertex, altCost);
 						v.cost = altCost;
 						v.parent = u;
-						open.remove(v); // if vertex not in queue, does nothing
-						open.insert(v);
+						open.decreaseKey(v); // inserts vertex if not in queue
 					}
 				});
 				u.visited = true; // add to CLOSED list
@@ -95,18 +152,299 @@ public class PathFinder<V extends Vertex> {
 		}
 	}
 
-	public List<V> findPath(Graph<V> g, V source, V goal) {
-		if (source == null || goal == null) {
-			return List.of();
+	/**
+	 * Computes the shortest path from the given source vertex to all vertices of the given CSR graph. The search state
+	 * is kept in primitive arrays indexed by the dense vertex index (see {@link SearchState}), so the search loop does
+	 * not allocate any objects and does not call {@link #onNewPathFound}. The search state is taken from the state pool
+	 * of this path finder and returned afterwards.
+	 * 
+	 * @param g      CSR graph with non-negative edge weights
+	 * @param source the source vertex
+	 * @return the shortest path tree rooted at the source
+	 */
+	public ShortestPathTree<V> computeAllPaths(CsrGraph<V> g, V source) {
+		LOGGER.info(() -> "Compute shortest paths from %s using Dijkstra's algorithm on CSR graph".formatted(source));
+		int s = g.id(source);
+		var state = statePool.acquire(g.numVertices());
+		try {
+			state.reach(s, 0, SearchState.NO_PARENT);
+			dijkstra(g, state, -1);
+			int n = g.numVertices();
+			return new ShortestPathTree<>(g, s, state.copyCosts(n), state.copyParents(n));
+		} finally {
+			statePool.release(state);
+		}
+	}
+
+	/**
+	 * Runs Dijkstra's algorithm from the vertices in the open list of the given state.
+	 * 
+	 * @param g     searched graph
+	 * @param state search state with initialized open list
+	 * @param goal  index of the goal vertex where the search stops or -1 to search all vertices
+	 */
+	static void dijkstra(CsrGraph<?> g, SearchState state, int goal) {
+		dijkstra(g, state, goal, SearchLimits.NONE);
+	}
+
+	/**
+	 * Runs Dijkstra's algorithm from the vertices in the open list of the given state until the goal is settled or one
+	 * of the limits is reached.
+	 * 
+	 * @param g      searched graph
+	 * @param state  search state with initialized open list
+	 * @param goal   index of the goal vertex where the search stops or -1 to search all vertices
+	 * @param limits search limits
+	 */
+	static void dijkstra(CsrGraph<?> g, SearchState state, int goal, SearchLimits limits) {
+		var open = state.open;
+		float maxCost = limits.maxCost();
+		int maxSettled = limits.maxSettled();
+		while (!open.isEmpty() && open.minKey() <= maxCost && state.visitedCount() < maxSettled) {
+			int u = open.extractMin();
+			state.setVisited(u);
+			if (u == goal) {
+				break;
+			}
+			float uCost = state.cost(u);
+			for (int e = g.firstEdge(u), end = g.endEdge(u); e < end; ++e) {
+				int v = g.target(e);
+				float altCost = uCost + g.cost(e);
+				if (altCost < state.cost(v) && !state.isVisited(v)) {
+					state.reach(v, altCost, u);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Runs Dijkstra's algorithm on a compressed graph from the vertices in the open list of the given state. This is
+	 * kept separate from {@link #dijkstra(CsrGraph, SearchState, int, SearchLimits)}: letting both run over a common
+	 * edge cursor interface makes the CSR searches measurably slower.
+	 * 
+	 * @param g     searched graph
+	 * @param state search state with initialized open list
+	 * @param goal  index of the goal vertex where the search stops or -1 to search all vertices
+	 */
+	static void dijkstra(CompressedGraph g, SearchState state, int goal) {
+		var open = state.open;
+		var edges = g.edgeCursor();
+		while (!open.isEmpty()) {
+			int u = open.extractMin();
+			state.setVisited(u);
+			if (u == goal) {
+				break;
+			}
+			float uCost = state.cost(u);
+			for (edges.outgoing(u); edges.next();) {
+				int v = edges.target();
+				float altCost = uCost + edges.cost();
+				if (altCost < state.cost(v) && !state.isVisited(v)) {
+					state.reach(v, altCost, u);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Computes the shortest path between the given vertices of the CSR graph. The search stops as soon as the goal is
+	 * settled, so only the vertices closer to the source than the goal are visited. If the connected components of the
+	 * graph (see {@link CsrGraph#components()}) show that the goal is unreachable, no search is run at all. This method
+	 * does not modify any state of this path finder and may be called concurrently.
+	 * 
+	 * @param g      CSR graph with non-negative edge weights
+	 * @param source the source vertex
+	 * @param goal   the goal vertex
+	 * @return the shortest path or {@link ShortestPath#notFound(int)} if the goal is unreachable
+	 */
+	public ShortestPath<V> findShortestPath(CsrGraph<V> g, V source, V goal) {
+		int s = g.id(source);
+		int t = g.id(goal);
+		if (!g.components().mayReach(s, t)) {
+			return ShortestPath.notFound(0);
 		}
-		if (source != currentSource) {
-			currentSource = source;
-			computeAllPaths(g, currentSource);
+		var state = statePool.acquire(g.numVertices());
+		try {
+			state.reach(s, 0, SearchState.NO_PARENT);
+			dijkstra(g, state, t);
+			return ShortestPath.fromState(g, state, t);
+		} finally {
+			statePool.release(state);
 		}
-		var route = new LinkedList<V>();
-		for (var node = node(goal); node != null; node = node.parent) {
-			route.addFirst(node.vertex);
+	}
+
+	/**
+	 * Like {@link #findShortestPath(CsrGraph, Vertex, Vertex)} but gives up when one of the limits is reached before
+	 * the goal is settled. This bounds the latency of a query.
+	 * 
+	 * @param g      CSR graph with non-negative edge weights
+	 * @param source the source vertex
+	 * @param goal   the goal vertex
+	 * @param limits search limits
+	 * @return the shortest path or {@link ShortestPath#notFound(int)} if the goal has not been settled within the limits
+	 */
+	public ShortestPath<V> findShortestPath(CsrGraph<V> g, V source, V goal, SearchLimits limits) {
+		int s = g.id(source);
+		int t = g.id(goal);
+		if (!g.components().mayReach(s, t)) {
+			return ShortestPath.notFound(0);
+		}
+		var state = statePool.acquire(g.numVertices());
+		try {
+			state.reach(s, 0, SearchState.NO_PARENT);
+			dijkstra(g, state, t, limits);
+			return state.isVisited(t) ? ShortestPath.fromState(g, state, t) : ShortestPath.notFound(state.visitedCount());
+		} finally {
+			statePool.release(state);
+		}
+	}
+
+	/**
+	 * Computes the shortest path between the given vertices of the compressed graph. The path cost is the sum of the
+	 * quantized edge costs (see {@link CompressedGraph}). If the components of the graph show that the goal is
+	 * unreachable, no search is run at all. This method does not modify any state of this path finder and may be called
+	 * concurrently.
+	 * 
+	 * @param g        compressed graph
+	 * @param source   index of the source vertex in the original graph
+	 * @param goal     index of the goal vertex in the original graph
+	 * @param vertexAt maps original vertex indices to vertices, only called for the vertices of the found path
+	 * @return the shortest path or {@link ShortestPath#notFound(int)} if the goal is unreachable
+	 */
+	public ShortestPath<V> findShortestPath(CompressedGraph g, int source, int goal, IntFunction<V> vertexAt) {
+		int s = g.index(source);
+		int t = g.index(goal);
+		if (!g.mayReach(s, t)) {
+			return ShortestPath.notFound(0);
+		}
+		var state = statePool.acquire(g.numVertices());
+		try {
+			state.reach(s, 0, SearchState.NO_PARENT);
+			dijkstra(g, state, t);
+			return ShortestPath.fromState(u -> vertexAt.apply(g.originalIndex(u)), state, t);
+		} finally {
+			statePool.release(state);
+		}
+	}
+
+	/**
+	 * Computes the vertices reachable from the given source within the given limits. With a cost limit, the result is
+	 * the isochrone of the source, with a settled limit it contains the nearest vertices. Only the settled vertices are
+	 * visited, so the cost of the search depends on the limits and not on the size of the graph.
+	 * 
+	 * @param g      CSR graph with non-negative edge weights
+	 * @param source the source vertex
+	 * @param limits search limits
+	 * @return the settled vertices in order of increasing cost
+	 */
+	public ReachableSet<V> computeReachable(CsrGraph<V> g, V source, SearchLimits limits) {
+		int s = g.id(source);
+		var state = statePool.acquire(g.numVertices());
+		try {
+			state.reach(s, 0, SearchState.NO_PARENT);
+			dijkstra(g, state, -1, limits);
+			var open = state.open;
+			boolean complete = open.isEmpty() || open.minKey() > limits.maxCost();
+			int count = state.visitedCount();
+			var vertices = new int[count];
+			var costs = new float[count];
+			var parents = new int[count];
+			for (int i = 0; i < count; ++i) {
+				vertices[i] = state.visitedVertex(i);
+				costs[i] = state.cost(vertices[i]);
+				parents[i] = state.parent(vertices[i]);
+			}
+			return new ReachableSet<>(g, vertices, costs, parents, complete);
+		} finally {
+			statePool.release(state);
+		}
+	}
+
+	/**
+	 * Assigns each vertex to its nearest facility with a single multi-source search: all facilities are inserted into
+	 * the open list at the same time with their cost offset, and each reached vertex inherits the facility label of its
+	 * parent. Costs are measured from the facility to the vertex; to measure the costs towards the facilities, pass
+	 * the reverse graph (see {@link CsrGraph#reverse()}).
+	 * 
+	 * @param g          CSR graph with non-negative edge weights
+	 * @param facilities facility vertices
+	 * @param offsets    non-negative start cost of each facility, or {@code null} for zero offsets
+	 * @return the partition of the vertices by nearest facility
+	 */
+	public FacilityPartition<V> computeNearestFacilities(CsrGraph<V> g, List<V> facilities, float[] offsets) {
+		if (offsets != null && offsets.length != facilities.size()) {
+			throw new IllegalArgumentException("Need one offset per facility");
+		}
+		int n = g.numVertices();
+		var label = new int[n];
+		var state = statePool.acquire(n);
+		try {
+			for (int i = 0; i < facilities.size(); ++i) {
+				int f = g.id(facilities.get(i));
+				float offset = offsets == null ? 0 : offsets[i];
+				if (!(offset >= 0)) {
+					throw new IllegalArgumentException("Facility offsets must be non-negative but found %f".formatted(offset));
+				}
+				if (offset < state.cost(f)) {
+					state.reach(f, offset, SearchState.NO_PARENT);
+					label[f] = i;
+				}
+			}
+			dijkstra(g, state, -1);
+			// parents are settled before their children, so the labels can be propagated in settle order
+			for (int i = 0; i < state.visitedCount(); ++i) {
+				int v = state.visitedVertex(i);
+				int u = state.parent(v);
+				if (u != SearchState.NO_PARENT) {
+					label[v] = label[u];
+				}
+			}
+			for (int u = 0; u < n; ++u) {
+				if (!state.isReached(u)) {
+					label[u] = -1;
+				}
+			}
+			return new FacilityPartition<>(g, facilities, label, state.copyCosts(n), state.copyParents(n));
+		} finally {
+			statePool.release(state);
+		}
+	}
+
+	/**
+	 * Returns the shortest path tree rooted at the given source. The tree is taken from the tree cache of this path
+	 * finder or computed and added to the cache.
+	 * 
+	 * @param g      CSR graph with non-negative edge weights
+	 * @param source the source vertex
+	 * @return the shortest path tree rooted at the source
+	 */
+	public ShortestPathTree<V> shortestPathTree(CsrGraph<V> g, V source) {
+		return treeCache.computeIfAbsent(g, source, this::computeAllPaths);
+	}
+
+	/**
+	 * Computes the shortest path on the current snapshot of the graph (see {@link Graph#freeze()}) using the cached
+	 * shortest path tree of the source.
+	 * 
+	 * @param g      directed graph with non-negative edge weights
+	 * @param source the source vertex
+	 * @param goal   the goal vertex
+	 * @return vertices on the shortest path or an empty list if the goal is unreachable
+	 */
+	public List<V> findPath(Graph<V> g, V source, V goal) {
+		return findPath(g.freeze(), source, goal);
+	}
+
+	/**
+	 * @param g      CSR graph with non-negative edge weights
+	 * @param source the source vertex
+	 * @param goal   the goal vertex
+	 * @return vertices on the shortest path or an empty list if the goal is unreachable
+	 */
+	public List<V> findPath(CsrGraph<V> g, V source, V goal) {
+		if (source == null || goal == null || !g.components().mayReach(g.id(source), g.id(goal))) {
+			return List.of();
 		}
-		return route;
+		return shortestPathTree(g, source).path(goal);
 	}
 }
\ No newline at end of file
@@ -0,0 +1,146 @@
+/*
+MIT License
+
+Copyright (c) 2022 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+package de.amr.routeplanner.graph.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import de.amr.routeplanner.graph.CsrGraph;
+import de.amr.routeplanner.graph.Vertex;
+
+/**
+ * Immutable result of a bounded search: the settled vertices in order of increasing cost, with their costs and
+ * parents. For a cost limit, this is the isochrone of the source; for a settled limit, these are the nearest vertices.
+ *
+ * @author Armin Reichert
+ */
+public final class ReachableSet<V extends Vertex> {
+
+	private final CsrGraph<V> graph;
+	private final int[] vertices;
+	private final float[] costs;
+	private final int[] parents;
+	private final boolean complete;
+	// vertex indices in ascending order and their positions in the vertices array, for lookup by vertex
+	private final int[] sortedVertices;
+	private final int[] positions;
+
+	/**
+	 * @param graph    the searched graph
+	 * @param vertices indices of settled vertices in settle order, taken over
+	 * @param costs    costs of the settled vertices, taken over
+	 * @param parents  parent indices of the settled vertices, taken over
+	 * @param complete if the search has not been stopped by the settled limit
+	 */
+	ReachableSet(CsrGraph<V> graph, int[] vertices, float[] costs, int[] parents, boolean complete) {
+		this.graph = graph;
+		this.vertices = vertices;
+		this.costs = costs;
+		this.parents = parents;
+		this.complete = complete;
+		long[] keyed = new long[vertices.length];
+		for (int i = 0; i < vertices.length; ++i) {
+			keyed[i] = ((long) vertices[i] << 32) | i;
+		}
+		Arrays.sort(keyed);
+		sortedVertices = new int[vertices.length];
+		positions = new int[vertices.length];
+		for (int i = 0; i < keyed.length; ++i) {
+			sortedVertices[i] = (int) (keyed[i] >>> 32);
+			positions[i] = (int) keyed[i];
+		}
+	}
+
+	public CsrGraph<V> graph() {
+		return graph;
+	}
+
+	public int size() {
+		return vertices.length;
+	}
+
+	/**
+	 * @param i position in settle order
+	 * @return the settled vertex
+	 */
+	public V vertex(int i) {
+		return graph.vertex(vertices[i]);
+	}
+
+	/**
+	 * @param i position in settle order
+	 * @return cost of the settled vertex
+	 */
+	public float cost(int i) {
+		return costs[i];
+	}
+
+	/**
+	 * @return {@code false} if the search has been stopped by the settled limit, so vertices within the cost limit may
+	 *         be missing
+	 */
+	public boolean isComplete() {
+		return complete;
+	}
+
+	private int position(V v) {
+		int k = Arrays.binarySearch(sortedVertices, graph.id(v));
+		return k < 0 ? -1 : positions[k];
+	}
+
+	public boolean contains(V v) {
+		return position(v) != -1;
+	}
+
+	/**
+	 * @param v a vertex
+	 * @return cost of the vertex or {@code Float.POSITIVE_INFINITY} if it is not contained
+	 */
+	public float cost(V v) {
+		int i = position(v);
+		return i == -1 ? Float.POSITIVE_INFINITY : costs[i];
+	}
+
+	/**
+	 * @param v a vertex
+	 * @return vertices on the shortest path from the source to the given vertex or an empty list if the vertex is not
+	 *         contained
+	 */
+	public List<V> path(V v) {
+		int i = position(v);
+		if (i == -1) {
+			return List.of();
+		}
+		var path = new ArrayList<V>();
+		path.add(graph.vertex(vertices[i]));
+		for (int u = parents[i]; u != SearchState.NO_PARENT; u = parents[position(graph.vertex(u))]) {
+			path.add(graph.vertex(u));
+		}
+		Collections.reverse(path);
+		return path;
+	}
+}
@@ -0,0 +1,75 @@
+/*
+MIT License
+
+Copyright (c) 2022 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+package de.amr.routeplanner.graph.search;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import de.amr.routeplanner.graph.Vertex;
+
+/**
+ * Thread-safe counters for the number of queries and settled vertices of a search engine.
+ *
+ * @author Armin Reichert
+ */
+public class SearchCounters {
+
+	private final LongAdder queries = new LongAdder();
+	private final LongAdder settled = new LongAdder();
+
+	/**
+	 * Adds the result of a query to the counters.
+	 * 
+	 * @param path query result
+	 * @return the given query result
+	 */
+	public <V extends Vertex> ShortestPath<V> record(ShortestPath<V> path) {
+		queries.increment();
+		settled.add(path.settledCount());
+		return path;
+	}
+
+	public long queries() {
+		return queries.sum();
+	}
+
+	public long settled() {
+		return settled.sum();
+	}
+
+	public double averageSettled() {
+		long n = queries();
+		return n == 0 ? 0 : (double) settled() / n;
+	}
+
+	public void reset() {
+		queries.reset();
+		settled.reset();
+	}
+
+	@Override
+	public String toString() {
+		return "[queries=%d settled=%d avg=%.1f]".formatted(queries(), settled(), averageSettled());
+	}
+}
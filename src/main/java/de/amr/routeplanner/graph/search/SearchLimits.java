@@ -0,0 +1,64 @@
+/*
+MIT License
+
+Copyright (c) 2022 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+package de.amr.routeplanner.graph.search;
+
+/**
+ * Limits for a bounded search. The search stops as soon as the next vertex to settle would exceed the cost limit or
+ * when the given number of vertices has been settled.
+ *
+ * @param maxCost    maximum cost of a settled vertex
+ * @param maxSettled maximum number of settled vertices
+ * 
+ * @author Armin Reichert
+ */
+public record SearchLimits(float maxCost, int maxSettled) {
+
+	public static final SearchLimits NONE = new SearchLimits(Float.POSITIVE_INFINITY, Integer.MAX_VALUE);
+
+	/**
+	 * @param maxCost maximum cost of a settled vertex
+	 * @return limits with the given cost limit and no settled limit
+	 */
+	public static SearchLimits ofCost(float maxCost) {
+		return new SearchLimits(maxCost, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * @param maxSettled maximum number of settled vertices
+	 * @return limits with the given settled limit and no cost limit
+	 */
+	public static SearchLimits ofSettled(int maxSettled) {
+		return new SearchLimits(Float.POSITIVE_INFINITY, maxSettled);
+	}
+
+	public SearchLimits {
+		if (!(maxCost >= 0)) {
+			throw new IllegalArgumentException("Cost limit must be non-negative but is %f".formatted(maxCost));
+		}
+		if (maxSettled < 1) {
+			throw new IllegalArgumentException("Settled limit must be positive but is %d".formatted(maxSettled));
+		}
+	}
+}
@@ -34,6 +34,7 @@ public class SearchNode<V extends Vertex> {
 	public SearchNode<V> parent;
 	public float cost;
 	public boolean visited;
+	int heapIndex = -1;
 
 	public SearchNode(V vertex) {
 		this.vertex = vertex;
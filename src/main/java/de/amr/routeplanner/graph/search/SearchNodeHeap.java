@@ -0,0 +1,151 @@
+/*
+MIT License
+
+Copyright (c) 2022 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+package de.amr.routeplanner.graph.search;
+
+import java.util.Arrays;
+
+import de.amr.routeplanner.graph.Vertex;
+
+/**
+ * Indexed d-ary min-heap of search nodes. Each node stores its slot inside the heap, so decreasing the key of a node
+ * is a simple sift-up in O(log n) time instead of the O(n) removal needed by {@link SearchNodeMinPQ}.
+ *
+ * @author Armin Reichert
+ */
+public class SearchNodeHeap<V extends Vertex> implements SearchNodeQueue<V> {
+
+	public static final int DEFAULT_ARITY = 4;
+
+	private final int arity;
+	private SearchNode<V>[] heap;
+	private int size;
+
+	public SearchNodeHeap() {
+		this(DEFAULT_ARITY);
+	}
+
+	@SuppressWarnings("unchecked")
+	public SearchNodeHeap(int arity) {
+		if (arity < 2) {
+			throw new IllegalArgumentException("Heap arity must be at least 2 but is %d".formatted(arity));
+		}
+		this.arity = arity;
+		this.heap = (SearchNode<V>[]) new SearchNode<?>[16];
+	}
+
+	public int arity() {
+		return arity;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public SearchNode<V> extractMin() {
+		if (size == 0) {
+			return null;
+		}
+		var min = heap[0];
+		min.heapIndex = -1;
+		--size;
+		if (size > 0) {
+			heap[0] = heap[size];
+			heap[0].heapIndex = 0;
+			siftDown(0);
+		}
+		heap[size] = null;
+		return min;
+	}
+
+	@Override
+	public void insert(SearchNode<V> node) {
+		if (node.heapIndex != -1) {
+			throw new IllegalStateException("Node %s is already contained in heap".formatted(node));
+		}
+		if (size == heap.length) {
+			heap = Arrays.copyOf(heap, 2 * size);
+		}
+		heap[size] = node;
+		node.heapIndex = size;
+		++size;
+		siftUp(size - 1);
+	}
+
+	@Override
+	public void decreaseKey(SearchNode<V> node) {
+		if (node.heapIndex == -1) {
+			insert(node);
+		} else {
+			siftUp(node.heapIndex);
+		}
+	}
+
+	private void siftUp(int i) {
+		var node = heap[i];
+		while (i > 0) {
+			int parent = (i - 1) / arity;
+			if (heap[parent].cost <= node.cost) {
+				break;
+			}
+			heap[i] = heap[parent];
+			heap[i].heapIndex = i;
+			i = parent;
+		}
+		heap[i] = node;
+		node.heapIndex = i;
+	}
+
+	private void siftDown(int i) {
+		var node = heap[i];
+		while (true) {
+			int first = arity * i + 1;
+			if (first >= size) {
+				break;
+			}
+			int last = Math.min(first + arity, size);
+			int min = first;
+			for (int child = first + 1; child < last; ++child) {
+				if (heap[child].cost < heap[min].cost) {
+					min = child;
+				}
+			}
+			if (heap[min].cost >= node.cost) {
+				break;
+			}
+			heap[i] = heap[min];
+			heap[i].heapIndex = i;
+			i = min;
+		}
+		heap[i] = node;
+		node.heapIndex = i;
+	}
+}
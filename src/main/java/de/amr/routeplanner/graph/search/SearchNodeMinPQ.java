@@ -34,7 +34,7 @@ import de.amr.routeplanner.graph.Vertex;
 /**
  * @author Armin Reichert
  */
-public class SearchNodeMinPQ<V extends Vertex> {
+public class SearchNodeMinPQ<V extends Vertex> implements SearchNodeQueue<V> {
 
 	private static final Logger LOGGER = LogManager.getFormatterLogger();
 
@@ -44,21 +44,35 @@ public class SearchNodeMinPQ<V extends Vertex> {
 		pq = new PriorityQueue<>((u, v) -> Float.compare(u.cost, v.cost));
 	}
 
+	@Override
 	public boolean isEmpty() {
 		return pq.isEmpty(); // constant time
 	}
 
+	@Override
+	public int size() {
+		return pq.size();
+	}
+
+	@Override
 	public SearchNode<V> extractMin() {
 		var min = pq.poll(); // log(n) time
 		LOGGER.trace(() -> "Extract min: %s".formatted(min));
 		return min;
 	}
 
+	@Override
 	public void insert(SearchNode<V> v) {
 		pq.add(v); // log(n) time
 		LOGGER.trace(() -> "Insert: %s".formatted(v));
 	}
 
+	@Override
+	public void decreaseKey(SearchNode<V> v) {
+		remove(v); // if vertex not in queue, does nothing
+		insert(v);
+	}
+
 	public void remove(SearchNode<V> v) {
 		boolean removed = pq.remove(v); // O(n) time
 		if (removed) {
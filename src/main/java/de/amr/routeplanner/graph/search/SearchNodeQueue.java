@@ -0,0 +1,54 @@
+/*
+MIT License
+
+Copyright (c) 2022 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+package de.amr.routeplanner.graph.search;
+
+import de.amr.routeplanner.graph.Vertex;
+
+/**
+ * Priority queue of search nodes ordered by their cost.
+ * 
+ * @author Armin Reichert
+ */
+public interface SearchNodeQueue<V extends Vertex> {
+
+	boolean isEmpty();
+
+	int size();
+
+	/**
+	 * @return node with minimum cost or {@code null} if the queue is empty
+	 */
+	SearchNode<V> extractMin();
+
+	void insert(SearchNode<V> node);
+
+	/**
+	 * Must be called after the cost of the given node has been lowered. If the node is not yet contained in the queue,
+	 * it is inserted.
+	 * 
+	 * @param node node whose cost has been lowered
+	 */
+	void decreaseKey(SearchNode<V> node);
+}
@@ -0,0 +1,195 @@
+/*
+MIT License
+
+Copyright (c) 2022 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+package de.amr.routeplanner.graph.search;
+
+import java.util.Arrays;
+
+import de.amr.routeplanner.graph.Vertex;
+
+/**
+ * Radix heap of search nodes. A radix heap is a monotone priority queue: the key of an inserted node must not be
+ * smaller than the key of the last extracted node, which is always the case in Dijkstra's algorithm with non-negative
+ * edge costs. Bucket {@code i} holds the nodes whose key differs from the last extracted key first in bit {@code i-1},
+ * so insertion and decrease-key are constant time operations and each node moves to a lower bucket at most 32 times.
+ * <p>
+ * By default, the key of a node is the bit pattern of its (non-negative) float cost, which has the same order as the
+ * cost itself, so the queue is exact. Optionally the costs can be quantized to multiples of a given quantum. Nodes
+ * whose costs fall into the same quantum are then extracted in arbitrary order, which still gives exact results if the
+ * quantum is not larger than the smallest edge cost (as in Dial's algorithm).
+ * <p>
+ * Decreasing the key of a node adds another entry for the node. Entries whose key no longer matches the cost of their
+ * node are dropped on extraction.
+ *
+ * @see <a href="https://doi.org/10.1145/77600.77615">Ahuja, Mehlhorn, Orlin, Tarjan: Faster Algorithms for the Shortest
+ *      Path Problem</a>
+ * 
+ * @author Armin Reichert
+ */
+public class SearchNodeRadixHeap<V extends Vertex> implements SearchNodeQueue<V> {
+
+	private static final int NUM_BUCKETS = 33;
+
+	private static class Bucket<V extends Vertex> {
+		@SuppressWarnings("unchecked")
+		SearchNode<V>[] nodes = (SearchNode<V>[]) new SearchNode<?>[4];
+		int[] keys = new int[4];
+		int size;
+
+		void add(SearchNode<V> node, int key) {
+			if (size == nodes.length) {
+				nodes = Arrays.copyOf(nodes, 2 * size);
+				keys = Arrays.copyOf(keys, 2 * size);
+			}
+			nodes[size] = node;
+			keys[size] = key;
+			++size;
+		}
+	}
+
+	private final float quantum;
+	private final Bucket<V>[] buckets;
+	private int lastKey;
+	private int size;
+
+	/**
+	 * Creates an exact radix heap.
+	 */
+	public SearchNodeRadixHeap() {
+		this(0);
+	}
+
+	/**
+	 * @param quantum cost quantum, 0 for exact keys
+	 */
+	@SuppressWarnings("unchecked")
+	public SearchNodeRadixHeap(float quantum) {
+		if (!(quantum >= 0) || quantum == Float.POSITIVE_INFINITY) {
+			throw new IllegalArgumentException("Quantum must be non-negative and finite but is %f".formatted(quantum));
+		}
+		this.quantum = quantum;
+		buckets = (Bucket<V>[]) new Bucket<?>[NUM_BUCKETS];
+		for (int i = 0; i < NUM_BUCKETS; ++i) {
+			buckets[i] = new Bucket<>();
+		}
+	}
+
+	public float quantum() {
+		return quantum;
+	}
+
+	private int key(float cost) {
+		if (!(cost >= 0)) {
+			throw new IllegalArgumentException("Cost must be non-negative but is %f".formatted(cost));
+		}
+		if (quantum == 0) {
+			return Float.floatToIntBits(cost);
+		}
+		return (int) Math.min(Integer.MAX_VALUE, Math.floor(cost / quantum));
+	}
+
+	private int bucketIndex(int key) {
+		return 32 - Integer.numberOfLeadingZeros(key ^ lastKey);
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public void insert(SearchNode<V> node) {
+		if (node.heapIndex != -1) {
+			throw new IllegalStateException("Node %s is already contained in heap".formatted(node));
+		}
+		node.heapIndex = 0; // marks the node as contained
+		++size;
+		push(node);
+	}
+
+	@Override
+	public void decreaseKey(SearchNode<V> node) {
+		if (node.heapIndex == -1) {
+			insert(node);
+		} else {
+			push(node);
+		}
+	}
+
+	private void push(SearchNode<V> node) {
+		int key = key(node.cost);
+		if (key < lastKey) {
+			throw new IllegalStateException(
+					"Radix heap keys must be monotone: cost %f is smaller than the last extracted cost".formatted(node.cost));
+		}
+		buckets[bucketIndex(key)].add(node, key);
+	}
+
+	@Override
+	public SearchNode<V> extractMin() {
+		while (size > 0) {
+			var bucket = buckets[0];
+			if (bucket.size == 0) {
+				redistribute();
+			}
+			--bucket.size;
+			var node = bucket.nodes[bucket.size];
+			int key = bucket.keys[bucket.size];
+			bucket.nodes[bucket.size] = null;
+			if (node.heapIndex != -1 && key == key(node.cost)) {
+				node.heapIndex = -1;
+				--size;
+				return node;
+			}
+			// stale entry of a node whose key has been decreased or that has been extracted already
+		}
+		return null;
+	}
+
+	/**
+	 * Moves the entries of the first non-empty bucket into lower buckets relative to their minimum key.
+	 */
+	private void redistribute() {
+		int i = 1;
+		while (buckets[i].size == 0) {
+			++i;
+		}
+		var bucket = buckets[i];
+		int minKey = Integer.MAX_VALUE;
+		for (int k = 0; k < bucket.size; ++k) {
+			minKey = Math.min(minKey, bucket.keys[k]);
+		}
+		lastKey = minKey;
+		for (int k = 0; k < bucket.size; ++k) {
+			buckets[bucketIndex(bucket.keys[k])].add(bucket.nodes[k], bucket.keys[k]);
+			bucket.nodes[k] = null;
+		}
+		bucket.size = 0;
+	}
+}
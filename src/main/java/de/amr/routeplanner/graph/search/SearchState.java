@@ -0,0 +1,186 @@
+/*
+MIT License
+
+Copyright (c) 2022 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+package de.amr.routeplanner.graph.search;
+
+import java.util.Arrays;
+
+/**
+ * Search state stored in parallel primitive arrays indexed by the dense vertex index (see
+ * {@link de.amr.routeplanner.graph.Vertex#id()}): the cost of the best known path and the parent index on that path.
+ * Together with the contained {@link IntMinHeap} a search over a {@link de.amr.routeplanner.graph.CsrGraph} runs
+ * without allocating any objects.
+ * <p>
+ * A search state is meant to be reused for many queries (see {@link SearchStatePool}). Instead of clearing the arrays
+ * before each query, every slot carries a generation stamp and is only valid if its stamp belongs to the current
+ * generation. Therefore {@link #reset()} takes time proportional to the size of the open list of the previous query,
+ * not to the number of vertices.
+ * <p>
+ * The visited (settled) vertices are also recorded in the order of their visit, so searches that need the settle order
+ * can read it from the state instead of running their own copy of the search loop.
+ *
+ * @author Armin Reichert
+ */
+public class SearchState {
+
+	public static final int NO_PARENT = -1;
+
+	// stamp == generation: reached, stamp == generation + 1: visited, anything smaller: unreached
+	private static final int FIRST_GENERATION = 2;
+
+	final float[] cost;
+	final int[] parent;
+	final int[] stamp;
+	final int[] settled;
+	final IntMinHeap open;
+	private int generation;
+	private int visitedCount;
+
+	public SearchState(int numVertices) {
+		cost = new float[numVertices];
+		parent = new int[numVertices];
+		stamp = new int[numVertices];
+		settled = new int[numVertices];
+		open = new IntMinHeap(numVertices);
+		generation = FIRST_GENERATION;
+	}
+
+	public int capacity() {
+		return cost.length;
+	}
+
+	/**
+	 * Resets all vertices to "unreached" and clears the open list by starting a new generation.
+	 */
+	public void reset() {
+		open.clear();
+		visitedCount = 0;
+		if (generation >= Integer.MAX_VALUE - 2) {
+			Arrays.fill(stamp, 0);
+			generation = FIRST_GENERATION;
+		} else {
+			generation += 2;
+		}
+	}
+
+	public boolean isReached(int u) {
+		return stamp[u] >= generation;
+	}
+
+	public float cost(int u) {
+		return stamp[u] >= generation ? cost[u] : Float.POSITIVE_INFINITY;
+	}
+
+	public int parent(int u) {
+		return stamp[u] >= generation ? parent[u] : NO_PARENT;
+	}
+
+	public boolean isVisited(int u) {
+		return stamp[u] == generation + 1;
+	}
+
+	/**
+	 * Marks the vertex as visited (settled). A vertex must be visited at most once per generation.
+	 * 
+	 * @param u vertex index
+	 */
+	public void setVisited(int u) {
+		stamp[u] = generation + 1;
+		settled[visitedCount++] = u;
+	}
+
+	/**
+	 * @return number of vertices visited (settled) since the last reset
+	 */
+	public int visitedCount() {
+		return visitedCount;
+	}
+
+	/**
+	 * @param i visit position, {@code 0 <= i < visitedCount()}
+	 * @return the {@code i}-th visited vertex since the last reset
+	 */
+	public int visitedVertex(int i) {
+		return settled[i];
+	}
+
+	/**
+	 * Records a new best path to the unvisited vertex {@code u} and inserts {@code u} into the open list or lowers its
+	 * key.
+	 * 
+	 * @param u      vertex index
+	 * @param cost   cost of the new path
+	 * @param parent parent vertex index on the new path
+	 */
+	public void reach(int u, float cost, int parent) {
+		this.cost[u] = cost;
+		this.parent[u] = parent;
+		stamp[u] = generation;
+		open.insertOrDecrease(u, cost);
+	}
+
+	/**
+	 * Like {@link #reach(int, float, int)} but uses the given key instead of the cost for ordering the open list, as
+	 * needed by goal-directed searches.
+	 * 
+	 * @param u      vertex index
+	 * @param cost   cost of the new path
+	 * @param parent parent vertex index on the new path
+	 * @param key    key of the vertex in the open list
+	 */
+	public void reach(int u, float cost, int parent, float key) {
+		this.cost[u] = cost;
+		this.parent[u] = parent;
+		stamp[u] = generation;
+		open.insertOrDecrease(u, key);
+	}
+
+	public IntMinHeap open() {
+		return open;
+	}
+
+	/**
+	 * @param numVertices number of vertices of the searched graph
+	 * @return copy of the cost array for the first {@code numVertices} vertices
+	 */
+	public float[] copyCosts(int numVertices) {
+		var copy = new float[numVertices];
+		for (int u = 0; u < numVertices; ++u) {
+			copy[u] = cost(u);
+		}
+		return copy;
+	}
+
+	/**
+	 * @param numVertices number of vertices of the searched graph
+	 * @return copy of the parent array for the first {@code numVertices} vertices
+	 */
+	public int[] copyParents(int numVertices) {
+		var copy = new int[numVertices];
+		for (int u = 0; u < numVertices; ++u) {
+			copy[u] = parent(u);
+		}
+		return copy;
+	}
+}
\ No newline at end of file
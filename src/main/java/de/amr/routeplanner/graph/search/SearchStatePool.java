@@ -0,0 +1,87 @@
+/*
+MIT License
+
+Copyright (c) 2022 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+package de.amr.routeplanner.graph.search;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread-safe pool of reusable search states. A state is taken with {@link #acquire(int)} and must be given back with
+ * {@link #release(SearchState)} when the query is finished. Because of the generation stamps, handing out a pooled
+ * state does not require clearing its arrays.
+ *
+ * @author Armin Reichert
+ */
+public class SearchStatePool {
+
+	public static final int DEFAULT_MAX_IDLE = 64;
+
+	private final ConcurrentLinkedQueue<SearchState> idle = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger idleCount = new AtomicInteger();
+	private final int maxIdle;
+
+	public SearchStatePool() {
+		this(DEFAULT_MAX_IDLE);
+	}
+
+	/**
+	 * @param maxIdle maximum number of idle states kept by this pool
+	 */
+	public SearchStatePool(int maxIdle) {
+		this.maxIdle = maxIdle;
+	}
+
+	/**
+	 * @param numVertices number of vertices of the graph to be searched
+	 * @return a reset search state with at least the given capacity
+	 */
+	public SearchState acquire(int numVertices) {
+		SearchState state;
+		while ((state = idle.poll()) != null) {
+			idleCount.decrementAndGet();
+			if (state.capacity() >= numVertices) {
+				state.reset();
+				return state;
+			}
+			// too small for this graph, drop it
+		}
+		return new SearchState(numVertices);
+	}
+
+	public void release(SearchState state) {
+		if (idleCount.incrementAndGet() <= maxIdle) {
+			idle.offer(state);
+		} else {
+			idleCount.decrementAndGet();
+		}
+	}
+
+	/**
+	 * @return number of idle states currently held by this pool
+	 */
+	public int idleCount() {
+		return idleCount.get();
+	}
+}
@@ -0,0 +1,143 @@
+/*
+MIT License
+
+Copyright (c) 2022 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+package de.amr.routeplanner.graph.search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.IntFunction;
+
+import de.amr.routeplanner.graph.CsrGraph;
+import de.amr.routeplanner.graph.Vertex;
+
+/**
+ * Result of a point-to-point query: the vertices on the path together with the cost of reaching each of them, and the
+ * number of vertices settled by the search.
+ *
+ * @author Armin Reichert
+ */
+public final class ShortestPath<V extends Vertex> {
+
+	/**
+	 * @param settledCount number of vertices settled by the search
+	 * @return result for a query whose goal is not reachable from the source
+	 */
+	public static <V extends Vertex> ShortestPath<V> notFound(int settledCount) {
+		return new ShortestPath<>(List.of(), new float[0], settledCount);
+	}
+
+	/**
+	 * Extracts the path to the given goal vertex from the parent pointers of the given search state.
+	 * 
+	 * @param g     searched graph
+	 * @param state search state after the search
+	 * @param goal  index of goal vertex
+	 * @return the path from the search source to the goal or {@link #notFound(int)} if the goal has not been reached
+	 */
+	public static <V extends Vertex> ShortestPath<V> fromState(CsrGraph<V> g, SearchState state, int goal) {
+		return fromState(g::vertex, state, goal);
+	}
+
+	/**
+	 * Like {@link #fromState(CsrGraph, SearchState, int)} for graphs whose vertex indices differ from
+	 * {@link Vertex#id()}.
+	 * 
+	 * @param vertexAt maps the vertex indices used by the search to vertices
+	 * @param state    search state after the search
+	 * @param goal     index of goal vertex
+	 * @return the path from the search source to the goal or {@link #notFound(int)} if the goal has not been reached
+	 */
+	public static <V extends Vertex> ShortestPath<V> fromState(IntFunction<V> vertexAt, SearchState state, int goal) {
+		if (!state.isReached(goal)) {
+			return notFound(state.visitedCount());
+		}
+		int length = 0;
+		for (int u = goal; u != SearchState.NO_PARENT; u = state.parent(u)) {
+			++length;
+		}
+		var vertices = new ArrayList<V>(Collections.nCopies(length, null));
+		var costs = new float[length];
+		int i = length - 1;
+		for (int u = goal; u != SearchState.NO_PARENT; u = state.parent(u), --i) {
+			vertices.set(i, vertexAt.apply(u));
+			costs[i] = state.cost(u);
+		}
+		return new ShortestPath<>(vertices, costs, state.visitedCount());
+	}
+
+	private final List<V> vertices;
+	private final float[] costs;
+	private final int settledCount;
+
+	/**
+	 * @param vertices     vertices on the path from source to goal
+	 * @param costs        cost of the path prefix ending at each vertex, taken over by this object
+	 * @param settledCount number of vertices settled by the search
+	 */
+	public ShortestPath(List<V> vertices, float[] costs, int settledCount) {
+		if (vertices.size() != costs.length) {
+			throw new IllegalArgumentException("Need one cost value per path vertex");
+		}
+		this.vertices = List.copyOf(vertices);
+		this.costs = costs;
+		this.settledCount = settledCount;
+	}
+
+	public boolean isFound() {
+		return !vertices.isEmpty();
+	}
+
+	public List<V> vertices() {
+		return vertices;
+	}
+
+	public int size() {
+		return vertices.size();
+	}
+
+	/**
+	 * @return total cost of the path or {@code Float.POSITIVE_INFINITY} if no path exists
+	 */
+	public float cost() {
+		return costs.length == 0 ? Float.POSITIVE_INFINITY : costs[costs.length - 1];
+	}
+
+	/**
+	 * @param i position on the path
+	 * @return cost of the path from the source to the vertex at the given position
+	 */
+	public float cost(int i) {
+		return costs[i];
+	}
+
+	public int settledCount() {
+		return settledCount;
+	}
+
+	@Override
+	public String toString() {
+		return "ShortestPath[cost=%.2f, vertices=%s, settled=%d]".formatted(cost(), vertices, settledCount);
+	}
+}
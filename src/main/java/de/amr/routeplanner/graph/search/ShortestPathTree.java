@@ -0,0 +1,104 @@
+/*
+MIT License
+
+Copyright (c) 2022 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+package de.amr.routeplanner.graph.search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import de.amr.routeplanner.graph.CsrGraph;
+import de.amr.routeplanner.graph.Vertex;
+
+/**
+ * Immutable result of a one-to-all search: the cost and the parent of every vertex, stored in primitive arrays
+ * indexed by the dense vertex index.
+ *
+ * @author Armin Reichert
+ */
+public final class ShortestPathTree<V extends Vertex> {
+
+	private final CsrGraph<V> graph;
+	private final int source;
+	private final float[] cost;
+	private final int[] parent;
+
+	/**
+	 * @param graph  the searched graph
+	 * @param source index of the source vertex
+	 * @param cost   cost array indexed by vertex index, taken over by this tree
+	 * @param parent parent array indexed by vertex index, taken over by this tree
+	 */
+	public ShortestPathTree(CsrGraph<V> graph, int source, float[] cost, int[] parent) {
+		this.graph = graph;
+		this.source = source;
+		this.cost = cost;
+		this.parent = parent;
+	}
+
+	public CsrGraph<V> graph() {
+		return graph;
+	}
+
+	public V source() {
+		return graph.vertex(source);
+	}
+
+	/**
+	 * @param v a vertex
+	 * @return cost of the shortest path from the source to the vertex, {@code Float.POSITIVE_INFINITY} if unreachable
+	 */
+	public float cost(V v) {
+		return cost[graph.id(v)];
+	}
+
+	public float cost(int u) {
+		return cost[u];
+	}
+
+	public int parent(int u) {
+		return parent[u];
+	}
+
+	public boolean isReachable(V v) {
+		return cost(v) != Float.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * @param goal goal vertex
+	 * @return vertices on the shortest path from the source to the goal or an empty list if the goal is unreachable
+	 */
+	public List<V> path(V goal) {
+		int u = graph.id(goal);
+		if (cost[u] == Float.POSITIVE_INFINITY) {
+			return List.of();
+		}
+		var path = new ArrayList<V>();
+		for (; u != SearchState.NO_PARENT; u = parent[u]) {
+			path.add(graph.vertex(u));
+		}
+		Collections.reverse(path);
+		return path;
+	}
+}
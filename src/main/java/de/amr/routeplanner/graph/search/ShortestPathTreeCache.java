@@ -0,0 +1,155 @@
+/*
+MIT License
+
+Copyright (c) 2022 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+package de.amr.routeplanner.graph.search;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+import de.amr.routeplanner.graph.CsrGraph;
+import de.amr.routeplanner.graph.Vertex;
+
+/**
+ * Bounded cache of shortest path trees keyed by graph snapshot version (see {@link CsrGraph#version()}) and source
+ * vertex. When the cache is full, the least recently used tree is evicted. Each tree needs 8 bytes per graph vertex,
+ * so the capacity should be chosen with the graph size in mind. Trees of outdated graph snapshots are never hit again
+ * and eventually get evicted.
+ * <p>
+ * All methods are thread-safe. Trees are computed outside the lock, so two threads missing the same key at the same
+ * time may both compute the tree.
+ *
+ * @author Armin Reichert
+ */
+public class ShortestPathTreeCache<V extends Vertex> {
+
+	public static final int DEFAULT_CAPACITY = 64;
+
+	private record Key(long graphVersion, int source) {
+	}
+
+	private final int capacity;
+	private final LinkedHashMap<Key, ShortestPathTree<V>> trees;
+	private long hits;
+	private long misses;
+	private long evictions;
+
+	public ShortestPathTreeCache() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * @param capacity maximum number of cached trees
+	 */
+	public ShortestPathTreeCache(int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Cache capacity must be positive but is %d".formatted(capacity));
+		}
+		this.capacity = capacity;
+		trees = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, ShortestPathTree<V>> eldest) {
+				if (size() > ShortestPathTreeCache.this.capacity) {
+					++evictions;
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * @param g      CSR graph
+	 * @param source source vertex
+	 * @return the cached tree for the given graph snapshot and source or {@code null}
+	 */
+	public synchronized ShortestPathTree<V> get(CsrGraph<V> g, V source) {
+		var tree = trees.get(new Key(g.version(), g.id(source)));
+		if (tree != null) {
+			++hits;
+		} else {
+			++misses;
+		}
+		return tree;
+	}
+
+	public synchronized void put(ShortestPathTree<V> tree) {
+		var g = tree.graph();
+		trees.put(new Key(g.version(), g.id(tree.source())), tree);
+	}
+
+	/**
+	 * @param g       CSR graph
+	 * @param source  source vertex
+	 * @param compute computes the tree on a cache miss
+	 * @return the cached or computed tree
+	 */
+	public ShortestPathTree<V> computeIfAbsent(CsrGraph<V> g, V source,
+			BiFunction<CsrGraph<V>, V, ShortestPathTree<V>> compute) {
+		var tree = get(g, source);
+		if (tree == null) {
+			tree = compute.apply(g, source);
+			put(tree);
+		}
+		return tree;
+	}
+
+	public synchronized void clear() {
+		trees.clear();
+	}
+
+	public int capacity() {
+		return capacity;
+	}
+
+	public synchronized int size() {
+		return trees.size();
+	}
+
+	public synchronized long hits() {
+		return hits;
+	}
+
+	public synchronized long misses() {
+		return misses;
+	}
+
+	public synchronized long evictions() {
+		return evictions;
+	}
+
+	/**
+	 * @return fraction of lookups answered from the cache, 0 if there has been no lookup yet
+	 */
+	public synchronized double hitRate() {
+		long lookups = hits + misses;
+		return lookups == 0 ? 0 : (double) hits / lookups;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "ShortestPathTreeCache[size=%d/%d, hits=%d, misses=%d, evictions=%d]".formatted(trees.size(), capacity,
+				hits, misses, evictions);
+	}
+}
@@ -0,0 +1,459 @@
+/*
+MIT License
+
+Copyright (c) 2022 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+package de.amr.routeplanner.model;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Parser for the text map format working directly on the bytes of the file (see
+ * {@link RoadMapReader.Mode#STREAMING}).
+ * <p>
+ * A first sequential pass over the lines parses the locations and cuts the road sections into chunks of about
+ * {@link #CHUNK_SIZE} bytes, remembering the line number at which each chunk starts. The chunks are parsed in parallel
+ * into primitive arrays: point keys are looked up by hashing the key bytes, numbers are parsed without creating
+ * strings. Finally, the roads are added to the map in file order, and the errors are reported with their line numbers.
+ * Roads may refer to locations defined anywhere in the file.
+ *
+ * @author Armin Reichert
+ */
+class FastRoadMapParser {
+
+	private static final Logger LOGGER = LogManager.getFormatterLogger();
+
+	static final int CHUNK_SIZE = 1 << 20;
+
+	private static final int STATE_READ = 0;
+	private static final int STATE_READ_LOCATIONS = 1;
+	private static final int STATE_READ_ROADS = 2;
+
+	// enough to detect lines with too many fields
+	private static final int MAX_FIELDS = 5;
+
+	private static final double[] POWERS_OF_TEN = new double[23];
+	static {
+		POWERS_OF_TEN[0] = 1;
+		for (int i = 1; i < POWERS_OF_TEN.length; ++i) {
+			POWERS_OF_TEN[i] = 10 * POWERS_OF_TEN[i - 1];
+		}
+	}
+
+	private record Chunk(int start, int end, int firstLine) {
+	}
+
+	/** Roads parsed from one chunk, in file order. */
+	private static class ParsedRoads {
+		int[] from = new int[1024];
+		int[] to = new int[1024];
+		float[] cost = new float[1024];
+		int[] lineNumber = new int[1024];
+		int[] lineStart = new int[1024];
+		int[] lineEnd = new int[1024];
+		int count;
+		final List<String> errors = new ArrayList<>();
+
+		void add(int u, int v, float c, int line, int start, int end) {
+			if (count == from.length) {
+				int capacity = 2 * count;
+				from = Arrays.copyOf(from, capacity);
+				to = Arrays.copyOf(to, capacity);
+				cost = Arrays.copyOf(cost, capacity);
+				lineNumber = Arrays.copyOf(lineNumber, capacity);
+				lineStart = Arrays.copyOf(lineStart, capacity);
+				lineEnd = Arrays.copyOf(lineEnd, capacity);
+			}
+			from[count] = u;
+			to[count] = v;
+			cost[count] = c;
+			lineNumber[count] = line;
+			lineStart[count] = start;
+			lineEnd[count] = end;
+			++count;
+		}
+	}
+
+	/** Open addressing hash table from UTF-8 key bytes to point index. */
+	private static class KeyIndex {
+		private final byte[][] keys;
+		private final int[] slots;
+		private final int mask;
+
+		KeyIndex(List<byte[]> keyList) {
+			keys = keyList.toArray(byte[][]::new);
+			int capacity = Integer.highestOneBit(Math.max(2, 2 * keys.length) - 1) << 1;
+			slots = new int[capacity];
+			mask = capacity - 1;
+			for (int i = 0; i < keys.length; ++i) {
+				int slot = hash(keys[i], 0, keys[i].length) & mask;
+				while (slots[slot] != 0) {
+					slot = (slot + 1) & mask;
+				}
+				slots[slot] = i + 1;
+			}
+		}
+
+		private static int hash(byte[] bytes, int start, int end) {
+			int h = 0x811c9dc5;
+			for (int i = start; i < end; ++i) {
+				h = (h ^ bytes[i]) * 0x01000193;
+			}
+			return h ^ (h >>> 16);
+		}
+
+		private static int hash(ByteBuffer buf, int start, int end) {
+			int h = 0x811c9dc5;
+			for (int i = start; i < end; ++i) {
+				h = (h ^ buf.get(i)) * 0x01000193;
+			}
+			return h ^ (h >>> 16);
+		}
+
+		int find(ByteBuffer buf, int start, int end) {
+			int slot = hash(buf, start, end) & mask;
+			while (slots[slot] != 0) {
+				var key = keys[slots[slot] - 1];
+				if (equalBytes(key, buf, start, end)) {
+					return slots[slot] - 1;
+				}
+				slot = (slot + 1) & mask;
+			}
+			return -1;
+		}
+
+		private static boolean equalBytes(byte[] key, ByteBuffer buf, int start, int end) {
+			if (key.length != end - start) {
+				return false;
+			}
+			for (int i = 0; i < key.length; ++i) {
+				if (key[i] != buf.get(start + i)) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	private final ByteBuffer buf;
+	private final int limit;
+	private final RoadMap map = new RoadMap();
+	private final List<RoadMapPoint> points = new ArrayList<>();
+	private final List<byte[]> keys = new ArrayList<>();
+	private final List<Chunk> chunks = new ArrayList<>();
+	private KeyIndex keyIndex;
+
+	FastRoadMapParser(ByteBuffer buf) {
+		this.buf = buf;
+		this.limit = buf.limit();
+	}
+
+	RoadMap parse() {
+		scanLines();
+		keyIndex = new KeyIndex(keys);
+		var parsed = new ParsedRoads[chunks.size()];
+		IntStream.range(0, parsed.length).parallel().forEach(i -> parsed[i] = parseRoads(chunks.get(i)));
+		for (var roads : parsed) {
+			roads.errors.forEach(LOGGER::error);
+			for (int i = 0; i < roads.count; ++i) {
+				try {
+					map.addEdge(points.get(roads.from[i]), points.get(roads.to[i]), roads.cost[i]);
+				} catch (IllegalArgumentException x) {
+					String line = text(roads.lineStart[i], roads.lineEnd[i]);
+					LOGGER.error("Line %d: '%s': %s".formatted(roads.lineNumber[i], line, x.getMessage()));
+					LOGGER.error("Line '%s' could not be processed successfully".formatted(line));
+				}
+			}
+		}
+		return map;
+	}
+
+	// first pass: parse locations and cut road sections into chunks
+	private void scanLines() {
+		int state = STATE_READ;
+		int chunkStart = -1;
+		int chunkLine = 0;
+		int lineNumber = 0;
+		for (int pos = 0; pos < limit;) {
+			int end = lineEnd(pos);
+			int next = Math.min(end + 1, limit);
+			++lineNumber;
+			int start = trimStart(pos, end);
+			int stop = trimEnd(start, end);
+			if (state == STATE_READ_ROADS && (start == stop || buf.get(start) != '.')) {
+				// road lines are parsed later, including comments and blank lines
+				if (chunkStart == -1) {
+					chunkStart = pos;
+					chunkLine = lineNumber;
+				}
+				if (next - chunkStart >= CHUNK_SIZE) {
+					chunks.add(new Chunk(chunkStart, next, chunkLine));
+					chunkStart = -1;
+				}
+				pos = next;
+				continue;
+			}
+			if (chunkStart != -1) {
+				chunks.add(new Chunk(chunkStart, pos, chunkLine));
+				chunkStart = -1;
+			}
+			if (buf.get(pos) == '#' || start == stop) {
+				// skip line
+			} else {
+				boolean success;
+				if (matches(start, stop, ".locations")) {
+					state = STATE_READ_LOCATIONS;
+					success = true;
+				} else if (matches(start, stop, ".roads")) {
+					state = STATE_READ_ROADS;
+					success = true;
+				} else if (state == STATE_READ_LOCATIONS) {
+					success = parseLocation(start, stop, lineNumber);
+				} else {
+					success = false;
+				}
+				if (!success) {
+					LOGGER.error("Line '%s' could not be processed successfully".formatted(text(pos, end)));
+				}
+			}
+			pos = next;
+		}
+		if (chunkStart != -1) {
+			chunks.add(new Chunk(chunkStart, limit, chunkLine));
+		}
+	}
+
+	private boolean parseLocation(int start, int end, int lineNumber) {
+		// <key> <location name> <latitude> <longitude>
+		var fields = new int[2 * MAX_FIELDS];
+		int numFields = split(start, end, fields);
+		if (numFields != 4) {
+			LOGGER.error("Line %d: '%s': Invalid location spec".formatted(lineNumber, text(start, end)));
+			return false;
+		}
+		float latitude = parseFloat(fields[4], fields[5]);
+		if (Float.isNaN(latitude)) {
+			LOGGER.error("Line %d: '%s': Invalid latitude: '%s'".formatted(lineNumber, text(start, end),
+					text(fields[4], fields[5])));
+			return false;
+		}
+		float longitude = parseFloat(fields[6], fields[7]);
+		if (Float.isNaN(longitude)) {
+			LOGGER.error("Line %d: '%s': Invalid longitude: '%s'".formatted(lineNumber, text(start, end),
+					text(fields[6], fields[7])));
+			return false;
+		}
+		String key = text(fields[0], fields[1]);
+		String name = text(fields[2], fields[3]);
+		try {
+			points.add(map.createAndAddPoint(key, name, latitude, longitude));
+			keys.add(key.getBytes(StandardCharsets.UTF_8));
+			return true;
+		} catch (IllegalArgumentException x) {
+			LOGGER.error("Could not create road map point with key '%s' and name '%s'", key, name);
+			LOGGER.catching(x);
+			return false;
+		}
+	}
+
+	// second pass, runs in parallel: parse the road lines of a chunk
+	private ParsedRoads parseRoads(Chunk chunk) {
+		var roads = new ParsedRoads();
+		var fields = new int[2 * MAX_FIELDS];
+		int lineNumber = chunk.firstLine - 1;
+		for (int pos = chunk.start; pos < chunk.end;) {
+			int end = Math.min(lineEnd(pos), chunk.end);
+			int next = Math.min(end + 1, chunk.end);
+			++lineNumber;
+			int start = trimStart(pos, end);
+			int stop = trimEnd(start, end);
+			if (buf.get(pos) != '#' && start != stop && !parseRoad(start, stop, lineNumber, fields, roads)) {
+				roads.errors.add("Line '%s' could not be processed successfully".formatted(text(pos, end)));
+			}
+			pos = next;
+		}
+		return roads;
+	}
+
+	private boolean parseRoad(int start, int end, int lineNumber, int[] fields, ParsedRoads roads) {
+		// <from> <to> <cost>
+		int numFields = split(start, end, fields);
+		if (numFields != 3) {
+			roads.errors.add("Line %d: '%s': Invalid road spec".formatted(lineNumber, text(start, end)));
+			return false;
+		}
+		int from = keyIndex.find(buf, fields[0], fields[1]);
+		if (from == -1) {
+			roads.errors.add("Line %d: '%s': Undefined road start point: '%s'".formatted(lineNumber, text(start, end),
+					text(fields[0], fields[1])));
+			return false;
+		}
+		int to = keyIndex.find(buf, fields[2], fields[3]);
+		if (to == -1) {
+			roads.errors.add("Line %d: '%s': Undefined road end point: '%s'".formatted(lineNumber, text(start, end),
+					text(fields[2], fields[3])));
+			return false;
+		}
+		float dist = parseFloat(fields[4], fields[5]);
+		if (Float.isNaN(dist)) {
+			roads.errors.add("Line %d: '%s': Invalid distance: '%s'".formatted(lineNumber, text(start, end),
+					text(fields[4], fields[5])));
+			return false;
+		}
+		roads.add(from, to, dist, lineNumber, start, end);
+		return true;
+	}
+
+	/*
+	 * Splits the range at commas like String.split(",") including the removal of trailing empty fields, and stores the
+	 * trimmed bounds of the first MAX_FIELDS fields. Returns the number of fields.
+	 */
+	private int split(int start, int end, int[] fields) {
+		int numFields = 0;
+		int nonEmptyFields = 0;
+		int fieldStart = start;
+		for (int i = start; i <= end; ++i) {
+			if (i == end || buf.get(i) == ',') {
+				if (numFields < MAX_FIELDS) {
+					int s = trimStart(fieldStart, i);
+					fields[2 * numFields] = s;
+					fields[2 * numFields + 1] = trimEnd(s, i);
+				}
+				++numFields;
+				if (i > fieldStart) {
+					nonEmptyFields = numFields;
+				}
+				fieldStart = i + 1;
+			}
+		}
+		return nonEmptyFields;
+	}
+
+	/*
+	 * Parses a decimal number without creating objects and returns Float.NaN if the text is not a number. Numbers that
+	 * cannot be converted exactly this way are passed to Float.parseFloat.
+	 */
+	private float parseFloat(int start, int end) {
+		int i = start;
+		boolean negative = false;
+		if (i < end && (buf.get(i) == '-' || buf.get(i) == '+')) {
+			negative = buf.get(i) == '-';
+			++i;
+		}
+		long mantissa = 0;
+		int digits = 0;
+		int exponent = 0;
+		for (; i < end && isDigit(buf.get(i)); ++i) {
+			mantissa = 10 * mantissa + (buf.get(i) - '0');
+			++digits;
+		}
+		if (i < end && buf.get(i) == '.') {
+			for (++i; i < end && isDigit(buf.get(i)); ++i) {
+				mantissa = 10 * mantissa + (buf.get(i) - '0');
+				++digits;
+				--exponent;
+			}
+		}
+		if (i != end || digits == 0 || digits > 18 || -exponent >= POWERS_OF_TEN.length) {
+			return parseFloatSlow(start, end);
+		}
+		double value = exponent == 0 ? mantissa : mantissa / POWERS_OF_TEN[-exponent];
+		if (mantissa >= 1L << 53 || isFloatRoundingTie(value)) {
+			return parseFloatSlow(start, end);
+		}
+		return (float) (negative ? -value : value);
+	}
+
+	/*
+	 * The double value is the correctly rounded value of the decimal number, so rounding it to float gives the correctly
+	 * rounded float unless it lies exactly between two floats or is outside the normal float range.
+	 */
+	private static boolean isFloatRoundingTie(double value) {
+		if (value == 0) {
+			return false;
+		}
+		if (value < Float.MIN_NORMAL || value > Float.MAX_VALUE) {
+			return true;
+		}
+		long bits = Double.doubleToRawLongBits(value);
+		return (bits & 0x1fffffffL) == 0x10000000L;
+	}
+
+	private float parseFloatSlow(int start, int end) {
+		try {
+			return Float.parseFloat(text(start, end));
+		} catch (NumberFormatException x) {
+			return Float.NaN;
+		}
+	}
+
+	private static boolean isDigit(byte b) {
+		return b >= '0' && b <= '9';
+	}
+
+	private int lineEnd(int pos) {
+		while (pos < limit && buf.get(pos) != '\n') {
+			++pos;
+		}
+		return pos;
+	}
+
+	private int trimStart(int start, int end) {
+		while (start < end && (buf.get(start) & 0xff) <= ' ') {
+			++start;
+		}
+		return start;
+	}
+
+	private int trimEnd(int start, int end) {
+		while (end > start && (buf.get(end - 1) & 0xff) <= ' ') {
+			--end;
+		}
+		return end;
+	}
+
+	private boolean matches(int start, int end, String s) {
+		if (end - start != s.length()) {
+			return false;
+		}
+		for (int i = 0; i < s.length(); ++i) {
+			if (buf.get(start + i) != s.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private String text(int start, int end) {
+		var bytes = new byte[end - start];
+		buf.get(start, bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
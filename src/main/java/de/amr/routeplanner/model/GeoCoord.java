@@ -29,8 +29,33 @@ package de.amr.routeplanner.model;
  *
  */
 public record GeoCoord(float latitude, float longitude) {
-	// the so called "compact constructor"
-	public GeoCoord {
+
+	/** Mean earth radius in kilometers. */
+	public static final double EARTH_RADIUS_KM = 6371.0;
+
+	/**
+	 * Computes the great-circle distance of two points using the haversine formula.
+	 * 
+	 * @param lat1 latitude of first point in degrees
+	 * @param lon1 longitude of first point in degrees
+	 * @param lat2 latitude of second point in degrees
+	 * @param lon2 longitude of second point in degrees
+	 * @return great-circle distance in kilometers
+	 */
+	public static double haversineKm(double lat1, double lon1, double lat2, double lon2) {
+		double sinHalfDLat = Math.sin(Math.toRadians(lat2 - lat1) / 2);
+		double sinHalfDLon = Math.sin(Math.toRadians(lon2 - lon1) / 2);
+		double h = sinHalfDLat * sinHalfDLat
+				+ Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * sinHalfDLon * sinHalfDLon;
+		return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(h)));
+	}
+
+	/**
+	 * @param latitude  latitude in degrees
+	 * @param longitude longitude in degrees
+	 * @throws IllegalArgumentException if a value is out of range
+	 */
+	public static void checkRange(float latitude, float longitude) {
 		if (latitude < -90 || latitude > 90) {
 			throw new IllegalArgumentException("Latitude must be in range [-90, 90] but is %f".formatted(latitude));
 		}
@@ -38,4 +63,17 @@ public record GeoCoord(float latitude, float longitude) {
 			throw new IllegalArgumentException("Longitude must be in range [-180, 180] but is %f".formatted(longitude));
 		}
 	}
+
+	// the so called "compact constructor"
+	public GeoCoord {
+		checkRange(latitude, longitude);
+	}
+
+	/**
+	 * @param other other coordinate
+	 * @return great-circle distance to the other coordinate in kilometers
+	 */
+	public double distanceKm(GeoCoord other) {
+		return haversineKm(latitude, longitude, other.latitude, other.longitude);
+	}
 }
\ No newline at end of file
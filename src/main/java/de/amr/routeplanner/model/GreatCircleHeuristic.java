@@ -0,0 +1,107 @@
+/*
+MIT License
+
+Copyright (c) 2022 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+package de.amr.routeplanner.model;
+
+import de.amr.routeplanner.graph.CsrGraph;
+import de.amr.routeplanner.graph.search.Heuristic;
+
+/**
+ * A* heuristic estimating the remaining road distance by the great-circle (haversine) distance to the goal. The
+ * coordinates of all road map points are converted to radians and stored in primitive arrays once.
+ * <p>
+ * The straight-line distance is a lower bound of the road distance only if no road is shorter than the great-circle
+ * distance of its end points. Map data with coarse coordinates can violate this, therefore the estimate is multiplied
+ * by a scale factor. {@link #consistentScale(CsrGraph)} computes the largest factor that keeps the heuristic
+ * consistent for a given map.
+ *
+ * @author Armin Reichert
+ */
+public class GreatCircleHeuristic implements Heuristic {
+
+	/**
+	 * @param g road map graph
+	 * @return largest factor {@code <= 1} such that for every road the scaled great-circle distance of its end points
+	 *         does not exceed its length
+	 */
+	public static float consistentScale(CsrGraph<RoadMapPoint> g) {
+		double scale = 1;
+		for (int u = 0; u < g.numVertices(); ++u) {
+			var from = g.vertex(u);
+			for (int e = g.firstEdge(u); e < g.endEdge(u); ++e) {
+				var to = g.vertex(g.target(e));
+				double dist = GeoCoord.haversineKm(from.latitude(), from.longitude(), to.latitude(), to.longitude());
+				if (dist > 0 && g.cost(e) < scale * dist) {
+					scale = g.cost(e) / dist;
+				}
+			}
+		}
+		// round down a little bit to be safe against rounding errors of float arithmetic
+		return (float) (scale * 0.999);
+	}
+
+	private final double[] latRad;
+	private final double[] lonRad;
+	private final double[] cosLat;
+	private final double scale;
+
+	/**
+	 * Creates a heuristic with a scale factor that is consistent for the given graph.
+	 * 
+	 * @param g road map graph
+	 */
+	public GreatCircleHeuristic(CsrGraph<RoadMapPoint> g) {
+		this(g, consistentScale(g));
+	}
+
+	/**
+	 * @param g     road map graph
+	 * @param scale factor applied to the great-circle distance
+	 */
+	public GreatCircleHeuristic(CsrGraph<RoadMapPoint> g, float scale) {
+		int n = g.numVertices();
+		latRad = new double[n];
+		lonRad = new double[n];
+		cosLat = new double[n];
+		for (int u = 0; u < n; ++u) {
+			var point = g.vertex(u);
+			latRad[u] = Math.toRadians(point.latitude());
+			lonRad[u] = Math.toRadians(point.longitude());
+			cosLat[u] = Math.cos(latRad[u]);
+		}
+		this.scale = scale;
+	}
+
+	public float scale() {
+		return (float) scale;
+	}
+
+	@Override
+	public float estimate(int vertex, int goal) {
+		double sinHalfDLat = Math.sin((latRad[goal] - latRad[vertex]) / 2);
+		double sinHalfDLon = Math.sin((lonRad[goal] - lonRad[vertex]) / 2);
+		double h = sinHalfDLat * sinHalfDLat + cosLat[vertex] * cosLat[goal] * sinHalfDLon * sinHalfDLon;
+		return (float) (scale * 2 * GeoCoord.EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(h))));
+	}
+}
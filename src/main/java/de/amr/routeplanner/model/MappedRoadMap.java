@@ -0,0 +1,369 @@
+/*
+MIT License
+
+Copyright (c) 2022 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+package de.amr.routeplanner.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+import de.amr.routeplanner.graph.CompressedGraph;
+import de.amr.routeplanner.graph.CsrGraph;
+
+/**
+ * Read-only view of a road map stored in the binary format written by {@link RoadMapBinaryWriter}. The file is mapped
+ * into memory with {@link FileChannel#map}, all accessors read directly from the mapping. Opening a map only scans the
+ * index sections once to validate them, pages are shared by all processes mapping the same file. Use
+ * {@link #toCsrGraph()} to get a graph that the search engines can run on.
+ * <p>
+ * File layout (little endian, all sections consist of 4-byte values except the string bytes):
+ * 
+ * <pre>
+ * header      magic "RMB1", format version, numPoints, numRoads, numStringBytes, padded to 32 bytes
+ * offsets     int[numPoints + 1]   index of first outgoing road of each point (CSR)
+ * targets     int[numRoads]        end point of each road
+ * costs       float[numRoads]      length of each road in km
+ * latitudes   float[numPoints]
+ * longitudes  float[numPoints]
+ * keyOffsets  int[numPoints + 1]   start of each key in the string bytes
+ * nameOffsets int[numPoints + 1]   start of each location name in the string bytes
+ * keyOrder    int[numPoints]       point indices sorted by the unsigned UTF-8 bytes of the key
+ * nameOrder   int[numPoints]       point indices sorted by the unsigned UTF-8 bytes of the location name
+ * strings     byte[numStringBytes] UTF-8 encoded keys followed by location names
+ * </pre>
+ *
+ * @author Armin Reichert
+ */
+public final class MappedRoadMap {
+
+	static final int FILE_MAGIC = 0x524d4231; // "RMB1"
+	static final int FILE_VERSION = 2;
+	static final int HEADER_SIZE = 32;
+
+	static long fileSize(int numPoints, int numRoads, long numStringBytes) {
+		return HEADER_SIZE + 4L * (7L * numPoints + 3 + 2L * numRoads) + numStringBytes;
+	}
+
+	/**
+	 * Maps the given binary road map file into memory.
+	 * 
+	 * @param file binary map file
+	 * @return view of the mapped road map
+	 * @throws IOException if the file cannot be mapped or is not a valid binary road map
+	 */
+	public static MappedRoadMap open(Path file) throws IOException {
+		try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+				throw new IOException("Invalid binary road map size: %d bytes".formatted(size));
+			}
+			// the mapping stays valid after the channel has been closed
+			var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size).order(ByteOrder.LITTLE_ENDIAN);
+			return new MappedRoadMap(buffer);
+		}
+	}
+
+	private final int numPoints;
+	private final int numRoads;
+	private final IntBuffer offsets;
+	private final IntBuffer targets;
+	private final FloatBuffer costs;
+	private final FloatBuffer latitudes;
+	private final FloatBuffer longitudes;
+	private final IntBuffer keyOffsets;
+	private final IntBuffer nameOffsets;
+	private final IntBuffer keyOrder;
+	private final IntBuffer nameOrder;
+	private final ByteBuffer strings;
+
+	private MappedRoadMap(ByteBuffer buffer) throws IOException {
+		if (buffer.getInt(0) != FILE_MAGIC) {
+			throw new IOException("Not a binary road map file");
+		}
+		int version = buffer.getInt(4);
+		if (version != FILE_VERSION) {
+			throw new IOException("Unsupported binary road map version %d".formatted(version));
+		}
+		numPoints = buffer.getInt(8);
+		numRoads = buffer.getInt(12);
+		int numStringBytes = buffer.getInt(16);
+		if (numPoints < 0 || numRoads < 0 || numStringBytes < 0
+				|| fileSize(numPoints, numRoads, numStringBytes) != buffer.capacity()) {
+			throw new IOException("Binary road map file is truncated or corrupt");
+		}
+		int pos = HEADER_SIZE;
+		offsets = intSection(buffer, pos, numPoints + 1);
+		pos += 4 * (numPoints + 1);
+		targets = intSection(buffer, pos, numRoads);
+		pos += 4 * numRoads;
+		costs = floatSection(buffer, pos, numRoads);
+		pos += 4 * numRoads;
+		latitudes = floatSection(buffer, pos, numPoints);
+		pos += 4 * numPoints;
+		longitudes = floatSection(buffer, pos, numPoints);
+		pos += 4 * numPoints;
+		keyOffsets = intSection(buffer, pos, numPoints + 1);
+		pos += 4 * (numPoints + 1);
+		nameOffsets = intSection(buffer, pos, numPoints + 1);
+		pos += 4 * (numPoints + 1);
+		keyOrder = intSection(buffer, pos, numPoints);
+		pos += 4 * numPoints;
+		nameOrder = intSection(buffer, pos, numPoints);
+		pos += 4 * numPoints;
+		strings = buffer.slice(pos, numStringBytes);
+		if (offsets.get(0) != 0 || offsets.get(numPoints) != numRoads || keyOffsets.get(0) != 0
+				|| nameOffsets.get(numPoints) != numStringBytes) {
+			throw new IOException("Binary road map file is corrupt");
+		}
+		checkAscending(offsets, "road offsets");
+		checkAscending(keyOffsets, "key offsets");
+		checkAscending(nameOffsets, "name offsets");
+		if (keyOffsets.get(numPoints) > nameOffsets.get(0)) {
+			throw new IOException("Binary road map file is corrupt: keys and names overlap");
+		}
+		checkIndices(targets, "road target");
+		checkIndices(keyOrder, "key order");
+		checkIndices(nameOrder, "name order");
+	}
+
+	private static void checkAscending(IntBuffer section, String name) throws IOException {
+		for (int i = 1; i < section.limit(); ++i) {
+			if (section.get(i - 1) > section.get(i)) {
+				throw new IOException("Binary road map file is corrupt: %s not ascending at %d".formatted(name, i));
+			}
+		}
+	}
+
+	private void checkIndices(IntBuffer section, String name) throws IOException {
+		for (int i = 0; i < section.limit(); ++i) {
+			int u = section.get(i);
+			if (u < 0 || u >= numPoints) {
+				throw new IOException("Binary road map file is corrupt: invalid %s %d at %d".formatted(name, u, i));
+			}
+		}
+	}
+
+	private static IntBuffer intSection(ByteBuffer buffer, int pos, int count) {
+		return buffer.slice(pos, 4 * count).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+	}
+
+	private static FloatBuffer floatSection(ByteBuffer buffer, int pos, int count) {
+		return buffer.slice(pos, 4 * count).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+	}
+
+	public int numPoints() {
+		return numPoints;
+	}
+
+	public int numRoads() {
+		return numRoads;
+	}
+
+	/**
+	 * @param u point index
+	 * @return index of the first outgoing road of point {@code u}
+	 */
+	public int firstRoad(int u) {
+		return offsets.get(u);
+	}
+
+	/**
+	 * @param u point index
+	 * @return index after the last outgoing road of point {@code u}
+	 */
+	public int endRoad(int u) {
+		return offsets.get(u + 1);
+	}
+
+	/**
+	 * @param e road index
+	 * @return index of the end point of the road
+	 */
+	public int target(int e) {
+		return targets.get(e);
+	}
+
+	/**
+	 * @param e road index
+	 * @return length of the road in km
+	 */
+	public float cost(int e) {
+		return costs.get(e);
+	}
+
+	public float latitude(int u) {
+		return latitudes.get(u);
+	}
+
+	public float longitude(int u) {
+		return longitudes.get(u);
+	}
+
+	public String key(int u) {
+		return string(keyOffsets.get(u), keyOffsets.get(u + 1));
+	}
+
+	public String locationName(int u) {
+		return string(nameOffsets.get(u), nameOffsets.get(u + 1));
+	}
+
+	/**
+	 * @param key point key
+	 * @return index of the point with the given key or -1 if there is no such point
+	 */
+	public int indexOfKey(String key) {
+		return find(keyOrder, keyOffsets, key);
+	}
+
+	/**
+	 * @param locationName location name
+	 * @return index of a point with the given location name or -1 if there is no such point
+	 */
+	public int indexOfLocation(String locationName) {
+		return find(nameOrder, nameOffsets, locationName);
+	}
+
+	/**
+	 * Creates a CSR graph with the points and roads of this mapped map without creating a {@link RoadMap} and its edge
+	 * objects. The road sections are copied in bulk from the mapping, the point data is stored in a new
+	 * {@link RoadMapPointStore}. The points keep their indices, use {@link #key(int)} and {@link #indexOfKey(String)}
+	 * for the point keys.
+	 * 
+	 * @return new CSR graph
+	 */
+	public CsrGraph<RoadMapPoint> toCsrGraph() {
+		var store = new RoadMapPointStore();
+		var points = new ArrayList<RoadMapPoint>(numPoints);
+		var stringBytes = new byte[strings.capacity()];
+		strings.get(0, stringBytes);
+		for (int u = 0; u < numPoints; ++u) {
+			int index = store.add(stringBytes, nameOffsets.get(u), nameOffsets.get(u + 1), latitude(u), longitude(u));
+			points.add(new RoadMapPoint(store, index));
+		}
+		return CsrGraph.of(points, offsetArray(), targetArray(), costArray());
+	}
+
+	/**
+	 * Creates a compressed graph (see {@link CompressedGraph}) of the roads of this map without creating point or road
+	 * objects. The point indices of this map are the original vertex indices of the compressed graph, so the point data
+	 * can be read from this map.
+	 * 
+	 * @param quantum road lengths are rounded to multiples of this value
+	 * @return new compressed graph
+	 */
+	public CompressedGraph toCompressedGraph(float quantum) {
+		return CompressedGraph.compress(offsetArray(), targetArray(), costArray(), quantum);
+	}
+
+	private int[] offsetArray() {
+		var array = new int[numPoints + 1];
+		offsets.get(0, array);
+		return array;
+	}
+
+	private int[] targetArray() {
+		var array = new int[numRoads];
+		targets.get(0, array);
+		return array;
+	}
+
+	private float[] costArray() {
+		var array = new float[numRoads];
+		costs.get(0, array);
+		return array;
+	}
+
+	/**
+	 * Creates a road map with the points and roads of this mapped map. The points keep their indices. This builds the
+	 * complete object graph, use {@link #toCsrGraph()} if only searches are needed.
+	 * 
+	 * @return new road map
+	 */
+	public RoadMap toRoadMap() {
+		var map = new RoadMap();
+		var points = new RoadMapPoint[numPoints];
+		for (int u = 0; u < numPoints; ++u) {
+			points[u] = map.createAndAddPoint(key(u), locationName(u), latitude(u), longitude(u));
+		}
+		for (int u = 0; u < numPoints; ++u) {
+			for (int e = firstRoad(u); e < endRoad(u); ++e) {
+				map.addDirectedEdge(points[u], points[target(e)], cost(e));
+			}
+		}
+		return map;
+	}
+
+	private String string(int start, int end) {
+		var bytes = new byte[end - start];
+		strings.get(start, bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	// binary search in the sorted order, returns the first of equal strings
+	private int find(IntBuffer order, IntBuffer stringOffsets, String s) {
+		var key = s.getBytes(StandardCharsets.UTF_8);
+		int lo = 0;
+		int hi = numPoints;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			int u = order.get(mid);
+			if (compare(stringOffsets.get(u), stringOffsets.get(u + 1), key) < 0) {
+				lo = mid + 1;
+			} else {
+				hi = mid;
+			}
+		}
+		if (lo < numPoints) {
+			int u = order.get(lo);
+			if (compare(stringOffsets.get(u), stringOffsets.get(u + 1), key) == 0) {
+				return u;
+			}
+		}
+		return -1;
+	}
+
+	// compares the string bytes start..end-1 with the key like Arrays.compareUnsigned
+	private int compare(int start, int end, byte[] key) {
+		int length = Math.min(end - start, key.length);
+		for (int i = 0; i < length; ++i) {
+			int c = Byte.compareUnsigned(strings.get(start + i), key[i]);
+			if (c != 0) {
+				return c;
+			}
+		}
+		return (end - start) - key.length;
+	}
+
+	@Override
+	public String toString() {
+		return "MappedRoadMap[points=%d, roads=%d]".formatted(numPoints, numRoads);
+	}
+}
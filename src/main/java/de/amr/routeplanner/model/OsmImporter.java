@@ -0,0 +1,446 @@
+/*
+MIT License
+
+Copyright (c) 2022 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+package de.amr.routeplanner.model;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Imports road maps from OpenStreetMap XML extracts (optionally gzip-compressed, file name ending with ".gz").
+ * <p>
+ * The file is read with a StAX stream reader in three passes, so the document is never held in memory:
+ * <ol>
+ * <li>The IDs of all nodes referenced by highway ways are collected into a sorted array.</li>
+ * <li>The coordinates (and names, if present) of these nodes are read. Each node gets its position in the sorted ID
+ * array as point index, all other nodes are skipped.</li>
+ * <li>Each pair of consecutive nodes of a highway way becomes a road whose length is the great-circle distance of the
+ * nodes. One-way roads (tags {@code oneway=yes|true|1|-1}, roundabouts and motorways) get a single direction.</li>
+ * </ol>
+ * The heap needed is proportional to the size of the road network (about 16 bytes per point and 12 bytes per road),
+ * not to the size of the file. The result is either a {@link RoadMap} or, without creating point and edge objects, a
+ * binary map file (see {@link RoadMapBinaryWriter}).
+ *
+ * @author Armin Reichert
+ */
+public class OsmImporter {
+
+	private static final Logger LOGGER = LogManager.getFormatterLogger();
+
+	/** Highway types imported by default. */
+	public static final Set<String> DEFAULT_HIGHWAYS = Set.of("motorway", "motorway_link", "trunk", "trunk_link",
+			"primary", "primary_link", "secondary", "secondary_link", "tertiary", "tertiary_link", "unclassified",
+			"residential", "living_street", "service", "road");
+
+	private static final int NO_DIRECTION = 0;
+	private static final int FORWARD = 1;
+	private static final int BACKWARD = 2;
+	private static final int BOTH_DIRECTIONS = FORWARD | BACKWARD;
+
+	/** Road network in CSR layout, point indices are positions in the sorted node ID array. */
+	private record Network(long[] nodeIds, String[] names, float[] latitudes, float[] longitudes, int[] offsets,
+			int[] targets, float[] costs) {
+	}
+
+	/** Callback for the node references of a highway way. */
+	@FunctionalInterface
+	private interface WayConsumer {
+		void accept(long[] refs, int numRefs, int directions) throws IOException;
+	}
+
+	private final Set<String> highways;
+
+	public OsmImporter() {
+		this(DEFAULT_HIGHWAYS);
+	}
+
+	/**
+	 * @param highways values of the {@code highway} tag of the ways to import
+	 */
+	public OsmImporter(Set<String> highways) {
+		this.highways = Set.copyOf(highways);
+	}
+
+	/**
+	 * @param osmFile OSM XML file
+	 * @return road map with the imported roads, the points have their OSM node ID as key and their name or ID as
+	 *         location name
+	 * @throws IOException if the file cannot be read or is not a valid OSM file
+	 */
+	public RoadMap importMap(Path osmFile) throws IOException {
+		var net = readNetwork(osmFile);
+		var map = new RoadMap();
+		int n = net.nodeIds.length;
+		var points = new RoadMapPoint[n];
+		for (int u = 0; u < n; ++u) {
+			var key = String.valueOf(net.nodeIds[u]);
+			points[u] = map.createAndAddPoint(key, net.names[u] != null ? net.names[u] : key, net.latitudes[u],
+					net.longitudes[u]);
+		}
+		for (int u = 0; u < n; ++u) {
+			for (int e = net.offsets[u]; e < net.offsets[u + 1]; ++e) {
+				map.addDirectedEdge(points[u], points[net.targets[e]], net.costs[e]);
+			}
+		}
+		return map;
+	}
+
+	/**
+	 * Imports the roads of the OSM file and writes them directly to a binary map file.
+	 * 
+	 * @param osmFile    OSM XML file
+	 * @param binaryFile binary map file
+	 * @throws IOException if the file cannot be read or written or is not a valid OSM file
+	 */
+	public void importToBinary(Path osmFile, Path binaryFile) throws IOException {
+		var net = readNetwork(osmFile);
+		int n = net.nodeIds.length;
+		var keys = new String[n];
+		var names = new String[n];
+		for (int u = 0; u < n; ++u) {
+			keys[u] = String.valueOf(net.nodeIds[u]);
+			names[u] = net.names[u] != null ? net.names[u] : keys[u];
+		}
+		RoadMapBinaryWriter.write(binaryFile, keys, names, net.latitudes, net.longitudes, net.offsets, net.targets,
+				net.costs);
+	}
+
+	private Network readNetwork(Path osmFile) throws IOException {
+		long startTime = System.nanoTime();
+		// pass 1: IDs of the nodes referenced by highways
+		var collector = new NodeIdCollector();
+		readWays(osmFile, (refs, numRefs, directions) -> {
+			for (int i = 0; i < numRefs; ++i) {
+				collector.add(refs[i]);
+			}
+		});
+		var nodeIds = collector.toSortedArray();
+		int n = nodeIds.length;
+
+		// pass 2: coordinates and names of these nodes
+		var latitudes = new float[n];
+		var longitudes = new float[n];
+		var names = new String[n];
+		var found = new boolean[n];
+		readNodes(osmFile, nodeIds, latitudes, longitudes, names, found);
+		int numFound = 0;
+		for (int u = 0; u < n; ++u) {
+			if (found[u]) {
+				nodeIds[numFound] = nodeIds[u];
+				latitudes[numFound] = latitudes[u];
+				longitudes[numFound] = longitudes[u];
+				names[numFound] = names[u];
+				++numFound;
+			}
+		}
+		if (numFound < n) {
+			int missing = n - numFound;
+			LOGGER.warn(() -> "%d referenced nodes are missing in the OSM file, their road segments are skipped"
+					.formatted(missing));
+			n = numFound;
+			nodeIds = Arrays.copyOf(nodeIds, n);
+			latitudes = Arrays.copyOf(latitudes, n);
+			longitudes = Arrays.copyOf(longitudes, n);
+			names = Arrays.copyOf(names, n);
+		}
+
+		// pass 3: road segments between consecutive nodes
+		var roads = new RoadList();
+		var ids = nodeIds;
+		var lat = latitudes;
+		var lon = longitudes;
+		readWays(osmFile, (refs, numRefs, directions) -> {
+			for (int i = 1; i < numRefs; ++i) {
+				int u = Arrays.binarySearch(ids, refs[i - 1]);
+				int v = Arrays.binarySearch(ids, refs[i]);
+				if (u < 0 || v < 0 || u == v) {
+					continue;
+				}
+				float cost = (float) GeoCoord.haversineKm(lat[u], lon[u], lat[v], lon[v]);
+				if ((directions & FORWARD) != 0) {
+					roads.add(u, v, cost);
+				}
+				if ((directions & BACKWARD) != 0) {
+					roads.add(v, u, cost);
+				}
+			}
+		});
+		var net = roads.toNetwork(nodeIds, names, latitudes, longitudes);
+		LOGGER.info(() -> "OSM file '%s' imported: %d points, %d roads, %.1f s".formatted(osmFile,
+				net.nodeIds.length, net.targets.length, (System.nanoTime() - startTime) / 1e9));
+		return net;
+	}
+
+	private static XMLStreamReader openXml(InputStream in) throws XMLStreamException {
+		var factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		return factory.createXMLStreamReader(in);
+	}
+
+	private static InputStream openFile(Path file) throws IOException {
+		InputStream in = new BufferedInputStream(Files.newInputStream(file), 1 << 16);
+		return file.getFileName().toString().endsWith(".gz") ? new GZIPInputStream(in, 1 << 16) : in;
+	}
+
+	private void readWays(Path osmFile, WayConsumer consumer) throws IOException {
+		try (var in = openFile(osmFile)) {
+			var xml = openXml(in);
+			try {
+				var refs = new long[256];
+				boolean inWay = false;
+				int numRefs = 0;
+				String highway = null;
+				String oneway = null;
+				String junction = null;
+				while (xml.hasNext()) {
+					int event = xml.next();
+					if (event == XMLStreamConstants.START_ELEMENT) {
+						var element = xml.getLocalName();
+						if ("way".equals(element)) {
+							inWay = true;
+							numRefs = 0;
+							highway = oneway = junction = null;
+						} else if (inWay && "nd".equals(element)) {
+							if (numRefs == refs.length) {
+								refs = Arrays.copyOf(refs, 2 * numRefs);
+							}
+							refs[numRefs++] = parseLong(xml, "ref");
+						} else if (inWay && "tag".equals(element)) {
+							var key = xml.getAttributeValue(null, "k");
+							var value = xml.getAttributeValue(null, "v");
+							if ("highway".equals(key)) {
+								highway = value;
+							} else if ("oneway".equals(key)) {
+								oneway = value;
+							} else if ("junction".equals(key)) {
+								junction = value;
+							}
+						}
+					} else if (event == XMLStreamConstants.END_ELEMENT && "way".equals(xml.getLocalName())) {
+						inWay = false;
+						if (highway != null && highways.contains(highway)) {
+							int directions = directions(highway, oneway, junction);
+							if (directions != NO_DIRECTION) {
+								consumer.accept(refs, numRefs, directions);
+							}
+						}
+					}
+				}
+			} finally {
+				xml.close();
+			}
+		} catch (XMLStreamException x) {
+			throw new IOException("Invalid OSM file '%s'".formatted(osmFile), x);
+		}
+	}
+
+	private static int directions(String highway, String oneway, String junction) {
+		if (oneway != null) {
+			switch (oneway) {
+			case "yes", "true", "1":
+				return FORWARD;
+			case "-1", "reverse":
+				return BACKWARD;
+			case "no", "false", "0":
+				return BOTH_DIRECTIONS;
+			default:
+				break;
+			}
+		}
+		return "roundabout".equals(junction) || "motorway".equals(highway) ? FORWARD : BOTH_DIRECTIONS;
+	}
+
+	private static void readNodes(Path osmFile, long[] nodeIds, float[] latitudes, float[] longitudes, String[] names,
+			boolean[] found) throws IOException {
+		try (var in = openFile(osmFile)) {
+			var xml = openXml(in);
+			try {
+				int current = -1;
+				while (xml.hasNext()) {
+					int event = xml.next();
+					if (event == XMLStreamConstants.START_ELEMENT) {
+						var element = xml.getLocalName();
+						if ("node".equals(element)) {
+							current = Arrays.binarySearch(nodeIds, parseLong(xml, "id"));
+							if (current >= 0) {
+								latitudes[current] = parseFloat(xml, "lat");
+								longitudes[current] = parseFloat(xml, "lon");
+								found[current] = true;
+							}
+						} else if (current >= 0 && "tag".equals(element)
+								&& "name".equals(xml.getAttributeValue(null, "k"))) {
+							names[current] = xml.getAttributeValue(null, "v");
+						} else if ("way".equals(element)) {
+							// nodes precede ways in OSM files
+							break;
+						}
+					} else if (event == XMLStreamConstants.END_ELEMENT && "node".equals(xml.getLocalName())) {
+						current = -1;
+					}
+				}
+			} finally {
+				xml.close();
+			}
+		} catch (XMLStreamException x) {
+			throw new IOException("Invalid OSM file '%s'".formatted(osmFile), x);
+		}
+	}
+
+	private static long parseLong(XMLStreamReader xml, String attribute) throws IOException {
+		var value = xml.getAttributeValue(null, attribute);
+		try {
+			return Long.parseLong(value);
+		} catch (NumberFormatException x) {
+			throw new IOException("Line %d: invalid attribute %s='%s'".formatted(xml.getLocation().getLineNumber(),
+					attribute, value));
+		}
+	}
+
+	private static float parseFloat(XMLStreamReader xml, String attribute) throws IOException {
+		var value = xml.getAttributeValue(null, attribute);
+		try {
+			return Float.parseFloat(value);
+		} catch (NullPointerException | NumberFormatException x) {
+			throw new IOException("Line %d: invalid attribute %s='%s'".formatted(xml.getLocation().getLineNumber(),
+					attribute, value));
+		}
+	}
+
+	/**
+	 * Collects node IDs. When the buffer is full, it is sorted and duplicates are removed before it grows, so the
+	 * memory needed is about the number of distinct IDs.
+	 */
+	private static class NodeIdCollector {
+
+		private long[] ids = new long[1 << 16];
+		private int size;
+
+		void add(long id) {
+			if (size == ids.length) {
+				compact();
+				if (size > ids.length / 2) {
+					ids = Arrays.copyOf(ids, 2 * ids.length);
+				}
+			}
+			ids[size++] = id;
+		}
+
+		private void compact() {
+			Arrays.sort(ids, 0, size);
+			int unique = 0;
+			for (int i = 0; i < size; ++i) {
+				if (unique == 0 || ids[i] != ids[unique - 1]) {
+					ids[unique++] = ids[i];
+				}
+			}
+			size = unique;
+		}
+
+		long[] toSortedArray() {
+			compact();
+			return Arrays.copyOf(ids, size);
+		}
+	}
+
+	/** Growable list of directed roads between point indices. */
+	private static class RoadList {
+
+		private int[] from = new int[1 << 16];
+		private int[] to = new int[1 << 16];
+		private float[] cost = new float[1 << 16];
+		private int size;
+
+		void add(int u, int v, float c) {
+			if (size == from.length) {
+				from = Arrays.copyOf(from, 2 * size);
+				to = Arrays.copyOf(to, 2 * size);
+				cost = Arrays.copyOf(cost, 2 * size);
+			}
+			from[size] = u;
+			to[size] = v;
+			cost[size] = c;
+			++size;
+		}
+
+		/*
+		 * Sorts the roads by start point (counting sort, stable) and keeps only the shortest of parallel roads.
+		 */
+		Network toNetwork(long[] nodeIds, String[] names, float[] latitudes, float[] longitudes) {
+			int n = nodeIds.length;
+			var offsets = new int[n + 1];
+			for (int i = 0; i < size; ++i) {
+				++offsets[from[i] + 1];
+			}
+			for (int u = 0; u < n; ++u) {
+				offsets[u + 1] += offsets[u];
+			}
+			var targets = new int[size];
+			var costs = new float[size];
+			var fill = Arrays.copyOf(offsets, n);
+			for (int i = 0; i < size; ++i) {
+				int slot = fill[from[i]]++;
+				targets[slot] = to[i];
+				costs[slot] = cost[i];
+			}
+			// remove parallel roads, lastSlot[v] is the slot of the road from the current point to v
+			var lastSlot = new int[n];
+			Arrays.fill(lastSlot, -1);
+			int numRoads = 0;
+			for (int u = 0; u < n; ++u) {
+				int first = numRoads;
+				for (int e = offsets[u]; e < offsets[u + 1]; ++e) {
+					int v = targets[e];
+					int slot = lastSlot[v];
+					if (slot >= first) {
+						costs[slot] = Math.min(costs[slot], costs[e]);
+					} else {
+						lastSlot[v] = numRoads;
+						targets[numRoads] = v;
+						costs[numRoads] = costs[e];
+						++numRoads;
+					}
+				}
+				offsets[u] = first;
+			}
+			offsets[n] = numRoads;
+			return new Network(nodeIds, names, latitudes, longitudes, offsets, Arrays.copyOf(targets, numRoads),
+					Arrays.copyOf(costs, numRoads));
+		}
+	}
+}
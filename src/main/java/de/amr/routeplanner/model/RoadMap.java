@@ -24,7 +24,10 @@ SOFTWARE.
 
 package de.amr.routeplanner.model;
 
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.function.Consumer;
@@ -33,23 +36,59 @@ import java.util.stream.Stream;
 import de.amr.routeplanner.graph.Edge;
 import de.amr.routeplanner.graph.Graph;
 import de.amr.routeplanner.graph.Vertex;
+import de.amr.routeplanner.graph.search.DistanceMatrix;
+import de.amr.routeplanner.graph.search.FacilityPartition;
 
 /**
  * @author Armin Reichert
  */
 public class RoadMap extends Graph<RoadMapPoint> {
 
+	private final RoadMapPointStore pointStore = new RoadMapPointStore();
+	// index of the first point with the location name, indexed by name id, -1 if there is none
+	private int[] firstPointByNameId = new int[0];
+
 	public static int orderedByLocationName(RoadMapPoint u, RoadMapPoint v) {
+		if (u.store() == v.store() && u.store().nameId(u.storeIndex()) == v.store().nameId(v.storeIndex())) {
+			return 0;
+		}
 		return u.locationName().compareTo(v.locationName());
 	}
 
+	/**
+	 * @return the store containing the data of all points of this map, indexed like the points
+	 */
+	public RoadMapPointStore pointStore() {
+		return pointStore;
+	}
+
 	public Optional<RoadMapPoint> point(String location) {
-		return vertices().filter(p -> p.locationName().equals(location)).findFirst();
+		int nameId = pointStore.nameId(location);
+		if (nameId == -1) {
+			return Optional.empty();
+		}
+		int index = nameId < firstPointByNameId.length ? firstPointByNameId[nameId] : -1;
+		return index != -1 ? Optional.of(vertex(index)) : Optional.empty();
 	}
 
 	public RoadMapPoint createAndAddPoint(String id, String location, float latitude, float longitude) {
-		var point = new RoadMapPoint(location, latitude, longitude);
-		addVertex(Objects.requireNonNull(id), point);
+		Objects.requireNonNull(id);
+		var point = new RoadMapPoint(pointStore, pointStore.add(location, latitude, longitude));
+		try {
+			addVertex(id, point);
+		} catch (IllegalArgumentException x) {
+			pointStore.removeLast();
+			throw x;
+		}
+		int nameId = pointStore.nameId(point.storeIndex());
+		if (nameId >= firstPointByNameId.length) {
+			int oldLength = firstPointByNameId.length;
+			firstPointByNameId = Arrays.copyOf(firstPointByNameId, Math.max(16, 2 * nameId));
+			Arrays.fill(firstPointByNameId, oldLength, firstPointByNameId.length, -1);
+		}
+		if (firstPointByNameId[nameId] == -1) {
+			firstPointByNameId[nameId] = point.id();
+		}
 		return point;
 	}
 
@@ -61,17 +100,42 @@ public class RoadMap extends Graph<RoadMapPoint> {
 		return pointsOrderedByLocationName().map(RoadMapPoint::locationName);
 	}
 
+	/**
+	 * Computes the route lengths from each source to each target point in parallel. Each search stops as soon as all
+	 * targets have been reached.
+	 * 
+	 * @param sources source points (matrix rows)
+	 * @param targets target points (matrix columns)
+	 * @return the distance matrix, {@code Float.POSITIVE_INFINITY} for unreachable targets
+	 */
+	public DistanceMatrix<RoadMapPoint> distanceMatrix(Collection<RoadMapPoint> sources,
+			Collection<RoadMapPoint> targets) {
+		return DistanceMatrix.manyToMany(freeze(), List.copyOf(sources), List.copyOf(targets));
+	}
+
+	/**
+	 * Assigns each point to the facility from which it can be reached with the shortest route.
+	 * 
+	 * @param facilities facility points, for example depots
+	 * @return the partition of the points by nearest facility
+	 */
+	public FacilityPartition<RoadMapPoint> partitionByNearestFacility(List<RoadMapPoint> facilities) {
+		return new RoadMapPathFinder().computeNearestFacilities(freeze(), facilities, null);
+	}
+
 	public void printAllRoutes(Consumer<String> printer) {
 		print(printer, RoadMap::orderedByLocationName);
-		locationNames().forEach(start -> {
-			var pathFinder = new RoadMapPathFinder();
-			locationNames().forEach(goal -> {
-				var route = pathFinder.computeRoute(this, start, goal);
-				var routeDesc = route.stream().map(p -> "%s %.1f km".formatted(p.locationName(), pathFinder.node(p).cost))
-						.toList();
-				printer.accept("%s nach %s: %s".formatted(start, goal, routeDesc));
-			});
-		});
+		var g = freeze();
+		var matrix = DistanceMatrix.allPairs(g, true);
+		var points = pointsOrderedByLocationName().toList();
+		for (var start : points) {
+			int row = g.id(start);
+			for (var goal : points) {
+				var routeDesc = matrix.path(row, goal).stream()
+						.map(p -> "%s %.1f km".formatted(p.locationName(), matrix.distance(row, g.id(p)))).toList();
+				printer.accept("%s nach %s: %s".formatted(start.locationName(), goal.locationName(), routeDesc));
+			}
+		}
 	}
 
 	public void print(Consumer<String> printer, Comparator<RoadMapPoint> order) {
@@ -0,0 +1,232 @@
+/*
+MIT License
+
+Copyright (c) 2022 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+package de.amr.routeplanner.model;
+
+import static de.amr.routeplanner.model.MappedRoadMap.FILE_MAGIC;
+import static de.amr.routeplanner.model.MappedRoadMap.FILE_VERSION;
+import static de.amr.routeplanner.model.MappedRoadMap.HEADER_SIZE;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Writes road maps in the binary format read by {@link MappedRoadMap}. Besides writing a {@link RoadMap}, the
+ * low-level method {@link #write(Path, String[], String[], float[], float[], int[], int[], float[])} accepts the
+ * arrays directly, so importers can produce binary maps without creating a road map object graph first.
+ *
+ * @author Armin Reichert
+ */
+public class RoadMapBinaryWriter {
+
+	private static final Logger LOGGER = LogManager.getFormatterLogger();
+
+	private static final int BUFFER_SIZE = 1 << 20;
+
+	private RoadMapBinaryWriter() {
+	}
+
+	/**
+	 * @param map  road map
+	 * @param file binary map file
+	 * @throws IOException if writing fails
+	 */
+	public static void write(RoadMap map, Path file) throws IOException {
+		var g = map.freeze();
+		int n = g.numVertices();
+		var keys = new String[n];
+		var names = new String[n];
+		var latitudes = new float[n];
+		var longitudes = new float[n];
+		var offsets = new int[n + 1];
+		var targets = new int[g.numEdges()];
+		for (int u = 0; u < n; ++u) {
+			var point = g.vertex(u);
+			keys[u] = map.vertexID(u);
+			names[u] = point.locationName();
+			latitudes[u] = point.latitude();
+			longitudes[u] = point.longitude();
+			offsets[u + 1] = g.endEdge(u);
+			for (int e = g.firstEdge(u); e < g.endEdge(u); ++e) {
+				targets[e] = g.target(e);
+			}
+		}
+		write(file, keys, names, latitudes, longitudes, offsets, targets, g.costs());
+	}
+
+	/**
+	 * Writes a road map given in CSR layout. The outgoing roads of point {@code u} have the indices
+	 * {@code offsets[u]..offsets[u+1]-1}.
+	 * 
+	 * @param file       binary map file
+	 * @param keys       point keys, must be unique
+	 * @param names      location names
+	 * @param latitudes  point latitudes
+	 * @param longitudes point longitudes
+	 * @param offsets    index of first outgoing road of each point, {@code numPoints + 1} entries
+	 * @param targets    end point index of each road
+	 * @param costs      length of each road
+	 * @throws IOException if writing fails or the map is too large for a single file mapping
+	 */
+	public static void write(Path file, String[] keys, String[] names, float[] latitudes, float[] longitudes,
+			int[] offsets, int[] targets, float[] costs) throws IOException {
+		int n = keys.length;
+		int m = targets.length;
+		if (names.length != n || latitudes.length != n || longitudes.length != n || offsets.length != n + 1
+				|| costs.length != m || offsets[0] != 0 || offsets[n] != m) {
+			throw new IllegalArgumentException("Inconsistent road map array sizes");
+		}
+		var keyBytes = encode(keys);
+		var nameBytes = encode(names);
+		var keyOffsets = new int[n + 1];
+		var nameOffsets = new int[n + 1];
+		long stringBytes = 0;
+		for (int u = 0; u < n; ++u) {
+			keyOffsets[u] = (int) stringBytes;
+			stringBytes += keyBytes[u].length;
+		}
+		keyOffsets[n] = (int) stringBytes;
+		for (int u = 0; u < n; ++u) {
+			nameOffsets[u] = (int) stringBytes;
+			stringBytes += nameBytes[u].length;
+		}
+		nameOffsets[n] = (int) stringBytes;
+		long size = MappedRoadMap.fileSize(n, m, stringBytes);
+		if (size > Integer.MAX_VALUE) {
+			throw new IOException("Road map too large for binary format (%d bytes)".formatted(size));
+		}
+		int[] keyOrder = sortedIndices(keyBytes);
+		int[] nameOrder = sortedIndices(nameBytes);
+		try (var channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			var out = new Output(channel);
+			out.putInt(FILE_MAGIC);
+			out.putInt(FILE_VERSION);
+			out.putInt(n);
+			out.putInt(m);
+			out.putInt((int) stringBytes);
+			while (out.written() < HEADER_SIZE) {
+				out.putInt(0);
+			}
+			out.putInts(offsets);
+			out.putInts(targets);
+			out.putFloats(costs);
+			out.putFloats(latitudes);
+			out.putFloats(longitudes);
+			out.putInts(keyOffsets);
+			out.putInts(nameOffsets);
+			out.putInts(keyOrder);
+			out.putInts(nameOrder);
+			for (var bytes : keyBytes) {
+				out.putBytes(bytes);
+			}
+			for (var bytes : nameBytes) {
+				out.putBytes(bytes);
+			}
+			out.flush();
+		}
+		LOGGER.info(() -> "Binary road map '%s' written: %d points, %d roads, %d bytes".formatted(file, n, m, size));
+	}
+
+	private static byte[][] encode(String[] strings) {
+		return Stream.of(strings).map(s -> s.getBytes(StandardCharsets.UTF_8)).toArray(byte[][]::new);
+	}
+
+	// sorted by unsigned byte order, which is the order used by the binary search of the mapped road map
+	private static int[] sortedIndices(byte[][] strings) {
+		return IntStream.range(0, strings.length).boxed()
+				.sorted(Comparator.<Integer, byte[]>comparing(i -> strings[i], Arrays::compareUnsigned)
+						.thenComparing(i -> i))
+				.mapToInt(Integer::intValue).toArray();
+	}
+
+	private static class Output {
+
+		private final FileChannel channel;
+		private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		private long written;
+
+		Output(FileChannel channel) {
+			this.channel = channel;
+		}
+
+		long written() {
+			return written + buffer.position();
+		}
+
+		void putInt(int value) throws IOException {
+			ensureSpace(Integer.BYTES);
+			buffer.putInt(value);
+		}
+
+		void putInts(int[] values) throws IOException {
+			for (int value : values) {
+				putInt(value);
+			}
+		}
+
+		void putFloats(float[] values) throws IOException {
+			for (float value : values) {
+				ensureSpace(Float.BYTES);
+				buffer.putFloat(value);
+			}
+		}
+
+		void putBytes(byte[] bytes) throws IOException {
+			int pos = 0;
+			while (pos < bytes.length) {
+				ensureSpace(1);
+				int count = Math.min(buffer.remaining(), bytes.length - pos);
+				buffer.put(bytes, pos, count);
+				pos += count;
+			}
+		}
+
+		private void ensureSpace(int bytes) throws IOException {
+			if (buffer.remaining() < bytes) {
+				flush();
+			}
+		}
+
+		void flush() throws IOException {
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				written += channel.write(buffer);
+			}
+			buffer.clear();
+		}
+	}
+}
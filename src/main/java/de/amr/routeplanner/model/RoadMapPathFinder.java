@@ -25,12 +25,18 @@ SOFTWARE.
 package de.amr.routeplanner.model;
 
 import java.util.List;
+import java.util.function.Supplier;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import de.amr.routeplanner.graph.Edge;
+import de.amr.routeplanner.graph.CsrGraph;
+import de.amr.routeplanner.graph.search.AStarSearch;
+import de.amr.routeplanner.graph.search.KShortestPaths;
 import de.amr.routeplanner.graph.search.PathFinder;
+import de.amr.routeplanner.graph.search.SearchCounters;
+import de.amr.routeplanner.graph.search.SearchNodeQueue;
+import de.amr.routeplanner.graph.search.ShortestPath;
 
 /**
  * @author Armin Reichert
@@ -39,10 +45,21 @@ public class RoadMapPathFinder extends PathFinder<RoadMapPoint> {
 
 	private static final Logger LOGGER = LogManager.getFormatterLogger();
 
+	private final AStarSearch<RoadMapPoint> aStar = new AStarSearch<>(statePool());
+	private final KShortestPaths<RoadMapPoint> kShortestPaths = new KShortestPaths<>(statePool());
+	private final SearchCounters counters = new SearchCounters();
+	private GreatCircleHeuristic heuristic;
+	private CsrGraph<RoadMapPoint> heuristicGraph;
+
+	public RoadMapPathFinder() {
+	}
+
+	public RoadMapPathFinder(Supplier<SearchNodeQueue<RoadMapPoint>> queueFactory) {
+		super(queueFactory);
+	}
+
 	@Override
-	protected void onNewPathFound(Edge edge, float newCost) {
-		var u = (RoadMapPoint) edge.from();
-		var v = (RoadMapPoint) edge.to();
+	protected void onNewPathFound(RoadMapPoint u, RoadMapPoint v, float newCost) {
 		if (node(v).cost == Float.POSITIVE_INFINITY) {
 			LOGGER.trace(() -> "First path to %s (%.1f km) via %s".formatted(v.locationName(), newCost, u.locationName()));
 		} else {
@@ -55,4 +72,70 @@ public class RoadMapPathFinder extends PathFinder<RoadMapPoint> {
 		return findPath(map, map.point(sourceLocation).orElse(null), map.point(goalLocation).orElse(null));
 	}
 
+	/**
+	 * Computes the shortest route between the given locations. The search runs on the frozen map using A* with the
+	 * great-circle distance as heuristic and stops as soon as the goal location is reached. The number of settled
+	 * points is added to the {@link #counters()}.
+	 * 
+	 * @param map            road map
+	 * @param sourceLocation name of start location
+	 * @param goalLocation   name of goal location
+	 * @return the route, not found if a location does not exist or the goal is unreachable
+	 */
+	public ShortestPath<RoadMapPoint> findRoute(RoadMap map, String sourceLocation, String goalLocation) {
+		var source = map.point(sourceLocation);
+		var goal = map.point(goalLocation);
+		if (source.isEmpty() || goal.isEmpty()) {
+			return ShortestPath.notFound(0);
+		}
+		var g = map.freeze();
+		var route = counters.record(aStar.findShortestPath(g, source.get(), goal.get(), heuristic(g)));
+		LOGGER.trace(() -> "Route from %s to %s: %.1f km, %d points settled".formatted(sourceLocation, goalLocation,
+				route.cost(), route.settledCount()));
+		return route;
+	}
+
+	/**
+	 * Computes up to {@code k} alternative routes between the given locations in order of increasing length. The
+	 * routes are loopless and pairwise different, the first one is the shortest route. The spur searches of Yen's
+	 * algorithm use the great-circle heuristic.
+	 * 
+	 * @param map            road map
+	 * @param sourceLocation name of start location
+	 * @param goalLocation   name of goal location
+	 * @param k              maximum number of routes
+	 * @return the routes, empty if a location does not exist or the goal is unreachable
+	 */
+	public List<ShortestPath<RoadMapPoint>> findAlternativeRoutes(RoadMap map, String sourceLocation,
+			String goalLocation, int k) {
+		var source = map.point(sourceLocation);
+		var goal = map.point(goalLocation);
+		if (source.isEmpty() || goal.isEmpty()) {
+			return List.of();
+		}
+		var g = map.freeze();
+		var routes = kShortestPaths.findShortestPaths(g, source.get(), goal.get(), k, heuristic(g));
+		LOGGER.trace(() -> "%d routes from %s to %s".formatted(routes.size(), sourceLocation, goalLocation));
+		return routes;
+	}
+
+	/**
+	 * @return counters of the queries answered by {@link #findRoute(RoadMap, String, String)}
+	 */
+	public SearchCounters counters() {
+		return counters;
+	}
+
+	/**
+	 * @param g frozen road map
+	 * @return great-circle heuristic for the given map, computed once per map snapshot
+	 */
+	public synchronized GreatCircleHeuristic heuristic(CsrGraph<RoadMapPoint> g) {
+		if (heuristicGraph != g) {
+			heuristic = new GreatCircleHeuristic(g);
+			heuristicGraph = g;
+		}
+		return heuristic;
+	}
+
 }
\ No newline at end of file
@@ -27,28 +27,68 @@ package de.amr.routeplanner.model;
 import de.amr.routeplanner.graph.Vertex;
 
 /**
+ * Road map point. The point data is kept in the {@link RoadMapPointStore} of the road map, this object only refers to
+ * its entry in the store.
+ * 
  * @author Armin Reichert
  */
 public class RoadMapPoint extends Vertex {
 
-	private final String locationName;
-	private final GeoCoord coord;
+	private final RoadMapPointStore store;
+	private final int storeIndex;
 
+	/**
+	 * Creates a stand-alone point with its own single-entry store. Points of a road map should be created with
+	 * {@link RoadMap#createAndAddPoint(String, String, float, float)}, which stores them in the store of the map.
+	 * 
+	 * @param locationName location name
+	 * @param latitude     latitude in degrees
+	 * @param longitude    longitude in degrees
+	 * @throws IllegalArgumentException if a coordinate is out of range
+	 */
 	public RoadMapPoint(String locationName, float latitude, float longitude) {
-		this.locationName = locationName;
-		this.coord = new GeoCoord(latitude, longitude);
+		this(new RoadMapPointStore(), 0);
+		store.add(locationName, latitude, longitude);
+	}
+
+	RoadMapPoint(RoadMapPointStore store, int storeIndex) {
+		this.store = store;
+		this.storeIndex = storeIndex;
+	}
+
+	public RoadMapPointStore store() {
+		return store;
+	}
+
+	/**
+	 * @return index of this point in its store
+	 */
+	public int storeIndex() {
+		return storeIndex;
 	}
 
 	public String locationName() {
-		return locationName;
+		return store.locationName(storeIndex);
+	}
+
+	public float latitude() {
+		return store.latitude(storeIndex);
+	}
+
+	public float longitude() {
+		return store.longitude(storeIndex);
 	}
 
+	/**
+	 * @return new coordinate object for this point, use {@link #latitude()} and {@link #longitude()} to avoid the
+	 *         allocation
+	 */
 	public GeoCoord coord() {
-		return coord;
+		return new GeoCoord(latitude(), longitude());
 	}
 
 	@Override
 	public String toString() {
-		return "[%s %.3f %.3f]".formatted(locationName, coord.latitude(), coord.longitude());
+		return "[%s %.3f %.3f]".formatted(locationName(), latitude(), longitude());
 	}
-}
\ No newline at end of file
+}
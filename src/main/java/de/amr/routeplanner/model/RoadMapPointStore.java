@@ -0,0 +1,234 @@
+/*
+MIT License
+
+Copyright (c) 2022 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+package de.amr.routeplanner.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Stores the data of road map points column-wise in primitive arrays: latitude, longitude and the index of the
+ * location name in a table of distinct names. Points with the same location name share one name table entry.
+ * {@link RoadMapPoint} objects are flyweights referring to a point index of this store, so a point costs 12 bytes in
+ * the store plus the point object itself instead of separate string and coordinate objects per point.
+ * <p>
+ * The name table stores the UTF-8 bytes of all names in one byte array, name {@code i} occupies the bytes
+ * {@code nameOffsets[i]..nameOffsets[i+1]-1}. Names are interned using an open addressing hash table over these bytes,
+ * so a name costs its bytes plus 8 bytes for its offset and hash slot. The string of a name is decoded on first access
+ * and kept, so there is at most one string instance per distinct name.
+ *
+ * @author Armin Reichert
+ */
+public final class RoadMapPointStore {
+
+	private float[] latitudes = new float[16];
+	private float[] longitudes = new float[16];
+	private int[] nameIds = new int[16];
+	private int size;
+
+	private byte[] nameBytes = new byte[64];
+	private int[] nameOffsets = new int[17];
+	// decoded names, indexed by name id, null if not decoded yet
+	private String[] names = new String[16];
+	private int numNames;
+	// name id + 1 or 0 for an empty slot, the length is a power of 2
+	private int[] nameSlots = new int[32];
+
+	/**
+	 * Adds a point to this store.
+	 * 
+	 * @param locationName location name
+	 * @param latitude     latitude in degrees
+	 * @param longitude    longitude in degrees
+	 * @return index of the new point
+	 * @throws IllegalArgumentException if a coordinate is out of range
+	 */
+	public int add(String locationName, float latitude, float longitude) {
+		var bytes = locationName.getBytes(StandardCharsets.UTF_8);
+		return add(bytes, 0, bytes.length, latitude, longitude);
+	}
+
+	/**
+	 * Adds a point whose location name is given as UTF-8 bytes, avoids creating a string for the name.
+	 * 
+	 * @param nameBytes array containing the UTF-8 encoded location name
+	 * @param start     start of the name in the array
+	 * @param end       end (exclusive) of the name in the array
+	 * @param latitude  latitude in degrees
+	 * @param longitude longitude in degrees
+	 * @return index of the new point
+	 * @throws IllegalArgumentException if a coordinate is out of range
+	 */
+	int add(byte[] nameBytes, int start, int end, float latitude, float longitude) {
+		GeoCoord.checkRange(latitude, longitude);
+		if (size == latitudes.length) {
+			int capacity = 2 * size;
+			latitudes = Arrays.copyOf(latitudes, capacity);
+			longitudes = Arrays.copyOf(longitudes, capacity);
+			nameIds = Arrays.copyOf(nameIds, capacity);
+		}
+		latitudes[size] = latitude;
+		longitudes[size] = longitude;
+		nameIds[size] = intern(nameBytes, start, end);
+		return size++;
+	}
+
+	private int intern(byte[] bytes, int start, int end) {
+		int slot = findSlot(bytes, start, end);
+		if (nameSlots[slot] != 0) {
+			return nameSlots[slot] - 1;
+		}
+		int newId = numNames++;
+		if (numNames == nameOffsets.length) {
+			nameOffsets = Arrays.copyOf(nameOffsets, 2 * numNames);
+		}
+		if (newId == names.length) {
+			names = Arrays.copyOf(names, 2 * newId);
+		}
+		int offset = nameOffsets[newId];
+		int length = end - start;
+		if (offset + length > nameBytes.length) {
+			nameBytes = Arrays.copyOf(nameBytes, Math.max(2 * nameBytes.length, offset + length));
+		}
+		System.arraycopy(bytes, start, nameBytes, offset, length);
+		nameOffsets[numNames] = offset + length;
+		nameSlots[slot] = newId + 1;
+		if (2 * numNames > nameSlots.length) {
+			rehash();
+		}
+		return newId;
+	}
+
+	// slot containing the given name or the empty slot where it would be inserted
+	private int findSlot(byte[] bytes, int start, int end) {
+		int mask = nameSlots.length - 1;
+		int slot = hash(bytes, start, end) & mask;
+		while (nameSlots[slot] != 0) {
+			int id = nameSlots[slot] - 1;
+			if (Arrays.equals(bytes, start, end, nameBytes, nameOffsets[id], nameOffsets[id + 1])) {
+				break;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	private void rehash() {
+		nameSlots = new int[2 * nameSlots.length];
+		int mask = nameSlots.length - 1;
+		for (int id = 0; id < numNames; ++id) {
+			int slot = hash(nameBytes, nameOffsets[id], nameOffsets[id + 1]) & mask;
+			while (nameSlots[slot] != 0) {
+				slot = (slot + 1) & mask;
+			}
+			nameSlots[slot] = id + 1;
+		}
+	}
+
+	private static int hash(byte[] bytes, int start, int end) {
+		int h = 0x811c9dc5;
+		for (int i = start; i < end; ++i) {
+			h = (h ^ bytes[i]) * 0x01000193;
+		}
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * Removes the point added last, used when the point could not be added to a road map. Its location name stays in
+	 * the name table.
+	 */
+	void removeLast() {
+		--size;
+	}
+
+	/**
+	 * @return number of points
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return number of distinct location names
+	 */
+	public int numNames() {
+		return numNames;
+	}
+
+	public float latitude(int index) {
+		return latitudes[index];
+	}
+
+	public float longitude(int index) {
+		return longitudes[index];
+	}
+
+	public String locationName(int index) {
+		return name(nameIds[index]);
+	}
+
+	/**
+	 * @param nameId index of a location name in the name table
+	 * @return the location name
+	 */
+	public String name(int nameId) {
+		if (names[nameId] == null) {
+			int start = nameOffsets[nameId];
+			names[nameId] = new String(nameBytes, start, nameOffsets[nameId + 1] - start, StandardCharsets.UTF_8);
+		}
+		return names[nameId];
+	}
+
+	/**
+	 * @param index point index
+	 * @return index of the location name of the point in the name table
+	 */
+	public int nameId(int index) {
+		return nameIds[index];
+	}
+
+	/**
+	 * @param locationName location name
+	 * @return index of the location name in the name table or -1 if no point has this name
+	 */
+	public int nameId(String locationName) {
+		var bytes = locationName.getBytes(StandardCharsets.UTF_8);
+		int slot = findSlot(bytes, 0, bytes.length);
+		return nameSlots[slot] - 1;
+	}
+
+	/**
+	 * @return copy of the latitudes of all points, indexed by point index
+	 */
+	public float[] latitudes() {
+		return Arrays.copyOf(latitudes, size);
+	}
+
+	/**
+	 * @return copy of the longitudes of all points, indexed by point index
+	 */
+	public float[] longitudes() {
+		return Arrays.copyOf(longitudes, size);
+	}
+}
@@ -25,19 +25,41 @@ SOFTWARE.
 package de.amr.routeplanner.model;
 
 import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
 import java.util.stream.Stream;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 /**
+ * Reads road maps in text format.
+ * 
  * @author Armin Reichert
  */
 public class RoadMapReader {
 
+	/**
+	 * Reader mode.
+	 */
+	public enum Mode {
+		/** Reads the map line by line, splitting each line into strings. */
+		LINES,
+		/**
+		 * Scans the bytes of the file directly without creating a string per line or number, and parses the road
+		 * sections in parallel chunks. Files are memory-mapped.
+		 */
+		STREAMING
+	}
+
 	private static final Logger LOGGER = LogManager.getFormatterLogger();
 
 	private static final int STATE_READ = 0;
@@ -48,10 +70,53 @@ public class RoadMapReader {
 		return Stream.of(line.split(",")).map(String::trim).toArray(String[]::new);
 	}
 
+	private final Mode mode;
 	private int state = STATE_READ;
 	private int lineNumber;
 
+	public RoadMapReader() {
+		this(Mode.LINES);
+	}
+
+	public RoadMapReader(Mode mode) {
+		this.mode = Objects.requireNonNull(mode);
+	}
+
+	public Mode mode() {
+		return mode;
+	}
+
+	/**
+	 * Reads the map from the given file. In streaming mode, the file is mapped into memory.
+	 * 
+	 * @param file map file
+	 * @return the road map
+	 * @throws IOException if the file cannot be opened
+	 */
+	public RoadMap read(Path file) throws IOException {
+		if (mode == Mode.LINES) {
+			try (var is = Files.newInputStream(file)) {
+				return read(is);
+			}
+		}
+		try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("Map file too large: %d bytes".formatted(channel.size()));
+			}
+			return new FastRoadMapParser(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())).parse();
+		}
+	}
+
 	public RoadMap read(InputStream is) {
+		if (mode == Mode.STREAMING) {
+			try (is) {
+				return new FastRoadMapParser(ByteBuffer.wrap(is.readAllBytes())).parse();
+			} catch (IOException x) {
+				LOGGER.catching(x);
+				return new RoadMap();
+			}
+		}
+		state = STATE_READ;
 		lineNumber = 0;
 		var map = new RoadMap();
 		try (var rdr = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8))) {
@@ -145,7 +210,12 @@ public class RoadMapReader {
 			LOGGER.error("Line %d: '%s': Invalid distance: '%s'".formatted(lineNumber, line, tokens[2]));
 			return false;
 		}
-		map.addEdge(from.get(), to.get(), dist);
-		return true;
+		try {
+			map.addEdge(from.get(), to.get(), dist);
+			return true;
+		} catch (IllegalArgumentException x) {
+			LOGGER.error("Line %d: '%s': %s".formatted(lineNumber, line, x.getMessage()));
+			return false;
+		}
 	}
 }
\ No newline at end of file
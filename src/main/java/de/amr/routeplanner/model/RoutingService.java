@@ -0,0 +1,161 @@
+/*
+MIT License
+
+Copyright (c) 2022 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+package de.amr.routeplanner.model;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import de.amr.routeplanner.graph.CsrGraph;
+import de.amr.routeplanner.graph.search.AStarSearch;
+import de.amr.routeplanner.graph.search.SearchCounters;
+import de.amr.routeplanner.graph.search.SearchStatePool;
+import de.amr.routeplanner.graph.search.ShortestPath;
+
+/**
+ * Thread-safe routing service answering route requests on one immutable snapshot of a road map.
+ * <p>
+ * The snapshot, the location name index and the great-circle heuristic are computed once and shared by all threads.
+ * All mutable search state lives in search states taken from a pool for the duration of a single request, so the
+ * requests do not synchronize with each other. Asynchronous requests run on a pluggable executor. By default, a fixed
+ * thread pool with one thread per available processor is used; on Java 21 and later a virtual thread executor
+ * ({@code Executors.newVirtualThreadPerTaskExecutor()}) can be passed instead.
+ * <p>
+ * Changes of the road map made after creating the service are not visible to it. Create a new service to route on the
+ * modified map.
+ *
+ * @author Armin Reichert
+ */
+public class RoutingService implements AutoCloseable {
+
+	private static final Logger LOGGER = LogManager.getFormatterLogger();
+
+	private static ExecutorService createDefaultExecutor() {
+		var threadCount = new AtomicInteger();
+		return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+			var thread = new Thread(runnable, "routing-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	private final CsrGraph<RoadMapPoint> snapshot;
+	private final Map<String, RoadMapPoint> pointsByLocation;
+	private final GreatCircleHeuristic heuristic;
+	private final AStarSearch<RoadMapPoint> aStar = new AStarSearch<>(new SearchStatePool());
+	private final SearchCounters counters = new SearchCounters();
+	private final ExecutorService executor;
+	private final boolean ownsExecutor;
+
+	/**
+	 * Creates a service using its own fixed thread pool, which is shut down by {@link #close()}.
+	 * 
+	 * @param map road map
+	 */
+	public RoutingService(RoadMap map) {
+		this(map, createDefaultExecutor(), true);
+	}
+
+	/**
+	 * @param map      road map
+	 * @param executor executor running the asynchronous requests, not shut down by {@link #close()}
+	 */
+	public RoutingService(RoadMap map, ExecutorService executor) {
+		this(map, executor, false);
+	}
+
+	private RoutingService(RoadMap map, ExecutorService executor, boolean ownsExecutor) {
+		this.snapshot = map.freeze();
+		this.executor = Objects.requireNonNull(executor);
+		this.ownsExecutor = ownsExecutor;
+		var index = new HashMap<String, RoadMapPoint>();
+		snapshot.vertices().forEach(p -> index.putIfAbsent(p.locationName(), p));
+		pointsByLocation = Map.copyOf(index);
+		heuristic = new GreatCircleHeuristic(snapshot);
+		LOGGER.info(() -> "Routing service ready: %d points, %d roads".formatted(snapshot.numVertices(),
+				snapshot.numEdges()));
+	}
+
+	public CsrGraph<RoadMapPoint> snapshot() {
+		return snapshot;
+	}
+
+	/**
+	 * @param location location name
+	 * @return the point with this location name in the snapshot
+	 */
+	public Optional<RoadMapPoint> point(String location) {
+		return Optional.ofNullable(pointsByLocation.get(location));
+	}
+
+	/**
+	 * Computes the shortest route in the calling thread.
+	 * 
+	 * @param sourceLocation name of start location
+	 * @param goalLocation   name of goal location
+	 * @return the route, not found if a location does not exist or the goal is unreachable
+	 */
+	public ShortestPath<RoadMapPoint> route(String sourceLocation, String goalLocation) {
+		var source = pointsByLocation.get(sourceLocation);
+		var goal = pointsByLocation.get(goalLocation);
+		if (source == null || goal == null) {
+			return ShortestPath.notFound(0);
+		}
+		return counters.record(aStar.findShortestPath(snapshot, source, goal, heuristic));
+	}
+
+	/**
+	 * Computes the shortest route on the executor of this service.
+	 * 
+	 * @param sourceLocation name of start location
+	 * @param goalLocation   name of goal location
+	 * @return future of the route
+	 */
+	public CompletableFuture<ShortestPath<RoadMapPoint>> routeAsync(String sourceLocation, String goalLocation) {
+		return CompletableFuture.supplyAsync(() -> route(sourceLocation, goalLocation), executor);
+	}
+
+	/**
+	 * @return counters of all requests answered by this service
+	 */
+	public SearchCounters counters() {
+		return counters;
+	}
+
+	@Override
+	public void close() {
+		if (ownsExecutor) {
+			executor.shutdown();
+		}
+	}
+}
@@ -53,6 +53,7 @@ import javax.swing.WindowConstants;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import de.amr.routeplanner.graph.search.ShortestPath;
 import de.amr.routeplanner.model.GeoCoord;
 import de.amr.routeplanner.model.RoadMap;
 import de.amr.routeplanner.model.RoadMapPathFinder;
@@ -81,11 +82,11 @@ public class RoutePlannerWindow extends JFrame {
 		public void actionPerformed(ActionEvent e) {
 			String start = (String) comboStart().getSelectedItem();
 			String goal = (String) comboGoal().getSelectedItem();
-			var route = pathFinder.computeRoute(map, start, goal);
-			var sections = route.stream().map(p -> "%s %.1f km".formatted(p.locationName(), pathFinder.node(p).cost))
-					.toList();
+			route = pathFinder.findRoute(map, start, goal);
 			var data = new DefaultListModel<String>();
-			data.addAll(sections);
+			for (int i = 0; i < route.size(); ++i) {
+				data.addElement("%s %.1f km".formatted(route.vertices().get(i).locationName(), route.cost(i)));
+			}
 			listRoute().setModel(data);
 			mapImage.repaint();
 		}
@@ -93,6 +94,7 @@ public class RoutePlannerWindow extends JFrame {
 
 	private RoadMap map;
 	private RoadMapPathFinder pathFinder;
+	private ShortestPath<RoadMapPoint> route = ShortestPath.notFound(0);
 	private JComboBox<String> comboStart;
 	private JComboBox<String> comboGoal;
 	private JList<String> listRoute;
@@ -255,8 +257,9 @@ public class RoutePlannerWindow extends JFrame {
 			GeoCoord coord = getCoordAtPosition(mousePosition.x, mousePosition.y);
 			nearest = getNearestLocation(coord, 50);
 		}
-		for (var v : map.pointsOrderedByLocationName().toList()) {
-			Point p = getPointAtCoord(v.coord());
+		for (int i = 0; i < map.numVertices(); ++i) {
+			var v = map.vertex(i);
+			Point p = getPointAtCoord(v.latitude(), v.longitude());
 			if (v.locationName().equals(comboStart().getSelectedItem())) {
 				circle(g, p, COLOR_START, 6);
 			} else if (v.locationName().equals(comboGoal().getSelectedItem())) {
@@ -270,15 +273,13 @@ public class RoutePlannerWindow extends JFrame {
 	}
 
 	public void drawRoute(Graphics2D g) {
-		String start = (String) comboStart().getSelectedItem();
-		String goal = (String) comboGoal().getSelectedItem();
-		var route = pathFinder.computeRoute(map, start, goal);
+		var points = route.vertices();
 		g.setColor(Color.RED);
 		g.setStroke(new BasicStroke(1f));
-		for (int i = 0; i < route.size(); ++i) {
-			var p = getPointAtCoord(route.get(i).coord());
+		for (int i = 0; i < points.size(); ++i) {
+			var p = getPointAtCoord(points.get(i).latitude(), points.get(i).longitude());
 			if (i > 0) {
-				var q = getPointAtCoord(route.get(i - 1).coord());
+				var q = getPointAtCoord(points.get(i - 1).latitude(), points.get(i - 1).longitude());
 				g.drawLine(p.x, p.y, q.x, q.y);
 			}
 		}
@@ -288,15 +289,21 @@ public class RoutePlannerWindow extends JFrame {
 		g.setColor(Color.DARK_GRAY);
 		g.setStroke(new BasicStroke(0.1f));
 		map.edges().forEach(road -> {
-			Point from = getPointAtCoord(((RoadMapPoint) road.from()).coord());
-			Point to = getPointAtCoord(((RoadMapPoint) road.to()).coord());
+			var u = (RoadMapPoint) road.from();
+			var v = (RoadMapPoint) road.to();
+			Point from = getPointAtCoord(u.latitude(), u.longitude());
+			Point to = getPointAtCoord(v.latitude(), v.longitude());
 			g.drawLine(from.x, from.y, to.x, to.y);
 		});
 	}
 
 	private Point getPointAtCoord(GeoCoord coord) {
-		float tx = (coord.longitude() - MAP_LONGITUDE_MIN) / (MAP_LONGITUDE_MAX - MAP_LONGITUDE_MIN);
-		float ty = (coord.latitude() - MAP_LATITUDE_MIN) / (MAP_LATITUDE_MAX - MAP_LATITUDE_MIN);
+		return getPointAtCoord(coord.latitude(), coord.longitude());
+	}
+
+	private Point getPointAtCoord(float latitude, float longitude) {
+		float tx = (longitude - MAP_LONGITUDE_MIN) / (MAP_LONGITUDE_MAX - MAP_LONGITUDE_MIN);
+		float ty = (latitude - MAP_LATITUDE_MIN) / (MAP_LATITUDE_MAX - MAP_LATITUDE_MIN);
 		return new Point((int) (tx * mapImage.getWidth()), (int) ((1 - ty) * mapImage.getHeight()));
 	}
 
@@ -313,8 +320,11 @@ public class RoutePlannerWindow extends JFrame {
 	private RoadMapPoint getNearestLocation(GeoCoord coord, double range) {
 		double minDist = Double.POSITIVE_INFINITY;
 		RoadMapPoint nearest = null;
-		for (var v : map.pointsOrderedByLocationName().toList()) {
-			double dist = distance(coord, v.coord());
+		Point p = getPointAtCoord(coord);
+		for (int i = 0; i < map.numVertices(); ++i) {
+			var v = map.vertex(i);
+			Point q = getPointAtCoord(v.latitude(), v.longitude());
+			double dist = Math.hypot(p.x - q.x, p.y - q.y);
 			if (dist < minDist) {
 				nearest = v;
 				minDist = dist;
@@ -323,12 +333,6 @@ public class RoutePlannerWindow extends JFrame {
 		return minDist < range ? nearest : null;
 	}
 
-	private double distance(GeoCoord c1, GeoCoord c2) {
-		Point p1 = getPointAtCoord(c1);
-		Point p2 = getPointAtCoord(c2);
-		return Math.hypot(p1.x - p2.x, p1.y - p2.y);
-	}
-
 	private void circle(Graphics2D g, Point p, Color color, int radius) {
 		g.setColor(color);
 		g.fillOval(p.x - radius, p.y - radius, 2 * radius, 2 * radius);
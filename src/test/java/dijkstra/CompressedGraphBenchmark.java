@@ -0,0 +1,94 @@
+/*
+MIT License
+
+Copyright (c) 2022 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+package dijkstra;
+
+import java.util.Random;
+
+import de.amr.routeplanner.graph.CompressedGraph;
+import de.amr.routeplanner.graph.search.PathFinder;
+import de.amr.routeplanner.model.RoadMapPoint;
+
+/**
+ * Compares the heap retained by a road map with its CSR layout (forward and reverse graph) with the heap retained by
+ * the compressed adjacency layout alone, and the Dijkstra query times on both layouts.
+ * 
+ * @author Armin Reichert
+ */
+public class CompressedGraphBenchmark {
+
+	private static final int NUM_QUERIES = 200;
+
+	private static long usedHeap() {
+		var runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; ++i) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	public static void main(String[] args) {
+		int size = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+		// load and initialize all classes before measuring the heap
+		var small = SyntheticRoadMaps.grid(10, 10, 42).freeze();
+		new PathFinder<RoadMapPoint>().findShortestPath(CompressedGraph.compress(small), 0, 99, small::vertex);
+		small = null;
+		long baseHeap = usedHeap();
+		var map = SyntheticRoadMaps.grid(size, size, 42);
+		var g = map.freeze();
+		g.reverse();
+		g.components();
+		long csrHeap = usedHeap() - baseHeap;
+		var compressed = CompressedGraph.compress(g);
+		int numEdges = g.numEdges();
+		var pathFinder = new PathFinder<RoadMapPoint>();
+		for (int round = 0; round < 3; ++round) {
+			var rnd = new Random(round);
+			long csrNanos = 0, compressedNanos = 0;
+			for (int i = 0; i < NUM_QUERIES; ++i) {
+				int s = rnd.nextInt(g.numVertices());
+				int t = rnd.nextInt(g.numVertices());
+				long start = System.nanoTime();
+				pathFinder.findShortestPath(g, g.vertex(s), g.vertex(t));
+				csrNanos += System.nanoTime() - start;
+				start = System.nanoTime();
+				pathFinder.findShortestPath(compressed, s, t, g::vertex);
+				compressedNanos += System.nanoTime() - start;
+			}
+			if (round > 0) {
+				System.out.println("Query CSR %.3f ms, compressed %.3f ms (%.2f x)".formatted(csrNanos / 1e6 / NUM_QUERIES,
+						compressedNanos / 1e6 / NUM_QUERIES, (double) compressedNanos / csrNanos));
+			}
+		}
+		// drop everything except the compressed graph
+		map = null;
+		g = null;
+		pathFinder = null;
+		long compressedHeap = usedHeap() - baseHeap;
+		System.out.println("Road map + CSR forward/reverse %10d bytes heap %6.2f bytes/edge".formatted(csrHeap,
+				(double) csrHeap / numEdges));
+		System.out.println("Compressed graph alone         %10d bytes heap %6.2f bytes/edge (estimate %d bytes)"
+				.formatted(compressedHeap, (double) compressedHeap / numEdges, compressed.sizeInBytes()));
+	}
+}
@@ -0,0 +1,84 @@
+/*
+MIT License
+
+Copyright (c) 2022 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+package dijkstra;
+
+import java.util.Random;
+
+import de.amr.routeplanner.graph.CsrGraph;
+import de.amr.routeplanner.graph.ch.ContractionHierarchy;
+import de.amr.routeplanner.graph.search.BidirectionalDijkstra;
+import de.amr.routeplanner.graph.search.PathFinder;
+import de.amr.routeplanner.graph.search.SearchCounters;
+import de.amr.routeplanner.model.RoadMapPoint;
+
+/**
+ * Compares preprocessing time, settled vertices and query time of contraction hierarchies with Dijkstra and
+ * bidirectional Dijkstra on large synthetic maps.
+ * 
+ * @author Armin Reichert
+ */
+public class ContractionHierarchyBenchmark {
+
+	private static final int NUM_QUERIES = 500;
+
+	public static void main(String[] args) {
+		run("Grid 100 x 100", SyntheticRoadMaps.grid(100, 100, 42).freeze());
+		run("Grid 200 x 200", SyntheticRoadMaps.grid(200, 200, 42).freeze());
+	}
+
+	private static void run(String title, CsrGraph<RoadMapPoint> g) {
+		long start = System.nanoTime();
+		var ch = ContractionHierarchy.build(g);
+		System.out.println("%s: %d vertices, %d edges, %d shortcuts, preprocessing %.0f ms".formatted(title,
+				g.numVertices(), g.numEdges(), ch.numShortcuts(), (System.nanoTime() - start) / 1e6));
+		var dijkstra = new PathFinder<RoadMapPoint>();
+		var bidi = new BidirectionalDijkstra<RoadMapPoint>();
+		for (int round = 0; round < 2; ++round) {
+			var counters = new SearchCounters[] { new SearchCounters(), new SearchCounters(), new SearchCounters() };
+			var nanos = new long[3];
+			var rnd = new Random(round);
+			for (int i = 0; i < NUM_QUERIES; ++i) {
+				var s = g.vertex(rnd.nextInt(g.numVertices()));
+				var t = g.vertex(rnd.nextInt(g.numVertices()));
+				start = System.nanoTime();
+				counters[0].record(dijkstra.findShortestPath(g, s, t));
+				nanos[0] += System.nanoTime() - start;
+				start = System.nanoTime();
+				counters[1].record(bidi.findShortestPath(g, s, t));
+				nanos[1] += System.nanoTime() - start;
+				start = System.nanoTime();
+				counters[2].record(ch.findShortestPath(s, t));
+				nanos[2] += System.nanoTime() - start;
+			}
+			if (round > 0) {
+				var names = new String[] { "Dijkstra", "Bidirectional", "CH" };
+				for (int i = 0; i < names.length; ++i) {
+					System.out.println("  %-14s %10.0f settled/query %8.3f ms/query".formatted(names[i],
+							counters[i].averageSettled(), nanos[i] / 1e6 / NUM_QUERIES));
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,66 @@
+/*
+MIT License
+
+Copyright (c) 2022 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+package dijkstra;
+
+import java.util.concurrent.ForkJoinPool;
+
+import de.amr.routeplanner.graph.search.DeltaStepping;
+import de.amr.routeplanner.graph.search.PathFinder;
+import de.amr.routeplanner.model.RoadMapPoint;
+
+/**
+ * Measures the time of one-to-all searches with delta-stepping on 1 to N cores compared to Dijkstra's algorithm.
+ * 
+ * @author Armin Reichert
+ */
+public class DeltaSteppingBenchmark {
+
+	private static final int RUNS = 5;
+
+	public static void main(String[] args) {
+		var g = SyntheticRoadMaps.grid(500, 500, 42).freeze();
+		var source = g.vertex(g.numVertices() / 2);
+		var dijkstra = new PathFinder<RoadMapPoint>();
+		System.out.println("Grid 500 x 500, average edge cost %.3f".formatted(DeltaStepping.averageEdgeCost(g)));
+		System.out.println("Dijkstra       %8.1f ms".formatted(measure(() -> dijkstra.computeAllPaths(g, source))));
+		int maxThreads = Runtime.getRuntime().availableProcessors();
+		for (int threads = 1; threads <= maxThreads; threads *= 2) {
+			var pool = new ForkJoinPool(threads);
+			var deltaStepping = new DeltaStepping<RoadMapPoint>(0, pool);
+			System.out.println("%2d threads     %8.1f ms".formatted(threads,
+					measure(() -> deltaStepping.computeAllPaths(g, source))));
+			pool.shutdown();
+		}
+	}
+
+	private static double measure(Runnable search) {
+		search.run(); // warm-up
+		long start = System.nanoTime();
+		for (int i = 0; i < RUNS; ++i) {
+			search.run();
+		}
+		return (System.nanoTime() - start) / 1e6 / RUNS;
+	}
+}
@@ -26,6 +26,8 @@ package dijkstra;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 
@@ -111,4 +113,82 @@ public class GraphTest {
 		g.addDirectedEdge(a, b, 0);
 		g.addDirectedEdge(a, b, 0);
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void testVertexIndices() {
+		var a = new Vertex();
+		var b = new Vertex();
+		assertEquals(-1, a.id());
+		g.addVertex("A", a);
+		g.addVertex("B", b);
+		assertEquals(0, a.id());
+		assertEquals(1, b.id());
+		assertSame(b, g.vertex(1));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testAddVertexOfOtherGraph() {
+		var a = new Vertex();
+		g.addVertex("A", a);
+		new Graph<Vertex>().addVertex("A", a);
+	}
+
+	@Test
+	public void testFreeze() {
+		var a = new Vertex();
+		var b = new Vertex();
+		var c = new Vertex();
+		g.addVertex("A", a);
+		g.addVertex("B", b);
+		g.addVertex("C", c);
+		g.addEdge(a, b, 1);
+		g.addDirectedEdge(a, c, 2);
+		var csr = g.freeze();
+		assertSame(csr, g.freeze());
+		assertEquals(3, csr.numVertices());
+		assertEquals(3, csr.numEdges());
+		assertEquals(2, csr.outDegree(csr.id(a)));
+		assertEquals(1, csr.outDegree(csr.id(b)));
+		assertEquals(0, csr.outDegree(csr.id(c)));
+		int e = csr.firstEdge(csr.id(b));
+		assertSame(a, csr.vertex(csr.target(e)));
+		assertEquals(1, csr.cost(e), 0);
+
+		g.addDirectedEdge(c, a, 3);
+		var csr2 = g.freeze();
+		assertNotSame(csr, csr2);
+		assertEquals(4, csr2.numEdges());
+		assertEquals(3, csr.numEdges());
+	}
+
+	@Test
+	public void testStronglyConnectedComponents() {
+		var v = new Vertex[6];
+		for (int i = 0; i < v.length; ++i) {
+			v[i] = new Vertex();
+			g.addVertex("V" + i, v[i]);
+		}
+		// cycle 0 -> 1 -> 2 -> 0, one-way edge 2 -> 3, two-way edge 3 - 4, isolated vertex 5
+		g.addDirectedEdge(v[0], v[1], 1);
+		g.addDirectedEdge(v[1], v[2], 1);
+		g.addDirectedEdge(v[2], v[0], 1);
+		g.addDirectedEdge(v[2], v[3], 1);
+		g.addEdge(v[3], v[4], 1);
+		var csr = g.freeze();
+		var scc = csr.components();
+		assertSame(scc, csr.components());
+		assertEquals(3, scc.numComponents());
+		assertEquals(2, scc.numWeakComponents());
+		assertEquals(3, scc.largestComponentSize());
+		assertEquals(1, scc.numSingletonComponents());
+		assertTrue(scc.isStronglyConnected(0, 2));
+		assertTrue(scc.isStronglyConnected(3, 4));
+		assertFalse(scc.isStronglyConnected(2, 3));
+		assertEquals(3, scc.componentSize(scc.componentId(1)));
+		assertTrue(scc.mayReach(0, 4));
+		assertFalse(scc.mayReach(4, 0));
+		assertFalse(scc.mayReach(0, 5));
+		assertFalse(scc.mayReach(5, 0));
+		assertTrue(scc.mayReach(5, 5));
+	}
+}
@@ -0,0 +1,82 @@
+/*
+MIT License
+
+Copyright (c) 2022 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+package dijkstra;
+
+import java.util.Random;
+
+import de.amr.routeplanner.graph.search.AStarSearch;
+import de.amr.routeplanner.graph.search.KShortestPaths;
+import de.amr.routeplanner.graph.search.Landmarks;
+import de.amr.routeplanner.graph.search.SearchCounters;
+import de.amr.routeplanner.model.GreatCircleHeuristic;
+import de.amr.routeplanner.model.RoadMapPoint;
+
+/**
+ * Compares the time of a single A* query with the time of computing the 5 shortest loopless paths using Yen's
+ * algorithm, with different heuristics for the vertices outside of the goal tree.
+ * 
+ * @author Armin Reichert
+ */
+public class KShortestPathsBenchmark {
+
+	private static final int NUM_QUERIES = 100;
+	private static final int K = 5;
+
+	public static void main(String[] args) {
+		var g = SyntheticRoadMaps.grid(200, 200, 42).freeze();
+		var greatCircle = new GreatCircleHeuristic(g);
+		var landmarks = Landmarks.compute(g, 16, Landmarks.Selection.AVOID, 42).heuristic();
+		var aStar = new AStarSearch<RoadMapPoint>();
+		var ksp = new KShortestPaths<RoadMapPoint>();
+		for (int round = 0; round < 2; ++round) {
+			var counters = new SearchCounters();
+			var nanos = new long[4];
+			var rnd = new Random(round);
+			for (int i = 0; i < NUM_QUERIES; ++i) {
+				var s = g.vertex(rnd.nextInt(g.numVertices()));
+				var t = g.vertex(rnd.nextInt(g.numVertices()));
+				long start = System.nanoTime();
+				counters.record(aStar.findShortestPath(g, s, t, greatCircle));
+				nanos[0] += System.nanoTime() - start;
+				start = System.nanoTime();
+				ksp.findShortestPaths(g, s, t, K);
+				nanos[1] += System.nanoTime() - start;
+				start = System.nanoTime();
+				ksp.findShortestPaths(g, s, t, K, greatCircle);
+				nanos[2] += System.nanoTime() - start;
+				start = System.nanoTime();
+				ksp.findShortestPaths(g, s, t, K, landmarks);
+				nanos[3] += System.nanoTime() - start;
+			}
+			if (round > 0) {
+				var names = new String[] { "A* single path", "Yen Dijkstra", "Yen great-circle", "Yen ALT (16)" };
+				for (int i = 0; i < names.length; ++i) {
+					System.out.println("%-18s %8.3f ms/query %6.1f x single".formatted(names[i], nanos[i] / 1e6 / NUM_QUERIES,
+							(double) nanos[i] / nanos[0]));
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,112 @@
+/*
+MIT License
+
+Copyright (c) 2022 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+package dijkstra;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import de.amr.routeplanner.model.MappedRoadMap;
+import de.amr.routeplanner.model.RoadMap;
+import de.amr.routeplanner.model.RoadMapBinaryWriter;
+import de.amr.routeplanner.model.RoadMapReader;
+import de.amr.routeplanner.model.RoadMapReader.Mode;
+
+/**
+ * Compares the time for loading a large road map from the text format, line by line and streaming, and from the
+ * memory-mapped binary format, and the time for creating a searchable graph from the mapped file.
+ * 
+ * @author Armin Reichert
+ */
+public class MapLoadingBenchmark {
+
+	public static void main(String[] args) throws IOException {
+		int size = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+		var map = SyntheticRoadMaps.grid(size, size, 42);
+		var textFile = Files.createTempFile("roadmap", ".txt");
+		var binaryFile = Files.createTempFile("roadmap", ".rmb");
+		try {
+			writeText(map, textFile);
+			RoadMapBinaryWriter.write(map, binaryFile);
+			System.out.println("Grid %d x %d: text %d KB, binary %d KB".formatted(size, size, Files.size(textFile) / 1024,
+					Files.size(binaryFile) / 1024));
+			for (int round = 0; round < 3; ++round) {
+				long start = System.nanoTime();
+				try (var in = Files.newInputStream(textFile)) {
+					new RoadMapReader().read(in);
+				}
+				long textNanos = System.nanoTime() - start;
+				start = System.nanoTime();
+				new RoadMapReader(Mode.STREAMING).read(textFile);
+				long streamingNanos = System.nanoTime() - start;
+				start = System.nanoTime();
+				var mapped = MappedRoadMap.open(binaryFile);
+				long openNanos = System.nanoTime() - start;
+				start = System.nanoTime();
+				double sum = 0;
+				for (int e = 0; e < mapped.numRoads(); ++e) {
+					sum += mapped.cost(e);
+				}
+				long scanNanos = System.nanoTime() - start;
+				start = System.nanoTime();
+				mapped.toCsrGraph();
+				long toCsrGraphNanos = System.nanoTime() - start;
+				start = System.nanoTime();
+				mapped.toRoadMap().freeze();
+				long toRoadMapNanos = System.nanoTime() - start;
+				System.out.println(
+						"text %8.1f ms   streaming %8.1f ms   mapped open %6.1f ms   scan roads %6.1f ms   toCsrGraph %8.1f ms   toRoadMap+freeze %8.1f ms (sum %.0f)"
+								.formatted(textNanos / 1e6, streamingNanos / 1e6, openNanos / 1e6, scanNanos / 1e6,
+										toCsrGraphNanos / 1e6, toRoadMapNanos / 1e6, sum));
+			}
+		} finally {
+			Files.delete(textFile);
+			Files.delete(binaryFile);
+		}
+	}
+
+	static void writeText(RoadMap map, Path file) throws IOException {
+		try (var out = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+			out.println(".locations");
+			for (int u = 0; u < map.numVertices(); ++u) {
+				var p = map.vertex(u);
+				out.println("%s, %s, %f, %f".formatted(map.vertexID(u), p.locationName(), p.coord().latitude(),
+						p.coord().longitude()));
+			}
+			out.println(".roads");
+			var g = map.freeze();
+			for (int u = 0; u < g.numVertices(); ++u) {
+				for (int e = g.firstEdge(u); e < g.endEdge(u); ++e) {
+					int v = g.target(e);
+					if (u < v) {
+						out.println("%s, %s, %.2f".formatted(map.vertexID(u), map.vertexID(v), g.cost(e)));
+					}
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,151 @@
+/*
+MIT License
+
+Copyright (c) 2022 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+package dijkstra;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import de.amr.routeplanner.model.GeoCoord;
+import de.amr.routeplanner.model.MappedRoadMap;
+import de.amr.routeplanner.model.OsmImporter;
+import de.amr.routeplanner.model.RoadMap;
+
+/**
+ * @author Armin Reichert
+ */
+public class OsmImporterTest {
+
+	private static final String OSM = """
+			<?xml version="1.0" encoding="UTF-8"?>
+			<osm version="0.6" generator="test">
+			  <node id="1" lat="49.2300" lon="6.9900"><tag k="name" v="Saarbrücken"/></node>
+			  <node id="2" lat="49.2400" lon="7.0000"/>
+			  <node id="3" lat="49.2500" lon="7.0100"/>
+			  <node id="4" lat="49.2600" lon="7.0200"/>
+			  <node id="5" lat="49.2700" lon="7.0300"/>
+			  <node id="6" lat="49.2800" lon="7.0400"/>
+			  <node id="7" lat="49.2900" lon="7.0500"/>
+			  <way id="10">
+			    <nd ref="1"/><nd ref="2"/><nd ref="3"/>
+			    <tag k="highway" v="primary"/>
+			  </way>
+			  <way id="11">
+			    <nd ref="3"/><nd ref="4"/>
+			    <tag k="highway" v="residential"/><tag k="oneway" v="yes"/>
+			  </way>
+			  <way id="12">
+			    <nd ref="5"/><nd ref="4"/>
+			    <tag k="highway" v="residential"/><tag k="oneway" v="-1"/>
+			  </way>
+			  <way id="13">
+			    <nd ref="5"/><nd ref="6"/>
+			    <tag k="building" v="yes"/>
+			  </way>
+			  <way id="14">
+			    <nd ref="2"/><nd ref="1"/><nd ref="99"/>
+			    <tag k="highway" v="service"/>
+			  </way>
+			  <relation id="20"><member type="way" ref="10" role=""/></relation>
+			</osm>
+			""";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Path writeOsm(String name) throws IOException {
+		var file = folder.newFile(name).toPath();
+		try (OutputStream out = name.endsWith(".gz") ? new GZIPOutputStream(Files.newOutputStream(file))
+				: Files.newOutputStream(file)) {
+			out.write(OSM.getBytes(StandardCharsets.UTF_8));
+		}
+		return file;
+	}
+
+	private static void assertRoad(RoadMap map, String from, String to, boolean exists) {
+		var u = map.vertex(from).orElseThrow();
+		var v = map.vertex(to).orElseThrow();
+		assertEquals(exists, map.edge(u, v).isPresent());
+		if (exists) {
+			double km = u.coord().distanceKm(v.coord());
+			assertEquals(km, map.edge(u, v).get().cost(), 1e-4);
+		}
+	}
+
+	@Test
+	public void testImport() throws IOException {
+		for (var name : new String[] { "test.osm", "test.osm.gz" }) {
+			var map = new OsmImporter().importMap(writeOsm(name));
+			// node 6 only belongs to a building, node 7 to no way, node 99 is missing
+			assertEquals(5, map.numVertices());
+			assertFalse(map.vertex("6").isPresent());
+			assertFalse(map.vertex("7").isPresent());
+			assertEquals("Saarbrücken", map.vertex("1").orElseThrow().locationName());
+			assertEquals(new GeoCoord(49.25f, 7.01f), map.vertex("3").orElseThrow().coord());
+			assertRoad(map, "1", "2", true);
+			assertRoad(map, "2", "1", true);
+			assertRoad(map, "2", "3", true);
+			assertRoad(map, "3", "2", true);
+			assertRoad(map, "3", "4", true);
+			assertRoad(map, "4", "3", false);
+			assertRoad(map, "4", "5", true);
+			assertRoad(map, "5", "4", false);
+			// parallel road 2-1 of way 14 has been merged
+			assertEquals(6, map.numEdges());
+		}
+	}
+
+	@Test
+	public void testImportToBinary() throws IOException {
+		var osm = writeOsm("test.osm");
+		var binary = folder.newFile("test.rmb").toPath();
+		var importer = new OsmImporter();
+		importer.importToBinary(osm, binary);
+		var mapped = MappedRoadMap.open(binary);
+		var map = importer.importMap(osm);
+		assertEquals(map.freeze().fingerprint(), mapped.toRoadMap().freeze().fingerprint());
+		assertEquals("Saarbrücken", mapped.locationName(mapped.indexOfKey("1")));
+		assertTrue(mapped.indexOfLocation("2") >= 0);
+	}
+
+	@Test
+	public void testInvalidXml() throws IOException {
+		var file = folder.newFile("invalid.osm").toPath();
+		Files.writeString(file, "<osm><node id=\"1\" lat=\"49\" lon=\"7\"></osm>");
+		assertThrows(IOException.class, () -> new OsmImporter().importMap(file));
+	}
+}
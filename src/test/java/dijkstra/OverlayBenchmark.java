@@ -0,0 +1,89 @@
+/*
+MIT License
+
+Copyright (c) 2022 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+package dijkstra;
+
+import java.util.Random;
+
+import de.amr.routeplanner.graph.overlay.MultiLevelOverlay;
+import de.amr.routeplanner.graph.overlay.Partition;
+import de.amr.routeplanner.graph.search.PathFinder;
+import de.amr.routeplanner.graph.search.SearchCounters;
+import de.amr.routeplanner.model.RoadMapPoint;
+
+/**
+ * Measures partitioning, full and incremental customization and query times of the multi-level overlay on a large
+ * synthetic grid.
+ * 
+ * @author Armin Reichert
+ */
+public class OverlayBenchmark {
+
+	private static final int NUM_QUERIES = 500;
+	private static final int NUM_CHANGED_EDGES = 100;
+
+	public static void main(String[] args) {
+		var g = SyntheticRoadMaps.grid(300, 300, 42).freeze();
+		long start = System.nanoTime();
+		var partition = Partition.compute(g, 256, 4096);
+		var overlay = new MultiLevelOverlay<>(g, partition);
+		System.out.println("Grid 300 x 300: partition and overlay %.0f ms, cells %d / %d".formatted(
+				(System.nanoTime() - start) / 1e6, partition.numCells(1), partition.numCells(2)));
+		var costs = g.costs();
+		start = System.nanoTime();
+		var metric = overlay.customize(costs);
+		System.out.println("Full customization %.0f ms".formatted((System.nanoTime() - start) / 1e6));
+		var rnd = new Random(42);
+		for (int i = 0; i < NUM_CHANGED_EDGES; ++i) {
+			int e = rnd.nextInt(costs.length);
+			costs[e] = i % 2 == 0 ? Float.POSITIVE_INFINITY : 2 * costs[e];
+		}
+		start = System.nanoTime();
+		metric = overlay.customize(metric, costs);
+		System.out.println("Customization after %d changed edges %.0f ms".formatted(NUM_CHANGED_EDGES,
+				(System.nanoTime() - start) / 1e6));
+		var dijkstra = new PathFinder<RoadMapPoint>();
+		for (int round = 0; round < 2; ++round) {
+			var counters = new SearchCounters[] { new SearchCounters(), new SearchCounters() };
+			var nanos = new long[2];
+			for (int i = 0; i < NUM_QUERIES; ++i) {
+				var s = g.vertex(rnd.nextInt(g.numVertices()));
+				var t = g.vertex(rnd.nextInt(g.numVertices()));
+				start = System.nanoTime();
+				counters[0].record(dijkstra.findShortestPath(g, s, t));
+				nanos[0] += System.nanoTime() - start;
+				start = System.nanoTime();
+				counters[1].record(overlay.findShortestPath(metric, s, t));
+				nanos[1] += System.nanoTime() - start;
+			}
+			if (round > 0) {
+				var names = new String[] { "Dijkstra", "Overlay" };
+				for (int i = 0; i < names.length; ++i) {
+					System.out.println("%-10s %10.0f settled/query %8.3f ms/query".formatted(names[i],
+							counters[i].averageSettled(), nanos[i] / 1e6 / NUM_QUERIES));
+				}
+			}
+		}
+	}
+}
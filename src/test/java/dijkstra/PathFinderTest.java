@@ -0,0 +1,365 @@
+/*
+MIT License
+
+Copyright (c) 2022 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+package dijkstra;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.amr.routeplanner.graph.Graph;
+import de.amr.routeplanner.graph.Vertex;
+import de.amr.routeplanner.graph.search.DistanceMatrix;
+import de.amr.routeplanner.graph.search.PathFinder;
+import de.amr.routeplanner.graph.search.SearchLimits;
+import de.amr.routeplanner.graph.search.SearchNode;
+import de.amr.routeplanner.graph.search.SearchNodeHeap;
+import de.amr.routeplanner.graph.search.SearchNodeMinPQ;
+import de.amr.routeplanner.graph.search.SearchNodeRadixHeap;
+import de.amr.routeplanner.graph.search.SearchState;
+import de.amr.routeplanner.graph.search.SearchStatePool;
+import de.amr.routeplanner.graph.search.ShortestPathTreeCache;
+import de.amr.routeplanner.model.RoadMap;
+import de.amr.routeplanner.model.RoadMapPoint;
+import de.amr.routeplanner.model.RoadMapReader;
+
+/**
+ * @author Armin Reichert
+ */
+public class PathFinderTest {
+
+	private RoadMap map;
+
+	@Before
+	public void setup() {
+		map = SyntheticRoadMaps.grid(20, 30, 42);
+	}
+
+	@Test
+	public void testHeapExtractsInCostOrder() {
+		var rnd = new Random(7);
+		var heap = new SearchNodeHeap<Vertex>(3);
+		var nodes = new ArrayList<SearchNode<Vertex>>();
+		for (int i = 0; i < 200; ++i) {
+			var node = new SearchNode<>(new Vertex());
+			node.cost = 1000 * rnd.nextFloat();
+			nodes.add(node);
+			heap.insert(node);
+		}
+		for (int i = 0; i < nodes.size(); i += 3) {
+			nodes.get(i).cost /= 2;
+			heap.decreaseKey(nodes.get(i));
+		}
+		float lastCost = Float.NEGATIVE_INFINITY;
+		while (!heap.isEmpty()) {
+			var min = heap.extractMin();
+			assertTrue(min.cost >= lastCost);
+			lastCost = min.cost;
+		}
+		assertNull(heap.extractMin());
+	}
+
+	@Test
+	public void testQueueImplementationsComputeSameCosts() {
+		var source = map.vertex(SyntheticRoadMaps.key(3, 4)).orElseThrow();
+		var withHeap = new PathFinder<RoadMapPoint>(SearchNodeHeap::new);
+		var withMinPQ = new PathFinder<RoadMapPoint>(SearchNodeMinPQ::new);
+		withHeap.computeAllPaths(map, source);
+		withMinPQ.computeAllPaths(map, source);
+		map.vertices().forEach(v -> assertEquals(withMinPQ.node(v).cost, withHeap.node(v).cost, 0));
+	}
+
+	@Test
+	public void testShortestPathInSmallGraph() {
+		var g = new Graph<Vertex>();
+		var a = new Vertex();
+		var b = new Vertex();
+		var c = new Vertex();
+		var d = new Vertex();
+		g.addVertex("A", a);
+		g.addVertex("B", b);
+		g.addVertex("C", c);
+		g.addVertex("D", d);
+		g.addEdge(a, b, 1);
+		g.addEdge(b, c, 1);
+		g.addEdge(a, c, 3);
+		g.addEdge(c, d, 1);
+		var pf = new PathFinder<Vertex>();
+		var path = pf.findPath(g, a, d);
+		assertEquals(4, path.size());
+		assertEquals(3, pf.shortestPathTree(g.freeze(), a).cost(d), 0);
+	}
+
+	@Test
+	public void testCsrGraphGivesSameCostsAsGraph() {
+		var source = map.vertex(SyntheticRoadMaps.key(10, 10)).orElseThrow();
+		var onGraph = new PathFinder<RoadMapPoint>();
+		var onCsr = new PathFinder<RoadMapPoint>();
+		onGraph.computeAllPaths(map, source);
+		var tree = onCsr.computeAllPaths(map.freeze(), source);
+		map.vertices().forEach(v -> assertEquals(onGraph.node(v).cost, tree.cost(v), 0));
+		var goal = map.vertex(SyntheticRoadMaps.key(0, 29)).orElseThrow();
+		assertEquals(onGraph.findPath(map, source, goal), onCsr.findPath(map.freeze(), source, goal));
+	}
+
+	@Test
+	public void testReusedSearchStateForgetsPreviousQuery() {
+		var csr = map.freeze();
+		var state = new SearchState(csr.numVertices());
+		state.reach(0, 0, SearchState.NO_PARENT);
+		state.setVisited(0);
+		state.reach(1, 5, 0);
+		assertEquals(1, state.visitedCount());
+		state.reset();
+		assertEquals(0, state.visitedCount());
+		assertFalse(state.isVisited(0));
+		assertEquals(Float.POSITIVE_INFINITY, state.cost(1), 0);
+		assertEquals(SearchState.NO_PARENT, state.parent(1));
+		assertTrue(state.open().isEmpty());
+	}
+
+	@Test
+	public void testPooledStatesGiveSameResults() {
+		var csr = map.freeze();
+		var pool = new SearchStatePool();
+		var pf = new PathFinder<RoadMapPoint>(SearchNodeHeap::new, pool);
+		var first = map.vertex(SyntheticRoadMaps.key(0, 0)).orElseThrow();
+		var second = map.vertex(SyntheticRoadMaps.key(19, 29)).orElseThrow();
+		var tree1 = pf.computeAllPaths(csr, first);
+		var tree2 = pf.computeAllPaths(csr, second);
+		assertEquals(1, pool.idleCount());
+		var fresh = new PathFinder<RoadMapPoint>().computeAllPaths(csr, first);
+		map.vertices().forEach(v -> assertEquals(fresh.cost(v), tree1.cost(v), 0));
+		assertEquals(tree1.cost(second), tree2.cost(first), 1e-3);
+	}
+
+	@Test
+	public void testPointToPointStopsAtGoal() {
+		var csr = map.freeze();
+		var pf = new PathFinder<RoadMapPoint>();
+		var source = map.vertex(SyntheticRoadMaps.key(10, 10)).orElseThrow();
+		var goal = map.vertex(SyntheticRoadMaps.key(12, 13)).orElseThrow();
+		var tree = pf.computeAllPaths(csr, source);
+		var path = pf.findShortestPath(csr, source, goal);
+		assertTrue(path.isFound());
+		assertEquals(tree.cost(goal), path.cost(), 0);
+		assertEquals(tree.path(goal), path.vertices());
+		assertEquals(0, path.cost(0), 0);
+		assertTrue(path.settledCount() < csr.numVertices() / 4);
+	}
+
+	@Test
+	public void testPointToPointUnreachableGoal() {
+		var g = new Graph<Vertex>();
+		var a = new Vertex();
+		var b = new Vertex();
+		g.addVertex("A", a);
+		g.addVertex("B", b);
+		g.addDirectedEdge(b, a, 1);
+		var path = new PathFinder<Vertex>().findShortestPath(g.freeze(), a, b);
+		assertFalse(path.isFound());
+		assertEquals(Float.POSITIVE_INFINITY, path.cost(), 0);
+		// rejected by the component index without searching
+		assertEquals(0, path.settledCount());
+		assertTrue(new PathFinder<Vertex>().findPath(g, a, b).isEmpty());
+	}
+
+	@Test
+	public void testShortestPathTreeCache() {
+		var csr = map.freeze();
+		var pf = new PathFinder<RoadMapPoint>(SearchNodeHeap::new, new SearchStatePool(),
+				new ShortestPathTreeCache<>(2));
+		var depots = List.of(csr.vertex(0), csr.vertex(100), csr.vertex(200));
+		var goal = csr.vertex(csr.numVertices() - 1);
+		for (int i = 0; i < 4; ++i) {
+			pf.findPath(csr, depots.get(0), goal);
+			pf.findPath(csr, depots.get(1), goal);
+		}
+		var cache = pf.treeCache();
+		assertEquals(2, cache.misses());
+		assertEquals(6, cache.hits());
+		assertEquals(0, cache.evictions());
+		pf.findPath(csr, depots.get(2), goal);
+		assertEquals(1, cache.evictions());
+		assertEquals(2, cache.size());
+		// depot 0 was least recently used and has been evicted
+		pf.findPath(csr, depots.get(1), goal);
+		assertEquals(7, cache.hits());
+		pf.findPath(csr, depots.get(0), goal);
+		assertEquals(4, cache.misses());
+		assertEquals(pf.computeAllPaths(csr, depots.get(0)).path(goal), pf.findPath(csr, depots.get(0), goal));
+		// a modified graph is a new snapshot version
+		map.addEdge(depots.get(0), goal, 1000);
+		var path = pf.findPath(map, depots.get(0), goal);
+		assertEquals(5, cache.misses());
+		assertFalse(path.isEmpty());
+	}
+
+	@Test
+	public void testAllPairsDistanceMatrix() throws IOException {
+		var csr = SyntheticRoadMaps.random(300, 1000, 9).freeze();
+		var matrix = DistanceMatrix.allPairs(csr, true);
+		var pf = new PathFinder<RoadMapPoint>();
+		for (int s = 0; s < csr.numVertices(); s += 17) {
+			var tree = pf.computeAllPaths(csr, csr.vertex(s));
+			for (int t = 0; t < csr.numVertices(); ++t) {
+				assertEquals(tree.cost(t), matrix.distance(s, t), 0);
+			}
+			assertEquals(tree.path(csr.vertex(42)), matrix.path(s, csr.vertex(42)));
+		}
+		var written = new ByteArrayOutputStream();
+		matrix.write(written);
+		var streamed = new ByteArrayOutputStream();
+		DistanceMatrix.writeAllPairs(csr, streamed);
+		assertArrayEquals(written.toByteArray(), streamed.toByteArray());
+		var read = DistanceMatrix.read(new ByteArrayInputStream(written.toByteArray()), csr);
+		assertFalse(read.hasPredecessors());
+		assertEquals(matrix.distance(5, 77), read.distance(5, 77), 0);
+	}
+
+	@Test
+	public void testManyToManyDistanceMatrix() {
+		var random = SyntheticRoadMaps.random(500, 1500, 10);
+		var csr = random.freeze();
+		var rnd = new Random(12);
+		var sources = new ArrayList<RoadMapPoint>();
+		var targets = new ArrayList<RoadMapPoint>();
+		for (int i = 0; i < 20; ++i) {
+			sources.add(csr.vertex(rnd.nextInt(csr.numVertices())));
+			targets.add(csr.vertex(rnd.nextInt(csr.numVertices())));
+		}
+		targets.add(targets.get(0));
+		var matrix = random.distanceMatrix(sources, targets);
+		assertEquals(sources.size(), matrix.numSources());
+		assertEquals(targets.size(), matrix.numTargets());
+		var pf = new PathFinder<RoadMapPoint>();
+		for (int i = 0; i < sources.size(); ++i) {
+			var tree = pf.computeAllPaths(csr, sources.get(i));
+			for (int j = 0; j < targets.size(); ++j) {
+				assertEquals(tree.cost(targets.get(j)), matrix.distance(i, j), 0);
+			}
+		}
+	}
+
+	@Test
+	public void testRadixHeapGivesSameCostsAsHeap() {
+		var saarland = new RoadMapReader().read(getClass().getResourceAsStream("/saarland.txt"));
+		for (var g : List.of(map, saarland)) {
+			var source = g.vertex(0);
+			var withHeap = new PathFinder<RoadMapPoint>(SearchNodeHeap::new);
+			var withRadixHeap = new PathFinder<RoadMapPoint>(SearchNodeRadixHeap::new);
+			withHeap.computeAllPaths(g, source);
+			withRadixHeap.computeAllPaths(g, source);
+			g.vertices().forEach(v -> assertEquals(withHeap.node(v).cost, withRadixHeap.node(v).cost, 0));
+		}
+		// saarland road lengths have a precision of 0.1 km, the shortest road is longer
+		var source = saarland.vertex(0);
+		var withHeap = new PathFinder<RoadMapPoint>(SearchNodeHeap::new);
+		var quantized = new PathFinder<RoadMapPoint>(() -> new SearchNodeRadixHeap<>(0.1f));
+		withHeap.computeAllPaths(saarland, source);
+		quantized.computeAllPaths(saarland, source);
+		saarland.vertices().forEach(v -> assertEquals(withHeap.node(v).cost, quantized.node(v).cost, 1e-3f));
+	}
+
+	@Test
+	public void testRadixHeapRejectsNonMonotoneKeys() {
+		var heap = new SearchNodeRadixHeap<Vertex>();
+		var a = new SearchNode<>(new Vertex());
+		a.cost = 5;
+		heap.insert(a);
+		assertEquals(a, heap.extractMin());
+		var b = new SearchNode<>(new Vertex());
+		b.cost = 4;
+		assertThrows(IllegalStateException.class, () -> heap.insert(b));
+	}
+
+	@Test
+	public void testBoundedSearch() {
+		var csr = map.freeze();
+		var source = csr.vertex(csr.numVertices() / 2);
+		var pf = new PathFinder<RoadMapPoint>();
+		var tree = pf.computeAllPaths(csr, source);
+		float radius = 5;
+		var isochrone = pf.computeReachable(csr, source, SearchLimits.ofCost(radius));
+		assertTrue(isochrone.isComplete());
+		for (int v = 0; v < csr.numVertices(); ++v) {
+			var p = csr.vertex(v);
+			assertEquals(tree.cost(v) <= radius, isochrone.contains(p));
+			if (isochrone.contains(p)) {
+				assertEquals(tree.cost(v), isochrone.cost(p), 0);
+				assertEquals(tree.path(p), isochrone.path(p));
+			}
+		}
+		var nearest = pf.computeReachable(csr, source, SearchLimits.ofSettled(10));
+		assertEquals(10, nearest.size());
+		assertFalse(nearest.isComplete());
+		for (int i = 1; i < nearest.size(); ++i) {
+			assertTrue(nearest.cost(i - 1) <= nearest.cost(i));
+		}
+		var far = csr.vertex(0);
+		assertFalse(pf.findShortestPath(csr, source, far, SearchLimits.ofCost(tree.cost(0) / 2)).isFound());
+		assertEquals(tree.cost(0), pf.findShortestPath(csr, source, far, SearchLimits.ofCost(tree.cost(0))).cost(), 0);
+	}
+
+	@Test
+	public void testNearestFacilities() {
+		var csr = map.freeze();
+		var depots = List.of(csr.vertex(0), csr.vertex(250), csr.vertex(599));
+		var offsets = new float[] { 0, 2, 0.5f };
+		var pf = new PathFinder<RoadMapPoint>();
+		var trees = depots.stream().map(depot -> pf.computeAllPaths(csr, depot)).toList();
+		var partition = pf.computeNearestFacilities(csr, depots, offsets);
+		int total = 0;
+		for (int v = 0; v < csr.numVertices(); ++v) {
+			var p = csr.vertex(v);
+			float best = Float.POSITIVE_INFINITY;
+			for (int i = 0; i < depots.size(); ++i) {
+				best = Math.min(best, offsets[i] + trees.get(i).cost(v));
+			}
+			int i = partition.facilityIndex(p);
+			assertEquals(best, partition.cost(p), 1e-3f);
+			assertEquals(best, offsets[i] + trees.get(i).cost(v), 1e-3f);
+			assertEquals(depots.get(i), partition.path(p).get(0));
+		}
+		for (int size : partition.cellSizes()) {
+			total += size;
+		}
+		assertEquals(csr.numVertices(), total);
+		assertEquals(partition.cellSizes()[1], partition.cell(1).size());
+		assertEquals(3, map.partitionByNearestFacility(depots).cellSizes().length);
+	}
+}
@@ -0,0 +1,204 @@
+/*
+MIT License
+
+Copyright (c) 2022 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+package dijkstra;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import de.amr.routeplanner.graph.CompressedGraph;
+import de.amr.routeplanner.model.MappedRoadMap;
+import de.amr.routeplanner.model.RoadMap;
+import de.amr.routeplanner.model.RoadMapBinaryWriter;
+import de.amr.routeplanner.model.RoadMapPathFinder;
+import de.amr.routeplanner.model.RoadMapReader;
+import de.amr.routeplanner.model.RoadMapReader.Mode;
+
+/**
+ * @author Armin Reichert
+ */
+public class RoadMapFormatTest {
+
+	private static RoadMap saarland;
+
+	@BeforeClass
+	public static void readMap() {
+		saarland = new RoadMapReader().read(RoadMapFormatTest.class.getResourceAsStream("/saarland.txt"));
+	}
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testBinaryRoundTrip() throws IOException {
+		var file = folder.newFile("saarland.rmb").toPath();
+		RoadMapBinaryWriter.write(saarland, file);
+		var mapped = MappedRoadMap.open(file);
+		var g = saarland.freeze();
+		assertEquals(g.numVertices(), mapped.numPoints());
+		assertEquals(g.numEdges(), mapped.numRoads());
+		for (int u = 0; u < g.numVertices(); ++u) {
+			var point = g.vertex(u);
+			assertEquals(saarland.vertexID(u), mapped.key(u));
+			assertEquals(point.locationName(), mapped.locationName(u));
+			assertEquals(point.coord().latitude(), mapped.latitude(u), 0);
+			assertEquals(point.coord().longitude(), mapped.longitude(u), 0);
+			assertEquals(u, mapped.indexOfKey(saarland.vertexID(u)));
+			assertEquals(point.locationName(), mapped.locationName(mapped.indexOfLocation(point.locationName())));
+			assertEquals(g.firstEdge(u), mapped.firstRoad(u));
+			assertEquals(g.endEdge(u), mapped.endRoad(u));
+			for (int e = g.firstEdge(u); e < g.endEdge(u); ++e) {
+				assertEquals(g.target(e), mapped.target(e));
+				assertEquals(g.cost(e), mapped.cost(e), 0);
+			}
+		}
+		assertEquals(-1, mapped.indexOfKey("no such key"));
+		assertEquals(-1, mapped.indexOfLocation("Nirgendwo"));
+
+		var copy = mapped.toRoadMap();
+		assertEquals(g.fingerprint(), copy.freeze().fingerprint());
+		var pf = new RoadMapPathFinder();
+		var from = g.vertex(0).locationName();
+		var to = g.vertex(g.numVertices() - 1).locationName();
+		assertEquals(pf.findRoute(saarland, from, to).cost(), pf.findRoute(copy, from, to).cost(), 0);
+
+		var mappedGraph = mapped.toCsrGraph();
+		assertEquals(g.fingerprint(), mappedGraph.fingerprint());
+		var s = g.vertex(0);
+		var t = g.vertex(g.numVertices() - 1);
+		assertEquals(pf.findShortestPath(g, s, t).cost(),
+				pf.findShortestPath(mappedGraph, mappedGraph.vertex(0), mappedGraph.vertex(g.numVertices() - 1)).cost(), 0);
+		assertEquals(t.locationName(), mappedGraph.vertex(g.numVertices() - 1).locationName());
+
+		var compressed = mapped.toCompressedGraph(CompressedGraph.DEFAULT_QUANTUM);
+		assertEquals(g.numEdges(), compressed.numEdges());
+		var expected = pf.findShortestPath(g, s, t);
+		var actual = pf.findShortestPath(compressed, 0, g.numVertices() - 1, g::vertex);
+		int numEdges = Math.max(expected.size(), actual.size()) - 1;
+		assertEquals(expected.cost(), actual.cost(), numEdges * compressed.quantum() / 2 + 1e-3f);
+	}
+
+	@Test
+	public void testInvalidBinaryFile() throws IOException {
+		var file = folder.newFile("invalid.rmb").toPath();
+		Files.write(file, new byte[64]);
+		assertThrows(IOException.class, () -> MappedRoadMap.open(file));
+		RoadMapBinaryWriter.write(saarland, file);
+		var bytes = Files.readAllBytes(file);
+		Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+		assertThrows(IOException.class, () -> MappedRoadMap.open(file));
+		// first road target after the header and the offsets section
+		int numPoints = saarland.numVertices();
+		ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).putInt(32 + 4 * (numPoints + 1), numPoints);
+		Files.write(file, bytes);
+		assertThrows(IOException.class, () -> MappedRoadMap.open(file));
+		// version 1 files are sorted by string order and not by byte order
+		bytes = Files.readAllBytes(file);
+		ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).putInt(4, 1);
+		Files.write(file, bytes);
+		assertThrows(IOException.class, () -> MappedRoadMap.open(file));
+	}
+
+	@Test
+	public void testLookupUsesByteOrder() throws IOException {
+		// String.compareTo sorts the supplementary character before U+FFFD, UTF-8 byte order after it
+		String[] names = { "\uD83D\uDE00", "\uFFFD", "Zweibrücken", "Zell" };
+		String[] keys = { "\uFFFD", "b", "\uD83D\uDE00", "a" };
+		var file = folder.newFile("order.rmb").toPath();
+		RoadMapBinaryWriter.write(file, keys, names, new float[4], new float[4], new int[5], new int[0], new float[0]);
+		var mapped = MappedRoadMap.open(file);
+		for (int u = 0; u < names.length; ++u) {
+			assertEquals(u, mapped.indexOfLocation(names[u]));
+			assertEquals(u, mapped.indexOfKey(keys[u]));
+		}
+		assertEquals(-1, mapped.indexOfLocation("Zw"));
+	}
+
+	private static void assertSameMap(RoadMap expected, RoadMap actual) {
+		assertEquals(expected.numVertices(), actual.numVertices());
+		for (int u = 0; u < expected.numVertices(); ++u) {
+			assertEquals(expected.vertexID(u), actual.vertexID(u));
+			assertEquals(expected.vertex(u).toString(), actual.vertex(u).toString());
+			assertEquals(expected.vertex(u).coord(), actual.vertex(u).coord());
+		}
+		assertEquals(expected.freeze().fingerprint(), actual.freeze().fingerprint());
+	}
+
+	@Test
+	public void testStreamingReaderOnSaarland() {
+		var map = new RoadMapReader(Mode.STREAMING).read(getClass().getResourceAsStream("/saarland.txt"));
+		assertSameMap(saarland, map);
+	}
+
+	@Test
+	public void testStreamingReaderWithManyChunks() throws IOException {
+		// more than 2 MB of roads, parsed in several chunks
+		var file = folder.newFile("grid.txt").toPath();
+		MapLoadingBenchmark.writeText(SyntheticRoadMaps.grid(150, 150, 7), file);
+		var expected = new RoadMapReader().read(file);
+		assertSameMap(expected, new RoadMapReader(Mode.STREAMING).read(file));
+	}
+
+	@Test
+	public void testStreamingReaderSkipsInvalidLines() {
+		var text = """
+				# comment
+				.locations
+				a, A, 49.1, 7.0
+				b, B, 49.2, 7.1
+				c, C, 49.3, 7.2e0
+				d, D, north, 7.3
+				e, E, 49.4
+				.roads
+				a, b, 1.5
+				a, x, 2.0
+				b, c, far
+				b, c, 2.25,
+				b, c, 3.0
+				  c, a , 0.5\r
+				""";
+		for (var mode : Mode.values()) {
+			var map = new RoadMapReader(mode).read(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+			assertEquals(3, map.numVertices());
+			assertEquals(6, map.numEdges());
+			var c = map.vertex("c").orElseThrow();
+			assertEquals(7.2f, c.coord().longitude(), 0);
+			assertEquals(2.25f, map.edge(map.vertex("b").orElseThrow(), c).orElseThrow().cost(), 0);
+			assertEquals(0.5f, map.edge(c, map.vertex("a").orElseThrow()).orElseThrow().cost(), 0);
+		}
+	}
+}
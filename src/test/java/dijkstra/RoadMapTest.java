@@ -0,0 +1,107 @@
+/*
+MIT License
+
+Copyright (c) 2022 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+package dijkstra;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+
+import org.junit.Test;
+
+import de.amr.routeplanner.model.GeoCoord;
+import de.amr.routeplanner.model.RoadMap;
+import de.amr.routeplanner.model.RoadMapPoint;
+
+/**
+ * @author Armin Reichert
+ */
+public class RoadMapTest {
+
+	@Test
+	public void testPointStore() {
+		var map = new RoadMap();
+		var a = map.createAndAddPoint("a", "Homburg", 49.33f, 7.34f);
+		var b = map.createAndAddPoint("b", "Saarlouis", 49.31f, 6.75f);
+		var c = map.createAndAddPoint("c", "Homburg", 49.32f, 7.33f);
+		var store = map.pointStore();
+		assertSame(store, a.store());
+		assertEquals(3, store.size());
+		assertEquals(2, store.numNames());
+		assertEquals(store.nameId(a.storeIndex()), store.nameId(c.storeIndex()));
+		assertEquals(-1, store.nameId("Merzig"));
+		assertEquals("Saarlouis", b.locationName());
+		assertSame(a.locationName(), c.locationName());
+		assertEquals(0, RoadMap.orderedByLocationName(a, c));
+		assertEquals(-1, Integer.signum(RoadMap.orderedByLocationName(a, b)));
+		assertEquals(new GeoCoord(49.31f, 6.75f), b.coord());
+		assertArrayEquals(new float[] { 49.33f, 49.31f, 49.32f }, store.latitudes(), 0);
+		assertArrayEquals(new float[] { 7.34f, 6.75f, 7.33f }, store.longitudes(), 0);
+		assertSame(a, map.point("Homburg").orElseThrow());
+		assertFalse(map.point("Merzig").isPresent());
+	}
+
+	@Test
+	public void testStandAlonePoint() {
+		var p = new RoadMapPoint("Homburg", 49.33f, 7.34f);
+		assertEquals("Homburg", p.locationName());
+		assertEquals(new GeoCoord(49.33f, 7.34f), p.coord());
+		assertEquals(1, p.store().size());
+		assertThrows(IllegalArgumentException.class, () -> new RoadMapPoint("Nowhere", 91, 0));
+	}
+
+	@Test
+	public void testInvalidPointsAreNotStored() {
+		var map = new RoadMap();
+		map.createAndAddPoint("a", "Homburg", 49.33f, 7.34f);
+		assertThrows(IllegalArgumentException.class, () -> map.createAndAddPoint("a", "Saarlouis", 49.31f, 6.75f));
+		assertThrows(IllegalArgumentException.class, () -> map.createAndAddPoint("b", "Nowhere", 91, 0));
+		assertEquals(1, map.pointStore().size());
+		assertFalse(map.point("Saarlouis").isPresent());
+		var b = map.createAndAddPoint("b", "Saarlouis", 49.31f, 6.75f);
+		assertEquals(1, b.storeIndex());
+		assertEquals(b.id(), b.storeIndex());
+		assertSame(b, map.point("Saarlouis").orElseThrow());
+	}
+
+	@Test
+	public void testNameTable() {
+		var map = new RoadMap();
+		int n = 1000;
+		for (int i = 0; i < n; ++i) {
+			map.createAndAddPoint("p" + i, "Straße " + (i % 300), 49 + i * 1e-4f, 7);
+		}
+		var store = map.pointStore();
+		assertEquals(300, store.numNames());
+		for (int i = 0; i < n; ++i) {
+			var point = map.vertex(i);
+			assertEquals("Straße " + (i % 300), point.locationName());
+			assertEquals(i % 300, store.nameId(point.storeIndex()));
+			assertSame(map.vertex(i % 300), map.point(point.locationName()).orElseThrow());
+		}
+		assertEquals(-1, store.nameId("Straße"));
+	}
+}
@@ -0,0 +1,69 @@
+/*
+MIT License
+
+Copyright (c) 2022 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+package dijkstra;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+
+import de.amr.routeplanner.model.RoutingService;
+
+/**
+ * Measures the throughput of the routing service with increasing numbers of worker threads.
+ * 
+ * @author Armin Reichert
+ */
+public class RoutingServiceBenchmark {
+
+	private static final int SIZE = 200;
+	private static final int NUM_REQUESTS = 2000;
+
+	public static void main(String[] args) {
+		var map = SyntheticRoadMaps.grid(SIZE, SIZE, 42);
+		int maxThreads = Runtime.getRuntime().availableProcessors();
+		for (int threads = 1; threads <= maxThreads; threads *= 2) {
+			var executor = Executors.newFixedThreadPool(threads);
+			try (var service = new RoutingService(map, executor)) {
+				for (int round = 0; round < 2; ++round) {
+					var rnd = new Random(round);
+					var futures = new ArrayList<CompletableFuture<?>>();
+					long start = System.nanoTime();
+					for (int i = 0; i < NUM_REQUESTS; ++i) {
+						futures.add(service.routeAsync(SyntheticRoadMaps.key(rnd.nextInt(SIZE), rnd.nextInt(SIZE)),
+								SyntheticRoadMaps.key(rnd.nextInt(SIZE), rnd.nextInt(SIZE))));
+					}
+					CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+					double seconds = (System.nanoTime() - start) / 1e9;
+					if (round > 0) {
+						System.out.println("%2d threads: %8.0f requests/s".formatted(threads, NUM_REQUESTS / seconds));
+					}
+				}
+			} finally {
+				executor.shutdown();
+			}
+		}
+	}
+}
@@ -0,0 +1,82 @@
+/*
+MIT License
+
+Copyright (c) 2022 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+package dijkstra;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+
+import de.amr.routeplanner.graph.search.PathFinder;
+import de.amr.routeplanner.graph.search.ShortestPath;
+import de.amr.routeplanner.model.RoadMapPoint;
+import de.amr.routeplanner.model.RoutingService;
+
+/**
+ * @author Armin Reichert
+ */
+public class RoutingServiceTest {
+
+	@Test
+	public void testConcurrentRequestsGiveSequentialResults() throws Exception {
+		var map = SyntheticRoadMaps.grid(30, 30, 5);
+		var executor = Executors.newFixedThreadPool(8);
+		try (var service = new RoutingService(map, executor)) {
+			var rnd = new Random(11);
+			var requests = new ArrayList<String[]>();
+			var futures = new ArrayList<CompletableFuture<ShortestPath<RoadMapPoint>>>();
+			for (int i = 0; i < 500; ++i) {
+				var request = new String[] { SyntheticRoadMaps.key(rnd.nextInt(30), rnd.nextInt(30)),
+						SyntheticRoadMaps.key(rnd.nextInt(30), rnd.nextInt(30)) };
+				requests.add(request);
+				futures.add(service.routeAsync(request[0], request[1]));
+			}
+			var g = service.snapshot();
+			var dijkstra = new PathFinder<RoadMapPoint>();
+			for (int i = 0; i < requests.size(); ++i) {
+				var source = service.point(requests.get(i)[0]).orElseThrow();
+				var goal = service.point(requests.get(i)[1]).orElseThrow();
+				var route = futures.get(i).get();
+				assertEquals(dijkstra.findShortestPath(g, source, goal).cost(), route.cost(), 1e-3f);
+			}
+			assertEquals(500, service.counters().queries());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testUnknownLocation() throws Exception {
+		try (var service = new RoutingService(SyntheticRoadMaps.grid(5, 5, 5))) {
+			assertFalse(service.routeAsync("nowhere", SyntheticRoadMaps.key(0, 0)).get().isFound());
+			assertFalse(service.point("nowhere").isPresent());
+		}
+	}
+}
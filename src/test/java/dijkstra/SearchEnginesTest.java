@@ -0,0 +1,456 @@
+/*
+MIT License
+
+Copyright (c) 2022 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+package dijkstra;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import de.amr.routeplanner.graph.CompressedGraph;
+import de.amr.routeplanner.graph.CsrGraph;
+import de.amr.routeplanner.graph.ch.ContractionHierarchy;
+import de.amr.routeplanner.graph.overlay.MultiLevelOverlay;
+import de.amr.routeplanner.graph.overlay.Partition;
+import de.amr.routeplanner.graph.search.AStarSearch;
+import de.amr.routeplanner.graph.search.BidirectionalDijkstra;
+import de.amr.routeplanner.graph.search.DeltaStepping;
+import de.amr.routeplanner.graph.search.Heuristic;
+import de.amr.routeplanner.graph.search.KShortestPaths;
+import de.amr.routeplanner.graph.search.Landmarks;
+import de.amr.routeplanner.graph.search.PathFinder;
+import de.amr.routeplanner.graph.search.SearchCounters;
+import de.amr.routeplanner.graph.search.ShortestPath;
+import de.amr.routeplanner.model.GreatCircleHeuristic;
+import de.amr.routeplanner.model.RoadMapPathFinder;
+import de.amr.routeplanner.model.RoadMapPoint;
+import de.amr.routeplanner.model.RoadMapReader;
+
+/**
+ * Checks that the different point-to-point search engines compute the same path costs as Dijkstra's algorithm.
+ * 
+ * @author Armin Reichert
+ */
+public class SearchEnginesTest {
+
+	private static final int NUM_QUERIES = 200;
+	private static final float EPSILON = 1e-3f;
+
+	private static CsrGraph<RoadMapPoint> grid;
+	private static CsrGraph<RoadMapPoint> random;
+
+	@BeforeClass
+	public static void createMaps() {
+		grid = SyntheticRoadMaps.grid(30, 40, 1).freeze();
+		random = SyntheticRoadMaps.random(1500, 5000, 2).freeze();
+	}
+
+	private static void assertSamePathCost(ShortestPath<RoadMapPoint> expected, ShortestPath<RoadMapPoint> actual) {
+		assertEquals(expected.isFound(), actual.isFound());
+		if (expected.isFound()) {
+			assertEquals(expected.cost(), actual.cost(), EPSILON);
+			assertEquals(expected.vertices().get(0), actual.vertices().get(0));
+			assertEquals(expected.vertices().get(expected.size() - 1), actual.vertices().get(actual.size() - 1));
+		}
+	}
+
+	private static void assertValidPath(CsrGraph<RoadMapPoint> g, ShortestPath<RoadMapPoint> path) {
+		assertValidPath(g, path, EPSILON);
+	}
+
+	private static void assertValidPath(CsrGraph<RoadMapPoint> g, ShortestPath<RoadMapPoint> path, float tolerance) {
+		float cost = 0;
+		for (int i = 1; i < path.size(); ++i) {
+			int u = g.id(path.vertices().get(i - 1));
+			int v = g.id(path.vertices().get(i));
+			float edgeCost = Float.POSITIVE_INFINITY;
+			for (int e = g.firstEdge(u); e < g.endEdge(u); ++e) {
+				if (g.target(e) == v) {
+					edgeCost = Math.min(edgeCost, g.cost(e));
+				}
+			}
+			assertTrue("No edge between consecutive path vertices", edgeCost < Float.POSITIVE_INFINITY);
+			cost += edgeCost;
+			assertEquals(cost, path.cost(i), tolerance);
+		}
+	}
+
+	@Test
+	public void testReverseGraph() {
+		var reverse = random.reverse();
+		assertEquals(random.numEdges(), reverse.numEdges());
+		for (int u = 0; u < random.numVertices(); ++u) {
+			for (int e = random.firstEdge(u); e < random.endEdge(u); ++e) {
+				int v = random.target(e);
+				boolean found = false;
+				for (int r = reverse.firstEdge(v); r < reverse.endEdge(v); ++r) {
+					found |= reverse.target(r) == u && reverse.cost(r) == random.cost(e);
+				}
+				assertTrue(found);
+			}
+		}
+		assertSame(random, reverse.reverse());
+	}
+
+	@Test
+	public void testCompressedGraphEdges() {
+		for (var g : List.of(grid, random)) {
+			var compressed = CompressedGraph.compress(g);
+			assertEquals(g.numVertices(), compressed.numVertices());
+			assertEquals(g.numEdges(), compressed.numEdges());
+			var edges = compressed.edgeCursor();
+			for (var csr : List.of(g, g.reverse())) {
+				for (int u = 0; u < g.numVertices(); ++u) {
+					int x = compressed.index(u);
+					assertEquals(u, compressed.originalIndex(x));
+					if (csr == g) {
+						edges.outgoing(x);
+					} else {
+						edges.incoming(x);
+					}
+					int degree = 0;
+					while (edges.next()) {
+						int e = csr.edgeIndex(u, compressed.originalIndex(edges.target()));
+						assertTrue(e != -1);
+						assertEquals(csr.cost(e), edges.cost(), compressed.quantum() / 2 + EPSILON);
+						++degree;
+					}
+					assertEquals(csr.outDegree(u), degree);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testCompressedGraphSearch() {
+		var dijkstra = new PathFinder<RoadMapPoint>();
+		for (var g : List.of(grid, random)) {
+			var compressed = CompressedGraph.compress(g, 0.01f);
+			var rnd = new Random(8);
+			for (int i = 0; i < NUM_QUERIES; ++i) {
+				var s = g.vertex(rnd.nextInt(g.numVertices()));
+				var t = g.vertex(rnd.nextInt(g.numVertices()));
+				var expected = dijkstra.findShortestPath(g, s, t);
+				var actual = dijkstra.findShortestPath(compressed, g.id(s), g.id(t), g::vertex);
+				assertEquals(expected.isFound(), actual.isFound());
+				if (expected.isFound()) {
+					// each edge cost is rounded by at most half a quantum
+					int numEdges = Math.max(expected.size(), actual.size()) - 1;
+					assertEquals(expected.cost(), actual.cost(), numEdges * compressed.quantum() / 2 + EPSILON);
+					assertEquals(s, actual.vertices().get(0));
+					assertEquals(t, actual.vertices().get(actual.size() - 1));
+					assertValidPath(g, actual, numEdges * compressed.quantum() / 2 + EPSILON);
+				} else {
+					// both reject the query by the same component check or search the whole component
+					assertEquals(expected.settledCount(), actual.settledCount());
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testBidirectionalDijkstra() {
+		var dijkstra = new PathFinder<RoadMapPoint>();
+		var bidi = new BidirectionalDijkstra<RoadMapPoint>();
+		for (var g : List.of(grid, random)) {
+			var rnd = new Random(3);
+			for (int i = 0; i < NUM_QUERIES; ++i) {
+				var s = g.vertex(rnd.nextInt(g.numVertices()));
+				var t = g.vertex(rnd.nextInt(g.numVertices()));
+				var expected = dijkstra.findShortestPath(g, s, t);
+				var actual = bidi.findShortestPath(g, s, t);
+				assertSamePathCost(expected, actual);
+				assertValidPath(g, actual);
+			}
+		}
+	}
+
+	@Test
+	public void testBidirectionalSettlesFewerVertices() {
+		var s = grid.vertex(0);
+		var t = grid.vertex(grid.numVertices() / 2);
+		var uni = new PathFinder<RoadMapPoint>().findShortestPath(grid, s, t);
+		var bidi = new BidirectionalDijkstra<RoadMapPoint>().findShortestPath(grid, s, t);
+		assertTrue(bidi.settledCount() < uni.settledCount());
+		assertFalse(bidi.vertices().isEmpty());
+	}
+
+	@Test
+	public void testAStarWithGreatCircleHeuristic() {
+		var dijkstra = new PathFinder<RoadMapPoint>();
+		var aStar = new AStarSearch<RoadMapPoint>();
+		for (var g : List.of(grid, random)) {
+			var heuristic = new GreatCircleHeuristic(g);
+			var dijkstraCounters = new SearchCounters();
+			var aStarCounters = new SearchCounters();
+			var rnd = new Random(4);
+			for (int i = 0; i < NUM_QUERIES; ++i) {
+				var s = g.vertex(rnd.nextInt(g.numVertices()));
+				var t = g.vertex(rnd.nextInt(g.numVertices()));
+				var expected = dijkstraCounters.record(dijkstra.findShortestPath(g, s, t));
+				var actual = aStarCounters.record(aStar.findShortestPath(g, s, t, heuristic));
+				assertSamePathCost(expected, actual);
+				assertValidPath(g, actual);
+			}
+			assertTrue(aStarCounters.settled() < dijkstraCounters.settled());
+		}
+	}
+
+	@Test
+	public void testGreatCircleHeuristicScaleOnSaarland() {
+		var map = new RoadMapReader().read(getClass().getResourceAsStream("/saarland.txt")).freeze();
+		var heuristic = new GreatCircleHeuristic(map);
+		// some roads in the map are shorter than the straight line between their end points
+		assertTrue(heuristic.scale() < 1);
+		var dijkstra = new PathFinder<RoadMapPoint>();
+		var aStar = new AStarSearch<RoadMapPoint>();
+		for (int u = 0; u < map.numVertices(); ++u) {
+			for (int v = 0; v < map.numVertices(); ++v) {
+				var expected = dijkstra.findShortestPath(map, map.vertex(u), map.vertex(v));
+				var actual = aStar.findShortestPath(map, map.vertex(u), map.vertex(v), heuristic);
+				assertSamePathCost(expected, actual);
+			}
+		}
+	}
+
+	@Test
+	public void testAltWithAllSelectionStrategies() {
+		var dijkstra = new PathFinder<RoadMapPoint>();
+		var aStar = new AStarSearch<RoadMapPoint>();
+		for (var g : List.of(grid, random)) {
+			for (var selection : Landmarks.Selection.values()) {
+				var landmarks = Landmarks.compute(g, 8, selection, 5);
+				assertEquals(8, landmarks.numLandmarks());
+				var dijkstraCounters = new SearchCounters();
+				var altCounters = new SearchCounters();
+				var rnd = new Random(6);
+				for (int i = 0; i < NUM_QUERIES; ++i) {
+					var s = g.vertex(rnd.nextInt(g.numVertices()));
+					var t = g.vertex(rnd.nextInt(g.numVertices()));
+					var expected = dijkstraCounters.record(dijkstra.findShortestPath(g, s, t));
+					var actual = altCounters.record(aStar.findShortestPath(g, s, t, landmarks.heuristic()));
+					assertSamePathCost(expected, actual);
+				}
+				assertTrue(altCounters.settled() < dijkstraCounters.settled());
+			}
+		}
+	}
+
+	@Test
+	public void testLandmarkTablesRoundTrip() throws IOException {
+		var landmarks = Landmarks.compute(grid, 4, Landmarks.Selection.FARTHEST, 7);
+		var bytes = new ByteArrayOutputStream();
+		landmarks.write(bytes);
+		var copy = Landmarks.read(new ByteArrayInputStream(bytes.toByteArray()), grid);
+		assertEquals(landmarks.numLandmarks(), copy.numLandmarks());
+		for (int v = 0; v < grid.numVertices(); v += 17) {
+			assertEquals(landmarks.lowerBound(v, 3), copy.lowerBound(v, 3), 0);
+		}
+		assertThrows(IOException.class, () -> Landmarks.read(new ByteArrayInputStream(bytes.toByteArray()), random));
+	}
+
+	@Test
+	public void testContractionHierarchy() {
+		var dijkstra = new PathFinder<RoadMapPoint>();
+		for (var g : List.of(grid, random)) {
+			var ch = ContractionHierarchy.build(g);
+			var rnd = new Random(6);
+			for (int i = 0; i < NUM_QUERIES; ++i) {
+				var s = g.vertex(rnd.nextInt(g.numVertices()));
+				var t = g.vertex(rnd.nextInt(g.numVertices()));
+				var expected = dijkstra.findShortestPath(g, s, t);
+				var actual = ch.findShortestPath(s, t);
+				assertSamePathCost(expected, actual);
+				assertValidPath(g, actual);
+			}
+		}
+	}
+
+	@Test
+	public void testMultiLevelOverlay() {
+		var dijkstra = new PathFinder<RoadMapPoint>();
+		for (var g : List.of(grid, random)) {
+			var partition = Partition.compute(g, 16, 128);
+			for (int v = 0; v < g.numVertices(); ++v) {
+				for (int w = 0; w < g.numVertices(); w += 97) {
+					if (partition.cell(1, v) == partition.cell(1, w)) {
+						assertEquals(partition.cell(2, v), partition.cell(2, w));
+					}
+				}
+			}
+			var overlay = new MultiLevelOverlay<>(g, partition);
+			var metric = overlay.customize(g.costs());
+			var rnd = new Random(7);
+			for (int i = 0; i < NUM_QUERIES; ++i) {
+				var s = g.vertex(rnd.nextInt(g.numVertices()));
+				var t = g.vertex(rnd.nextInt(g.numVertices()));
+				var expected = dijkstra.findShortestPath(g, s, t);
+				var actual = overlay.findShortestPath(metric, s, t);
+				assertSamePathCost(expected, actual);
+				assertValidPath(g, actual);
+			}
+		}
+	}
+
+	@Test
+	public void testOverlayRecustomization() {
+		var overlay = new MultiLevelOverlay<>(grid, Partition.compute(grid, 16, 128));
+		var costs = grid.costs();
+		var metric = overlay.customize(costs);
+		var rnd = new Random(8);
+		for (int i = 0; i < 50; ++i) {
+			int e = rnd.nextInt(costs.length);
+			costs[e] = i % 2 == 0 ? Float.POSITIVE_INFINITY : 3 * costs[e];
+		}
+		var updated = overlay.customize(metric, costs);
+		var full = overlay.customize(costs);
+		for (int i = 0; i < NUM_QUERIES; ++i) {
+			var s = grid.vertex(rnd.nextInt(grid.numVertices()));
+			var t = grid.vertex(rnd.nextInt(grid.numVertices()));
+			var expected = overlay.findShortestPath(full, s, t);
+			var actual = overlay.findShortestPath(updated, s, t);
+			assertSamePathCost(expected, actual);
+			float cost = 0;
+			for (int j = 1; j < actual.size(); ++j) {
+				int e = grid.edgeIndex(grid.id(actual.vertices().get(j - 1)), grid.id(actual.vertices().get(j)));
+				cost += updated.edgeCost(e);
+			}
+			assertEquals(actual.isFound() ? actual.cost() : 0, cost, EPSILON);
+		}
+	}
+
+	@Test
+	public void testDeltaStepping() {
+		var dijkstra = new PathFinder<RoadMapPoint>();
+		var pool = new ForkJoinPool(4);
+		try {
+			for (var g : List.of(grid, random)) {
+				var source = g.vertex(g.numVertices() / 3);
+				var expected = dijkstra.computeAllPaths(g, source);
+				float average = DeltaStepping.averageEdgeCost(g);
+				for (float delta : new float[] { 0, average / 1000, average / 10, average * 10 }) {
+					var tree = new DeltaStepping<RoadMapPoint>(delta, pool).computeAllPaths(g, source);
+					for (int v = 0; v < g.numVertices(); ++v) {
+						assertEquals(expected.cost(v), tree.cost(v), EPSILON);
+						int parent = tree.parent(v);
+						if (parent != -1) {
+							assertEquals(tree.cost(v), tree.cost(parent) + g.cost(g.edgeIndex(parent, v)), EPSILON);
+						}
+					}
+				}
+				// the bucket ring would get too large
+				assertThrows(IllegalArgumentException.class,
+						() -> new DeltaStepping<RoadMapPoint>(average * 1e-9f, pool).computeAllPaths(g, source));
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testKShortestPathsAgainstEnumeration() {
+		var g = SyntheticRoadMaps.grid(4, 4, 5).freeze();
+		int s = 0;
+		int t = g.numVertices() - 1;
+		var allCosts = new ArrayList<Float>();
+		enumerateSimplePaths(g, s, t, new boolean[g.numVertices()], 0, allCosts);
+		allCosts.sort(null);
+		int k = 12;
+		var ksp = new KShortestPaths<RoadMapPoint>();
+		for (var heuristic : List.of(Heuristic.ZERO, new GreatCircleHeuristic(g))) {
+			var paths = ksp.findShortestPaths(g, g.vertex(s), g.vertex(t), k, heuristic);
+			assertEquals(k, paths.size());
+			var distinct = new HashSet<List<RoadMapPoint>>();
+			for (int i = 0; i < k; ++i) {
+				var path = paths.get(i);
+				assertValidPath(g, path);
+				assertEquals(path.size(), new HashSet<>(path.vertices()).size());
+				assertTrue(distinct.add(path.vertices()));
+				assertEquals(allCosts.get(i), path.cost(), EPSILON);
+			}
+		}
+	}
+
+	private static void enumerateSimplePaths(CsrGraph<?> g, int u, int t, boolean[] onPath, float cost,
+			List<Float> costs) {
+		if (u == t) {
+			costs.add(cost);
+			return;
+		}
+		onPath[u] = true;
+		for (int e = g.firstEdge(u); e < g.endEdge(u); ++e) {
+			if (!onPath[g.target(e)]) {
+				enumerateSimplePaths(g, g.target(e), t, onPath, cost + g.cost(e), costs);
+			}
+		}
+		onPath[u] = false;
+	}
+
+	@Test
+	public void testKShortestPathsOnGrid() {
+		var dijkstra = new PathFinder<RoadMapPoint>();
+		var ksp = new KShortestPaths<RoadMapPoint>();
+		var heuristic = new GreatCircleHeuristic(grid);
+		var rnd = new Random(9);
+		for (int i = 0; i < 20; ++i) {
+			var s = grid.vertex(rnd.nextInt(grid.numVertices()));
+			var t = grid.vertex(rnd.nextInt(grid.numVertices()));
+			var paths = ksp.findShortestPaths(grid, s, t, 5, heuristic);
+			assertFalse(paths.isEmpty());
+			assertEquals(dijkstra.findShortestPath(grid, s, t).cost(), paths.get(0).cost(), EPSILON);
+			for (int j = 0; j < paths.size(); ++j) {
+				assertValidPath(grid, paths.get(j));
+				if (j > 0) {
+					assertTrue(paths.get(j - 1).cost() <= paths.get(j).cost());
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testAlternativeRoutes() {
+		var map = SyntheticRoadMaps.grid(20, 20, 4);
+		var pf = new RoadMapPathFinder();
+		var from = SyntheticRoadMaps.key(2, 3);
+		var to = SyntheticRoadMaps.key(17, 15);
+		var routes = pf.findAlternativeRoutes(map, from, to, 5);
+		assertEquals(5, routes.size());
+		assertEquals(pf.findRoute(map, from, to).cost(), routes.get(0).cost(), EPSILON);
+		assertTrue(pf.findAlternativeRoutes(map, from, "nowhere", 5).isEmpty());
+	}
+}
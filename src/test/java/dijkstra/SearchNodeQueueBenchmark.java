@@ -0,0 +1,88 @@
+/*
+MIT License
+
+Copyright (c) 2022 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+package dijkstra;
+
+import java.util.function.Supplier;
+
+import de.amr.routeplanner.graph.search.PathFinder;
+import de.amr.routeplanner.graph.search.SearchNodeHeap;
+import de.amr.routeplanner.graph.search.SearchNodeMinPQ;
+import de.amr.routeplanner.graph.search.SearchNodeRadixHeap;
+import de.amr.routeplanner.graph.search.SearchNodeQueue;
+import de.amr.routeplanner.model.RoadMap;
+import de.amr.routeplanner.model.RoadMapPoint;
+
+/**
+ * Compares the running time of one-to-all searches using the different priority queue implementations.
+ * 
+ * @author Armin Reichert
+ */
+public class SearchNodeQueueBenchmark {
+
+	private static final int WARMUP_RUNS = 3;
+	private static final int MEASURED_RUNS = 5;
+
+	public static void main(String[] args) {
+		for (int size : new int[] { 50, 100, 200, 300 }) {
+			var map = SyntheticRoadMaps.grid(size, size, 42);
+			var source = map.vertex(SyntheticRoadMaps.key(size / 2, size / 2)).orElseThrow();
+			System.out.println("Grid %d x %d (%d vertices, %d edges)".formatted(size, size, map.numVertices(), map.numEdges()));
+			run("  SearchNodeMinPQ", map, source, SearchNodeMinPQ::new);
+			run("  SearchNodeHeap(2)", map, source, () -> new SearchNodeHeap<>(2));
+			run("  SearchNodeHeap(4)", map, source, () -> new SearchNodeHeap<>(4));
+			run("  SearchNodeHeap(8)", map, source, () -> new SearchNodeHeap<>(8));
+			run("  SearchNodeRadixHeap", map, source, SearchNodeRadixHeap::new);
+			runDense("  CSR + SearchState", map, source);
+		}
+	}
+
+	private static void run(String name, RoadMap map, RoadMapPoint source,
+			Supplier<SearchNodeQueue<RoadMapPoint>> queueFactory) {
+		var pf = new PathFinder<RoadMapPoint>(queueFactory);
+		for (int i = 0; i < WARMUP_RUNS; ++i) {
+			pf.computeAllPaths(map, source);
+		}
+		long start = System.nanoTime();
+		for (int i = 0; i < MEASURED_RUNS; ++i) {
+			pf.computeAllPaths(map, source);
+		}
+		double millis = (System.nanoTime() - start) / 1e6 / MEASURED_RUNS;
+		System.out.println("%-20s %10.2f ms".formatted(name, millis));
+	}
+
+	private static void runDense(String name, RoadMap map, RoadMapPoint source) {
+		var pf = new PathFinder<RoadMapPoint>();
+		var csr = map.freeze();
+		for (int i = 0; i < WARMUP_RUNS; ++i) {
+			pf.computeAllPaths(csr, source);
+		}
+		long start = System.nanoTime();
+		for (int i = 0; i < MEASURED_RUNS; ++i) {
+			pf.computeAllPaths(csr, source);
+		}
+		double millis = (System.nanoTime() - start) / 1e6 / MEASURED_RUNS;
+		System.out.println("%-20s %10.2f ms".formatted(name, millis));
+	}
+}
\ No newline at end of file
@@ -0,0 +1,124 @@
+/*
+MIT License
+
+Copyright (c) 2022 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+package dijkstra;
+
+import java.util.Random;
+
+import de.amr.routeplanner.model.RoadMap;
+import de.amr.routeplanner.model.RoadMapPoint;
+
+/**
+ * Creates synthetic road maps for tests and benchmarks.
+ * 
+ * @author Armin Reichert
+ */
+public class SyntheticRoadMaps {
+
+	private static final float LATITUDE_MIN = 49.1f;
+	private static final float LATITUDE_MAX = 49.6f;
+	private static final float LONGITUDE_MIN = 6.4f;
+	private static final float LONGITUDE_MAX = 7.4f;
+
+	private static final double KM_PER_DEGREE = 111.2;
+
+	/**
+	 * Creates a grid-shaped road map with the given number of rows and columns. Each point is connected to its right and
+	 * lower neighbor by a road that is between 5% and 60% longer than the straight-line distance.
+	 * 
+	 * @param rows number of rows
+	 * @param cols number of columns
+	 * @param seed random seed for the road lengths
+	 * @return the road map
+	 */
+	public static RoadMap grid(int rows, int cols, long seed) {
+		var rnd = new Random(seed);
+		var map = new RoadMap();
+		float latStep = (LATITUDE_MAX - LATITUDE_MIN) / rows;
+		float lonStep = (LONGITUDE_MAX - LONGITUDE_MIN) / cols;
+		for (int row = 0; row < rows; ++row) {
+			for (int col = 0; col < cols; ++col) {
+				var key = key(row, col);
+				map.createAndAddPoint(key, key, LATITUDE_MAX - row * latStep, LONGITUDE_MIN + col * lonStep);
+			}
+		}
+		double rowKm = latStep * KM_PER_DEGREE;
+		double colKm = lonStep * KM_PER_DEGREE * Math.cos(Math.toRadians(LATITUDE_MAX));
+		for (int row = 0; row < rows; ++row) {
+			for (int col = 0; col < cols; ++col) {
+				var p = map.vertex(key(row, col)).orElseThrow();
+				if (col + 1 < cols) {
+					map.addEdge(p, map.vertex(key(row, col + 1)).orElseThrow(), roadLength(colKm, rnd));
+				}
+				if (row + 1 < rows) {
+					map.addEdge(p, map.vertex(key(row + 1, col)).orElseThrow(), roadLength(rowKm, rnd));
+				}
+			}
+		}
+		return map;
+	}
+
+	/**
+	 * Creates a road map with randomly placed points and one-way roads between random pairs of nearby points. Each road
+	 * is between 10% and 100% longer than the straight-line distance of its end points.
+	 * 
+	 * @param numPoints number of points
+	 * @param numRoads  number of one-way roads
+	 * @param seed      random seed
+	 * @return the road map
+	 */
+	public static RoadMap random(int numPoints, int numRoads, long seed) {
+		var rnd = new Random(seed);
+		var map = new RoadMap();
+		for (int i = 0; i < numPoints; ++i) {
+			var key = "r" + i;
+			map.createAndAddPoint(key, key, LATITUDE_MIN + (LATITUDE_MAX - LATITUDE_MIN) * rnd.nextFloat(),
+					LONGITUDE_MIN + (LONGITUDE_MAX - LONGITUDE_MIN) * rnd.nextFloat());
+		}
+		int window = Math.max(2, numPoints / 20);
+		for (int added = 0; added < numRoads;) {
+			int i = rnd.nextInt(numPoints);
+			int j = Math.floorMod(i + 1 + rnd.nextInt(window), numPoints);
+			var p = map.vertex(i);
+			var q = map.vertex(j);
+			if (i != j && map.edge(p, q).isEmpty()) {
+				map.addDirectedEdge(p, q, (float) (straightKm(p, q) * (1.1 + 0.9 * rnd.nextDouble())));
+				++added;
+			}
+		}
+		return map;
+	}
+
+	private static double straightKm(RoadMapPoint p, RoadMapPoint q) {
+		return p.coord().distanceKm(q.coord());
+	}
+
+	public static String key(int row, int col) {
+		return "p%d_%d".formatted(row, col);
+	}
+
+	private static float roadLength(double straightKm, Random rnd) {
+		return (float) (straightKm * (1.05 + 0.55 * rnd.nextDouble()));
+	}
+}